@@ -0,0 +1,47 @@
+package com.kopylov.ioc.benchmark;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.util.BeanCreator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanCreatorBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    @Param({"false", "true"})
+    private boolean withRefs;
+
+    private List<BeanDefinition> beanDefinitions;
+
+    @Setup
+    public void setUp() {
+        beanDefinitions = ContextGenerator.beanDefinitions(beanCount, withRefs);
+    }
+
+    @Benchmark
+    public Map<String, Bean> createBeans() {
+        return new BeanCreator(beanDefinitions).createBeans();
+    }
+}
@@ -0,0 +1,13 @@
+package com.kopylov.ioc.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BenchmarkService {
+
+    private BenchmarkService dependency;
+    private String name;
+    private int port;
+}
@@ -0,0 +1,12 @@
+package com.kopylov.ioc.benchmark;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class BenchmarkTarget {
+
+    private BenchmarkService dependency;
+    private String name;
+}
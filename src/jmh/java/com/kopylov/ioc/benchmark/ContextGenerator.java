@@ -0,0 +1,94 @@
+package com.kopylov.ioc.benchmark;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates benchmark contexts of {@link BenchmarkService} beans. With refs enabled every bean except
+ * the first references its predecessor, which gives a deep ref chain for the dependency graph.
+ */
+final class ContextGenerator {
+
+    static final String TARGET_ID = "benchmarkTarget";
+
+    private ContextGenerator() {
+    }
+
+    static List<BeanDefinition> beanDefinitions(int beanCount, boolean withRefs) {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>(beanCount + 1);
+        for (int i = 0; i < beanCount; i++) {
+            BeanDefinition beanDefinition = new BeanDefinition(serviceId(i), BenchmarkService.class.getName());
+            beanDefinition.getProperty().put("name", "service-" + i);
+            beanDefinition.getProperty().put("port", String.valueOf(1000 + i));
+            if (withRefs && i > 0) {
+                beanDefinition.getRefProperty().put("dependency", serviceId(i - 1));
+            }
+            beanDefinitions.add(beanDefinition);
+        }
+        BeanDefinition target = new BeanDefinition(TARGET_ID, BenchmarkTarget.class.getName());
+        target.getProperty().put("name", "target");
+        target.getRefProperty().put("dependency", serviceId(0));
+        beanDefinitions.add(target);
+        return beanDefinitions;
+    }
+
+    /**
+     * Writes the context into the benchmark classes directory, so the classpath readers can load it,
+     * and returns its classpath location.
+     */
+    static String writeContext(int beanCount, boolean withRefs) {
+        String resourcePath = "/benchmark/context-" + beanCount + (withRefs ? "-refs" : "") + ".xml";
+        Path file = classesDirectory().resolve(resourcePath.substring(1));
+        if (Files.exists(file)) {
+            return resourcePath;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                writer.write("<beans>\n");
+                for (BeanDefinition beanDefinition : beanDefinitions(beanCount, withRefs)) {
+                    writer.write("    <bean id=\"" + beanDefinition.getId() + "\" class=\"" +
+                            beanDefinition.getClazz() + "\">\n");
+                    for (var property : beanDefinition.getProperty().entrySet()) {
+                        writer.write("        <property name=\"" + property.getKey() + "\" value=\"" +
+                                property.getValue() + "\"/>\n");
+                    }
+                    for (var refProperty : beanDefinition.getRefProperty().entrySet()) {
+                        writer.write("        <property name=\"" + refProperty.getKey() + "\" ref=\"" +
+                                refProperty.getValue() + "\"/>\n");
+                    }
+                    writer.write("    </bean>\n");
+                }
+                writer.write("</beans>\n");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write benchmark context " + file, e);
+        }
+        return resourcePath;
+    }
+
+    static Path contextFile(String resourcePath) {
+        return classesDirectory().resolve(resourcePath.substring(1));
+    }
+
+    static String serviceId(int index) {
+        return "service" + index;
+    }
+
+    private static Path classesDirectory() {
+        try {
+            return Paths.get(ContextGenerator.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException("Can't locate benchmark classes directory", e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.kopylov.ioc.benchmark;
+
+import com.kopylov.ioc.context.ClassPathApplicationContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean lookups from many threads against one shared context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GetBeanBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    private ClassPathApplicationContext context;
+    private String serviceId;
+
+    @Setup
+    public void setUp() {
+        context = new ClassPathApplicationContext(ContextGenerator.writeContext(beanCount, false));
+        serviceId = ContextGenerator.serviceId(beanCount / 2);
+    }
+
+    @Benchmark
+    public Object getBeanById() {
+        return context.getBean(serviceId);
+    }
+
+    @Benchmark
+    public BenchmarkTarget getBeanByType() {
+        return context.getBean(BenchmarkTarget.class);
+    }
+
+    @Benchmark
+    public BenchmarkService getBeanByIdAndType() {
+        return context.getBean(serviceId, BenchmarkService.class);
+    }
+}
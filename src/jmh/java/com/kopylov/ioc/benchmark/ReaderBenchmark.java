@@ -0,0 +1,56 @@
+package com.kopylov.ioc.benchmark;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.reader.dom.XmlBeanDefinitionReader;
+import com.kopylov.ioc.reader.mapped.MappedXmlBeanDefinitionReader;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    private String contextPath;
+    private String contextFile;
+
+    @Setup
+    public void setUp() {
+        contextPath = ContextGenerator.writeContext(beanCount, true);
+        contextFile = ContextGenerator.contextFile(contextPath).toString();
+    }
+
+    @Benchmark
+    public List<BeanDefinition> domReader() {
+        return new XmlBeanDefinitionReader(contextPath).readBeanDefinition();
+    }
+
+    @Benchmark
+    public List<BeanDefinition> staxReader() {
+        return new XmlBeanDefinitionStaxReader(contextPath).readBeanDefinition();
+    }
+
+    @Benchmark
+    public List<BeanDefinition> mappedReader() {
+        return new MappedXmlBeanDefinitionReader(contextFile).readBeanDefinition();
+    }
+}
@@ -0,0 +1,23 @@
+package com.kopylov.ioc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares a bean without XML. The class needs a public no-arg constructor. Annotated classes are listed
+ * in a component index at compile time and read by
+ * {@link com.kopylov.ioc.reader.annotation.ComponentIndexBeanDefinitionReader}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Component {
+
+    /**
+     * Bean id; the simple class name starting with a lower-case letter if empty.
+     */
+    String value() default "";
+}
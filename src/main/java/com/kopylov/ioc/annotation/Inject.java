@@ -0,0 +1,21 @@
+package com.kopylov.ioc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects another bean into a field of a {@link Component}, like a {@code ref} property in XML.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Inject {
+
+    /**
+     * Id of the injected bean; the field name if empty.
+     */
+    String value() default "";
+}
@@ -0,0 +1,23 @@
+package com.kopylov.ioc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Scope of a {@link Component}, one of the names in {@link com.kopylov.ioc.scope.BeanScope}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Scope {
+
+    String value();
+
+    /**
+     * Pool size of a pooled bean; the default pool size if not positive.
+     */
+    int poolSize() default 0;
+}
@@ -0,0 +1,19 @@
+package com.kopylov.ioc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets a literal value through the setter of a field of a {@link Component}, like a {@code value}
+ * property in XML.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface Value {
+
+    String value();
+}
@@ -0,0 +1,213 @@
+package com.kopylov.ioc.annotation.processor;
+
+import com.kopylov.ioc.annotation.Component;
+import com.kopylov.ioc.annotation.Inject;
+import com.kopylov.ioc.annotation.Lazy;
+import com.kopylov.ioc.annotation.Scope;
+import com.kopylov.ioc.annotation.Value;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes every {@link Component} of the compiled sources into {@value #INDEX_LOCATION}, in the same XML
+ * format as context files. Ids, scopes, injected refs and values are resolved here, so reading the index
+ * at startup neither scans the classpath nor loads bean classes.
+ * <p>
+ * An index left in the output by an earlier compilation is merged in, so an incremental compilation of
+ * some sources keeps the components of the others. Its entries whose class no longer exists or is no
+ * longer a component are dropped.
+ */
+@SupportedAnnotationTypes("com.kopylov.ioc.annotation.Component")
+public class ComponentIndexProcessor extends AbstractProcessor {
+
+    public static final String INDEX_LOCATION = "META-INF/ioc/components.xml";
+
+    private final Map<String, BeanDefinition> beanDefinitions = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        for (Element element : roundEnvironment.getElementsAnnotatedWith(Component.class)) {
+            if (isValidComponent(element)) {
+                TypeElement typeElement = (TypeElement) element;
+                String className = processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+                beanDefinitions.put(className, createBeanDefinition(typeElement, className));
+            }
+        }
+        if (roundEnvironment.processingOver()) {
+            Map<String, BeanDefinition> index = readPreviousIndex();
+            index.putAll(beanDefinitions);
+            if (!index.isEmpty()) {
+                writeIndex(index);
+            }
+        }
+        return false;
+    }
+
+    private BeanDefinition createBeanDefinition(TypeElement typeElement, String className) {
+        String id = typeElement.getAnnotation(Component.class).value();
+        if (id.isEmpty()) {
+            String simpleName = typeElement.getSimpleName().toString();
+            id = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+        }
+        BeanDefinition beanDefinition = new BeanDefinition(id, className);
+        Scope scope = typeElement.getAnnotation(Scope.class);
+        if (scope != null) {
+            beanDefinition.setScope(scope.value());
+            if (scope.poolSize() > 0) {
+                beanDefinition.setPoolSize(scope.poolSize());
+            }
+        }
+        Lazy lazy = typeElement.getAnnotation(Lazy.class);
+        if (lazy != null) {
+            beanDefinition.setLazyInit(lazy.value());
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(typeElement.getEnclosedElements())) {
+            String fieldName = field.getSimpleName().toString();
+            Inject inject = field.getAnnotation(Inject.class);
+            if (inject != null && isInjectableField(field)) {
+                beanDefinition.getRefProperty().put(fieldName, inject.value().isEmpty() ? fieldName : inject.value());
+            }
+            Value value = field.getAnnotation(Value.class);
+            if (value != null && isInjectableField(field)) {
+                beanDefinition.getProperty().put(fieldName, value.value());
+            }
+        }
+        return beanDefinition;
+    }
+
+    private boolean isValidComponent(Element element) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return error(element, "@Component must be placed on a concrete class");
+        }
+        TypeElement typeElement = (TypeElement) element;
+        if (typeElement.getNestingKind() == NestingKind.MEMBER && !element.getModifiers().contains(Modifier.STATIC)) {
+            return error(element, "@Component class nested in another class must be static");
+        }
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(element.getEnclosedElements());
+        boolean hasPublicNoArgConstructor = constructors.stream().anyMatch(constructor ->
+                constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC));
+        if (!element.getModifiers().contains(Modifier.PUBLIC) || !hasPublicNoArgConstructor) {
+            return error(element, "@Component class must be public with a public no-arg constructor");
+        }
+        return true;
+    }
+
+    private boolean isInjectableField(VariableElement field) {
+        if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.FINAL)) {
+            return error(field, "Injected field must be neither static nor final");
+        }
+        return true;
+    }
+
+    private boolean error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        return false;
+    }
+
+    private Map<String, BeanDefinition> readPreviousIndex() {
+        Map<String, BeanDefinition> index = new TreeMap<>();
+        List<BeanDefinition> previousBeanDefinitions;
+        try {
+            FileObject previousIndex = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_LOCATION);
+            try (InputStream inputStream = previousIndex.openInputStream()) {
+                previousBeanDefinitions = new XmlBeanDefinitionStaxReader()
+                        .inputStreamResourceReader(inputStream, UnaryOperator.identity()).getBeanDefinitions();
+            }
+        } catch (IOException e) {
+            return index;
+        } catch (XMLStreamException | RuntimeException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Can't read previous component index " + INDEX_LOCATION + ", rebuilding it: " + e);
+            return index;
+        }
+        for (BeanDefinition beanDefinition : previousBeanDefinitions) {
+            TypeElement typeElement = processingEnv.getElementUtils()
+                    .getTypeElement(beanDefinition.getClazz().replace('$', '.'));
+            if (typeElement != null && typeElement.getAnnotation(Component.class) != null) {
+                index.put(beanDefinition.getClazz(), beanDefinition);
+            }
+        }
+        return index;
+    }
+
+    private void writeIndex(Map<String, BeanDefinition> index) {
+        try {
+            FileObject indexFile = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    INDEX_LOCATION);
+            try (Writer writer = indexFile.openWriter()) {
+                XMLStreamWriter xmlWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(writer);
+                xmlWriter.writeStartDocument();
+                xmlWriter.writeStartElement("beans");
+                for (BeanDefinition beanDefinition : index.values()) {
+                    writeBeanDefinition(xmlWriter, beanDefinition);
+                }
+                xmlWriter.writeEndElement();
+                xmlWriter.writeEndDocument();
+                xmlWriter.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Can't write component index " + INDEX_LOCATION + ": " + e);
+        }
+    }
+
+    private void writeBeanDefinition(XMLStreamWriter xmlWriter, BeanDefinition beanDefinition)
+            throws XMLStreamException {
+        xmlWriter.writeStartElement("bean");
+        xmlWriter.writeAttribute("id", beanDefinition.getId());
+        xmlWriter.writeAttribute("class", beanDefinition.getClazz());
+        if (beanDefinition.getScope() != null) {
+            xmlWriter.writeAttribute("scope", beanDefinition.getScope());
+        }
+        if (beanDefinition.getPoolSize() != null) {
+            xmlWriter.writeAttribute("pool-size", beanDefinition.getPoolSize().toString());
+        }
+        if (beanDefinition.getLazyInit() != null) {
+            xmlWriter.writeAttribute("lazy-init", beanDefinition.getLazyInit().toString());
+        }
+        for (Map.Entry<String, String> property : beanDefinition.getProperty().entrySet()) {
+            xmlWriter.writeEmptyElement("property");
+            xmlWriter.writeAttribute("name", property.getKey());
+            xmlWriter.writeAttribute("value", property.getValue());
+        }
+        for (Map.Entry<String, String> refProperty : beanDefinition.getRefProperty().entrySet()) {
+            xmlWriter.writeEmptyElement("property");
+            xmlWriter.writeAttribute("name", refProperty.getKey());
+            xmlWriter.writeAttribute("ref", refProperty.getValue());
+        }
+        xmlWriter.writeEndElement();
+    }
+}
@@ -0,0 +1,27 @@
+package com.kopylov.ioc.cache;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Counters of a {@link MethodCache} at one point in time. {@code evictionCount} covers both entries
+ * removed to make room and new entries the admission policy turned away; expired entries are
+ * counted in {@code expirationCount} only.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final int size;
+
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
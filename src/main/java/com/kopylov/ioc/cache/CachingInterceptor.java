@@ -0,0 +1,116 @@
+package com.kopylov.ioc.cache;
+
+import com.kopylov.ioc.proxy.MethodInterceptor;
+import com.kopylov.ioc.proxy.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Returns cached results for the cached methods of one bean. Overloads of a method share its cache, but
+ * their keys include the invoked {@link Method}, so overloads called with equal arguments never see each
+ * other's results. {@code null} results are cached too; exceptions are not.
+ * Concurrent misses of the same key may each call the bean.
+ */
+final class CachingInterceptor implements MethodInterceptor {
+
+    private static final Object NULL = new Object();
+
+    private final String beanId;
+    private final Map<String, MethodCache> caches;
+
+    CachingInterceptor(String beanId, Map<String, MethodCache> caches) {
+        this.beanId = beanId;
+        this.caches = caches;
+    }
+
+    @Override
+    public boolean appliesTo(String beanId, Method method) {
+        return this.beanId.equals(beanId) && method.getReturnType() != void.class
+                && caches.containsKey(method.getName());
+    }
+
+    @Override
+    public Object intercept(MethodInvocation invocation) throws Throwable {
+        MethodCache cache = caches.get(invocation.getMethod().getName());
+        Object key = keyOf(invocation.getMethod(), invocation.getArguments());
+        Object value = cache.get(key);
+        if (value != null) {
+            return value == NULL ? null : value;
+        }
+        Object result = invocation.proceed();
+        cache.put(key, result == null ? NULL : result);
+        return result;
+    }
+
+    Map<String, CacheStats> getStats() {
+        Map<String, CacheStats> stats = new HashMap<>();
+        caches.forEach((method, cache) -> stats.put(method, cache.getStats()));
+        return Map.copyOf(stats);
+    }
+
+    static MethodCache createCache(Integer maxSize, Duration ttl) {
+        return new MethodCache(maxSize != null ? maxSize : MethodCache.DEFAULT_MAX_SIZE, ttl);
+    }
+
+    private static Object keyOf(Method method, Object[] arguments) {
+        if (arguments.length == 0) {
+            return method;
+        }
+        if (arguments.length == 1 && arguments[0] != null && !arguments[0].getClass().isArray()) {
+            return new ArgumentKey(method, arguments[0]);
+        }
+        return new ArgumentsKey(method, arguments.clone());
+    }
+
+    private static final class ArgumentKey {
+
+        private final Method method;
+        private final Object argument;
+        private final int hash;
+
+        private ArgumentKey(Method method, Object argument) {
+            this.method = method;
+            this.argument = argument;
+            this.hash = 31 * method.hashCode() + argument.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArgumentKey otherKey && method.equals(otherKey.method)
+                    && argument.equals(otherKey.argument);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class ArgumentsKey {
+
+        private final Method method;
+        private final Object[] arguments;
+        private final int hash;
+
+        private ArgumentsKey(Method method, Object[] arguments) {
+            this.method = method;
+            this.arguments = arguments;
+            this.hash = 31 * method.hashCode() + Arrays.deepHashCode(arguments);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof ArgumentsKey otherKey && method.equals(otherKey.method)
+                    && Arrays.deepEquals(arguments, otherKey.arguments);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.kopylov.ioc.cache;
+
+/**
+ * Approximate access counts of keys in a count-min sketch of 4-bit counters, sixteen to a {@code long}.
+ * Each key maps to four counters in four different words and its frequency is the smallest of them, so
+ * collisions can only overestimate. Once the number of increments reaches ten times the capacity, all
+ * counters are halved, so the sketch forgets keys that were popular long ago.
+ * <p>
+ * Not thread-safe: every {@link MethodCache} stripe owns a sketch and uses it under the stripe lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int capacity) {
+        int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.table = new long[length];
+        this.sampleSize = 10 * Math.max(1, capacity);
+    }
+
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int offset = (start + i) << 2;
+            long count = (table[indexOf(hash, i)] >>> offset) & MAX_COUNT;
+            frequency = Math.min(frequency, (int) count);
+        }
+        return frequency;
+    }
+
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean incremented = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            incremented |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (incremented && ++size == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = (long) MAX_COUNT << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size /= 2;
+    }
+
+    private int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return (int) index & (table.length - 1);
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
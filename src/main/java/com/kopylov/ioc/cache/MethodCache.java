@@ -0,0 +1,200 @@
+package com.kopylov.ioc.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of method results with an optional time to live.
+ * <p>
+ * Keys are spread over up to {@value #MAX_STRIPES} stripes, each guarded by its own lock, so threads
+ * working on different keys rarely contend. A stripe follows the W-TinyLFU policy: new entries enter a
+ * small LRU window, and an entry pushed out of the window replaces the least recently used entry of the
+ * main region only if a {@link FrequencySketch} has seen it requested more often. A burst of keys
+ * requested once therefore cannot flush the keys requested again and again.
+ * <p>
+ * Expired entries are dropped when they are read or chosen as victims; until then they count towards
+ * the size. Counters are {@link LongAdder}s updated outside the stripe locks.
+ */
+public class MethodCache {
+
+    static final int DEFAULT_MAX_SIZE = 1024;
+    private static final int MAX_STRIPES = 16;
+    private static final int MIN_STRIPE_SIZE = 64;
+
+    private final Stripe[] stripes;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder expirationCount = new LongAdder();
+
+    /**
+     * @param ttl time an entry stays valid after it is put, or {@code null} to keep entries until evicted
+     */
+    public MethodCache(int maxSize, Duration ttl) {
+        this(maxSize, ttl, System::nanoTime);
+    }
+
+    MethodCache(int maxSize, Duration ttl, LongSupplier ticker) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maxSize);
+        }
+        if (ttl != null && ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache ttl must not be negative: " + ttl);
+        }
+        int stripeCount = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, maxSize / MIN_STRIPE_SIZE)));
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(maxSize / stripeCount);
+        }
+        this.ttlNanos = ttl == null || ttl.isZero() ? 0 : ttl.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Records a request for the key.
+     *
+     * @return the cached value, or {@code null} if there is none or it has expired
+     */
+    public Object get(Object key) {
+        Stripe stripe = stripeFor(key);
+        Object value;
+        stripe.lock.lock();
+        try {
+            value = stripe.get(key, ticker.getAsLong());
+        } finally {
+            stripe.lock.unlock();
+        }
+        (value == null ? missCount : hitCount).increment();
+        return value;
+    }
+
+    /**
+     * Caches a value. It may be turned away right away if the cache is full of keys requested more often.
+     */
+    public void put(Object key, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Cached value must not be null");
+        }
+        Stripe stripe = stripeFor(key);
+        stripe.lock.lock();
+        try {
+            stripe.put(key, value, ticker.getAsLong());
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public CacheStats getStats() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.window.size() + stripe.main.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum(), size);
+    }
+
+    private Stripe stripeFor(Object key) {
+        int hash = key.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    private final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Object, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+        private final LinkedHashMap<Object, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+        private final int windowCapacity;
+        private final int mainCapacity;
+        private final FrequencySketch sketch;
+
+        private Stripe(int capacity) {
+            this.windowCapacity = Math.max(1, capacity / 100);
+            this.mainCapacity = capacity - windowCapacity;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        private Object get(Object key, long now) {
+            sketch.increment(key);
+            Map<Object, Entry> region = window;
+            Entry entry = window.get(key);
+            if (entry == null) {
+                region = main;
+                entry = main.get(key);
+            }
+            if (entry == null) {
+                return null;
+            }
+            if (entry.isExpired(now)) {
+                region.remove(key);
+                expirationCount.increment();
+                return null;
+            }
+            return entry.value;
+        }
+
+        private void put(Object key, Object value, long now) {
+            Entry entry = new Entry(value, ttlNanos == 0 ? now + Long.MAX_VALUE : now + ttlNanos);
+            if (main.containsKey(key)) {
+                main.put(key, entry);
+                return;
+            }
+            window.put(key, entry);
+            if (window.size() > windowCapacity) {
+                Iterator<Map.Entry<Object, Entry>> iterator = window.entrySet().iterator();
+                Map.Entry<Object, Entry> candidate = iterator.next();
+                iterator.remove();
+                admit(candidate.getKey(), candidate.getValue(), now);
+            }
+        }
+
+        private void admit(Object key, Entry entry, long now) {
+            if (main.size() < mainCapacity) {
+                main.put(key, entry);
+                return;
+            }
+            if (mainCapacity == 0) {
+                evictionCount.increment();
+                return;
+            }
+            Iterator<Map.Entry<Object, Entry>> iterator = main.entrySet().iterator();
+            Map.Entry<Object, Entry> victim = iterator.next();
+            if (victim.getValue().isExpired(now)) {
+                iterator.remove();
+                expirationCount.increment();
+                main.put(key, entry);
+                return;
+            }
+            if (sketch.frequency(key) > sketch.frequency(victim.getKey())) {
+                iterator.remove();
+                main.put(key, entry);
+            }
+            evictionCount.increment();
+        }
+    }
+}
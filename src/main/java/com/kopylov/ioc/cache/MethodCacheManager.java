@@ -0,0 +1,83 @@
+package com.kopylov.ioc.cache;
+
+import com.kopylov.ioc.convert.ConversionService;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates the method caches declared by {@code <cache>} elements of bean definitions and keeps them by
+ * bean id. Caches are applied by the bean's proxy, so a cached method must be declared by an interface
+ * of the bean and only calls through the proxy are cached. Creating a bean again, for example on
+ * refresh, starts it with empty caches. Instances of a scoped bean share its caches.
+ */
+@Slf4j
+public class MethodCacheManager {
+
+    private final Map<String, CachingInterceptor> interceptors = new ConcurrentHashMap<>();
+
+    /**
+     * @return the given factory if the bean declares no caches, otherwise a factory that also applies its
+     * caches, after all other interceptors
+     */
+    public ProxyFactory proxyFactoryFor(BeanDefinition beanDefinition, ProxyFactory proxyFactory) {
+        List<MethodCacheDefinition> methodCaches = beanDefinition.getMethodCaches();
+        if (methodCaches == null || methodCaches.isEmpty()) {
+            return proxyFactory;
+        }
+        String id = beanDefinition.getId();
+        Map<String, MethodCache> caches = new HashMap<>();
+        for (MethodCacheDefinition methodCache : methodCaches) {
+            checkCachedMethod(beanDefinition, methodCache.getMethod());
+            Duration ttl = methodCache.getTtl() == null ? null
+                    : (Duration) ConversionService.getDefault().convert(methodCache.getTtl(), Duration.class);
+            caches.put(methodCache.getMethod(), CachingInterceptor.createCache(methodCache.getMaxSize(), ttl));
+        }
+        CachingInterceptor interceptor = new CachingInterceptor(id, Map.copyOf(caches));
+        interceptors.put(id, interceptor);
+        log.debug("Caching methods {} of bean: {}", caches.keySet(), id);
+        return proxyFactory.withInterceptors(List.of(interceptor));
+    }
+
+    /**
+     * @return statistics of the caches of the bean by method name, empty if the bean has none
+     */
+    public Map<String, CacheStats> getStats(String beanId) {
+        CachingInterceptor interceptor = interceptors.get(beanId);
+        return interceptor == null ? Map.of() : interceptor.getStats();
+    }
+
+    private static void checkCachedMethod(BeanDefinition beanDefinition, String methodName) {
+        Class<?> beanClass;
+        try {
+            beanClass = Class.forName(beanDefinition.getClazz());
+        } catch (ClassNotFoundException e) {
+            log.error("Can't load class of bean: {}", beanDefinition.getId(), e);
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClazz(), e);
+        }
+        for (Class<?> type = beanClass; type != null; type = type.getSuperclass()) {
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                for (Method method : interfaceType.getMethods()) {
+                    if (method.getName().equals(methodName) && method.getReturnType() != void.class
+                            && !Modifier.isStatic(method.getModifiers())) {
+                        return;
+                    }
+                }
+            }
+        }
+        log.error("Cached method: {} of bean: {} is not declared by an interface", methodName,
+                beanDefinition.getId());
+        throw new BeanInstantiationException("Cached method '" + methodName + "' of bean '" +
+                beanDefinition.getId() + "' must be a non-void method of an interface the bean implements");
+    }
+}
@@ -1,8 +1,10 @@
 package com.kopylov.ioc.context;
 
+import com.kopylov.ioc.scope.BeanPool;
+
 import java.util.List;
 
-public interface ApplicationContext {
+public interface ApplicationContext extends AutoCloseable {
 
     <T> T getBean(Class<T> clazz);
 
@@ -10,5 +12,22 @@ public interface ApplicationContext {
 
     Object getBean(String name);
 
+    /**
+     * Returns the pool of a bean declared with {@code scope="pooled"}. {@code getBean} on such a bean
+     * borrows an instance from this pool.
+     */
+    <T> BeanPool<T> getBeanPool(String name, Class<T> clazz);
+
+    /**
+     * Registers an already created singleton. Fails if a bean with the same name exists.
+     */
+    void registerBean(String name, Object bean);
+
     List<String> getBeanNames();
+
+    /**
+     * Calls the destroy methods of the created singletons, dependents first, and releases them.
+     */
+    @Override
+    void close();
 }
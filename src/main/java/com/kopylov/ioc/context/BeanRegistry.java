@@ -0,0 +1,306 @@
+package com.kopylov.ioc.context;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.factory.AsyncFactoryBean;
+import com.kopylov.ioc.proxy.InterceptedProxy;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import com.kopylov.ioc.scope.BeanScope;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+
+/**
+ * Immutable snapshot of everything a context resolves beans from: the bean definitions it was built from,
+ * created singletons, definitions of lazy-init beans, scoped beans and the index of bean ids by type.
+ * Proxied beans are indexed by the interfaces of their proxy only, whether they are created or not, since
+ * a proxy can't be cast to the bean class.
+ * A snapshot never changes after construction. Updates build a new one, which the context publishes
+ * with a single atomic reference write, so a reader sees either the old snapshot or the new one in full.
+ */
+@Slf4j
+final class BeanRegistry {
+
+    static final BeanRegistry EMPTY = new BeanRegistry(Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final Map<String, BeanDefinition> beanDefinitions;
+    private final Map<String, Bean> beans;
+    private final Map<String, BeanDefinition> lazyBeanDefinitions;
+    private final Map<String, BeanScope> scopedBeans;
+    private final BiPredicate<BeanDefinition, Class<?>> proxied;
+    private final Map<Class<?>, List<String>> beanIdsByType;
+
+    BeanRegistry(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                 Map<String, BeanDefinition> lazyBeanDefinitions, Map<String, BeanScope> scopedBeans) {
+        this(beanDefinitions, beans, lazyBeanDefinitions, scopedBeans, (beanDefinition, beanClass) -> false);
+    }
+
+    /**
+     * @param proxied tells whether instances of a bean not created yet, lazy-init or scoped, will be proxied
+     */
+    BeanRegistry(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                 Map<String, BeanDefinition> lazyBeanDefinitions, Map<String, BeanScope> scopedBeans,
+                 BiPredicate<BeanDefinition, Class<?>> proxied) {
+        this(Map.copyOf(beanDefinitions), Map.copyOf(beans), Map.copyOf(lazyBeanDefinitions),
+                Map.copyOf(scopedBeans), proxied, null);
+    }
+
+    private BeanRegistry(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans,
+                         Map<String, BeanDefinition> lazyBeanDefinitions, Map<String, BeanScope> scopedBeans,
+                         BiPredicate<BeanDefinition, Class<?>> proxied, Map<Class<?>, List<String>> beanIdsByType) {
+        this.beanDefinitions = beanDefinitions;
+        this.beans = beans;
+        this.lazyBeanDefinitions = lazyBeanDefinitions;
+        this.scopedBeans = scopedBeans;
+        this.proxied = proxied;
+        this.beanIdsByType = beanIdsByType != null ? beanIdsByType : indexBeansByType();
+    }
+
+    Bean getBean(String id) {
+        return beans.get(id);
+    }
+
+    BeanDefinition getLazyBeanDefinition(String id) {
+        return lazyBeanDefinitions.get(id);
+    }
+
+    BeanScope getScope(String id) {
+        return scopedBeans.get(id);
+    }
+
+    /**
+     * @return ids of all beans assignable to the type, or {@code null} if there are none
+     */
+    List<String> getBeanIds(Class<?> type) {
+        return beanIdsByType.get(type);
+    }
+
+    boolean containsBean(String id) {
+        return beans.containsKey(id) || lazyBeanDefinitions.containsKey(id) || scopedBeans.containsKey(id);
+    }
+
+    Set<String> getBeanNames() {
+        Set<String> beanNames = new LinkedHashSet<>(beans.keySet());
+        beanNames.addAll(lazyBeanDefinitions.keySet());
+        beanNames.addAll(scopedBeans.keySet());
+        return beanNames;
+    }
+
+    Map<String, BeanDefinition> getBeanDefinitions() {
+        return beanDefinitions;
+    }
+
+    Map<String, Bean> getBeans() {
+        return beans;
+    }
+
+    Map<String, BeanDefinition> getLazyBeanDefinitions() {
+        return lazyBeanDefinitions;
+    }
+
+    Map<String, BeanScope> getScopedBeans() {
+        return scopedBeans;
+    }
+
+    /**
+     * Returns a snapshot with created beans of lazy-init or asynchronous definitions added. Each created
+     * bean is moved in the index from the types its definition was indexed by to the types of the bean,
+     * since those may differ, for example when a post processor replaced it.
+     */
+    BeanRegistry withCreatedLazyBeans(Map<String, Bean> createdBeans) {
+        Map<String, Bean> updatedBeans = new HashMap<>(beans);
+        Map<Class<?>, List<String>> index = new HashMap<>(beanIdsByType);
+        for (Map.Entry<String, Bean> entry : createdBeans.entrySet()) {
+            String id = entry.getKey();
+            Bean previousBean = beans.get(id);
+            BeanDefinition beanDefinition = lazyBeanDefinitions.get(id);
+            List<Class<?>> indexedTypes = previousBean != null ? typesOf(previousBean.getValue())
+                    : beanDefinition != null ? plannedTypesOf(beanDefinition, loadClass(beanDefinition))
+                    : List.of();
+            reindex(index, id, indexedTypes, typesOf(entry.getValue().getValue()));
+            updatedBeans.put(id, entry.getValue());
+        }
+        return new BeanRegistry(beanDefinitions, Map.copyOf(updatedBeans), lazyBeanDefinitions, scopedBeans,
+                proxied, Map.copyOf(index));
+    }
+
+    /**
+     * Returns a snapshot with a bean registered at runtime added and indexed.
+     */
+    BeanRegistry withBean(Bean bean) {
+        Map<String, Bean> updatedBeans = new HashMap<>(beans);
+        updatedBeans.put(bean.getId(), bean);
+        Map<Class<?>, List<String>> index = new HashMap<>(beanIdsByType);
+        reindex(index, bean.getId(), List.of(), typesOf(bean.getValue()));
+        return new BeanRegistry(beanDefinitions, Map.copyOf(updatedBeans), lazyBeanDefinitions, scopedBeans,
+                proxied, Map.copyOf(index));
+    }
+
+    /**
+     * Returns a snapshot that also holds the beans registered at runtime into {@code previous},
+     * unless this snapshot already has a bean with the same id.
+     */
+    BeanRegistry withRegisteredBeansOf(BeanRegistry previous) {
+        BeanRegistry updatedRegistry = this;
+        for (Map.Entry<String, Bean> entry : previous.beans.entrySet()) {
+            String id = entry.getKey();
+            if (!previous.beanDefinitions.containsKey(id) && !updatedRegistry.containsBean(id)) {
+                updatedRegistry = updatedRegistry.withBean(entry.getValue());
+            }
+        }
+        return updatedRegistry;
+    }
+
+    private Map<Class<?>, List<String>> indexBeansByType() {
+        Map<Class<?>, List<String>> index = new HashMap<>();
+        for (Map.Entry<String, Bean> entry : beans.entrySet()) {
+            addToIndex(index, entry.getKey(), typesOf(entry.getValue().getValue()));
+        }
+        for (BeanDefinition beanDefinition : lazyBeanDefinitions.values()) {
+            if (!beans.containsKey(beanDefinition.getId())) {
+                addToIndex(index, beanDefinition.getId(), plannedTypesOf(beanDefinition, loadClass(beanDefinition)));
+            }
+        }
+        for (Map.Entry<String, BeanScope> entry : scopedBeans.entrySet()) {
+            addToIndex(index, entry.getKey(),
+                    plannedTypesOf(beanDefinitions.get(entry.getKey()), entry.getValue().getBeanClass()));
+        }
+        index.replaceAll((type, ids) -> List.copyOf(ids));
+        return Map.copyOf(index);
+    }
+
+    private Class<?> loadClass(BeanDefinition beanDefinition) {
+        try {
+            return Class.forName(beanDefinition.getClazz(), false, getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            log.error("Can't load class of lazy-init bean: {}", beanDefinition.getId(), e);
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClazz(), e);
+        }
+    }
+
+    private List<Class<?>> plannedTypesOf(BeanDefinition beanDefinition, Class<?> beanClass) {
+        if (AsyncFactoryBean.class.isAssignableFrom(beanClass)) {
+            return collectTypes(resolveFactoryObjectType(beanClass));
+        }
+        if (beanDefinition != null && proxied.test(beanDefinition, beanClass)) {
+            return collectProxyTypes(beanClass);
+        }
+        return collectTypes(beanClass);
+    }
+
+    private static List<Class<?>> typesOf(Object bean) {
+        if (bean instanceof InterceptedProxy) {
+            return collectProxyTypes(ProxyFactory.unwrap(bean).getClass());
+        }
+        return collectTypes(bean.getClass());
+    }
+
+    /**
+     * Moves the id from the lists of the removed types to the lists of the added types, copying only the
+     * lists it changes, so the lists of the snapshot it was copied from stay untouched.
+     */
+    private static void reindex(Map<Class<?>, List<String>> index, String id, List<Class<?>> removedTypes,
+                                List<Class<?>> addedTypes) {
+        for (Class<?> type : removedTypes) {
+            List<String> ids = index.get(type);
+            if (ids != null && ids.contains(id)) {
+                List<String> updatedIds = new ArrayList<>(ids);
+                updatedIds.remove(id);
+                if (updatedIds.isEmpty()) {
+                    index.remove(type);
+                } else {
+                    index.put(type, List.copyOf(updatedIds));
+                }
+            }
+        }
+        for (Class<?> type : addedTypes) {
+            List<String> ids = new ArrayList<>(index.getOrDefault(type, List.of()));
+            ids.add(id);
+            index.put(type, List.copyOf(ids));
+        }
+    }
+
+    private static void addToIndex(Map<Class<?>, List<String>> index, String id, List<Class<?>> types) {
+        for (Class<?> type : types) {
+            index.computeIfAbsent(type, key -> new ArrayList<>(1)).add(id);
+        }
+    }
+
+    private static List<Class<?>> collectTypes(Class<?> beanClass) {
+        List<Class<?>> types = new ArrayList<>();
+        for (Class<?> type = beanClass; type != null; type = type.getSuperclass()) {
+            types.add(type);
+            collectInterfaces(type, types);
+        }
+        return types;
+    }
+
+    /**
+     * Returns the type argument {@code T} of {@code AsyncFactoryBean<T>} implemented by the factory class,
+     * or {@link Object} if it isn't declared by a class.
+     */
+    private static Class<?> resolveFactoryObjectType(Class<?> factoryClass) {
+        for (Class<?> type = factoryClass; type != null; type = type.getSuperclass()) {
+            Class<?> objectType = resolveFactoryObjectType(type.getGenericInterfaces());
+            if (objectType != null) {
+                return objectType;
+            }
+        }
+        return Object.class;
+    }
+
+    private static Class<?> resolveFactoryObjectType(Type[] interfaceTypes) {
+        for (Type interfaceType : interfaceTypes) {
+            Type rawType = interfaceType instanceof ParameterizedType parameterizedType
+                    ? parameterizedType.getRawType() : interfaceType;
+            if (rawType == AsyncFactoryBean.class) {
+                Type objectType = ((ParameterizedType) interfaceType).getActualTypeArguments()[0];
+                if (objectType instanceof ParameterizedType parameterizedObjectType) {
+                    objectType = parameterizedObjectType.getRawType();
+                }
+                return objectType instanceof Class<?> objectClass ? objectClass : Object.class;
+            }
+            if (rawType instanceof Class<?> rawClass) {
+                Class<?> objectType = resolveFactoryObjectType(rawClass.getGenericInterfaces());
+                if (objectType != null) {
+                    return objectType;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the types a proxy of the bean class can be cast to: {@link Object} and the interfaces the
+     * proxy implements, with their superinterfaces.
+     */
+    private static List<Class<?>> collectProxyTypes(Class<?> beanClass) {
+        List<Class<?>> types = new ArrayList<>();
+        types.add(Object.class);
+        for (Class<?> interfaceType : ProxyFactory.getProxiedInterfaces(beanClass)) {
+            if (!types.contains(interfaceType)) {
+                types.add(interfaceType);
+                collectInterfaces(interfaceType, types);
+            }
+        }
+        return types;
+    }
+
+    private static void collectInterfaces(Class<?> type, List<Class<?>> types) {
+        for (Class<?> interfaceType : type.getInterfaces()) {
+            if (!types.contains(interfaceType)) {
+                types.add(interfaceType);
+                collectInterfaces(interfaceType, types);
+            }
+        }
+    }
+}
@@ -1,26 +1,157 @@
 package com.kopylov.ioc.context;
 
+import com.kopylov.ioc.cache.CacheStats;
+import com.kopylov.ioc.cache.MethodCacheManager;
 import com.kopylov.ioc.entity.Bean;
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
 import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.CircularDependencyException;
 import com.kopylov.ioc.exception.NoSuchBeanException;
 import com.kopylov.ioc.exception.NoUniqueBeanException;
+import com.kopylov.ioc.factory.AsyncFactoryBean;
+import com.kopylov.ioc.metrics.StartupListener;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.processor.BeanPostProcessor;
+import com.kopylov.ioc.processor.BeanPostProcessors;
+import com.kopylov.ioc.proxy.MethodInterceptor;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import com.kopylov.ioc.reader.BeanDefinitionReader;
 import com.kopylov.ioc.reader.dom.XmlBeanDefinitionReader;
+import com.kopylov.ioc.scope.BeanPool;
+import com.kopylov.ioc.scope.BeanScope;
+import com.kopylov.ioc.scope.BeanScopes;
+import com.kopylov.ioc.scope.PooledScope;
 import com.kopylov.ioc.util.BeanCreator;
+import com.kopylov.ioc.util.DependencyGraph;
+import com.kopylov.ioc.util.DependencyOrderedTasks;
+import com.kopylov.ioc.util.InjectionPlan;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 @Slf4j
 public class ClassPathApplicationContext implements ApplicationContext {
 
-    private Map<String, Bean> beans;
+    static final Duration DEFAULT_DESTROY_TIMEOUT = Duration.ofSeconds(30);
+
+    private final Object lazyCreationLock = new Object();
+    /**
+     * Ids of beans whose constructor arguments are being resolved, guarded by {@link #lazyCreationLock}.
+     */
+    private final Set<String> beansInCreation = new LinkedHashSet<>();
+    private final AtomicReference<BeanRegistry> registry = new AtomicReference<>(BeanRegistry.EMPTY);
+    private final MethodCacheManager methodCacheManager = new MethodCacheManager();
+    private final BeanPostProcessors postProcessors = new BeanPostProcessors();
+    private BeanCreator beanCreator;
+    private BeanDefinitionReader beanDefinitionReader;
+    private boolean lazyInitByDefault;
+    private StartupRecorder startupRecorder = StartupRecorder.NONE;
+    private ProxyFactory proxyFactory = ProxyFactory.NONE;
+    private Executor executor;
+    private Duration destroyTimeout = DEFAULT_DESTROY_TIMEOUT;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    /**
+     * Futures of singletons created in the background because they depend on asynchronous beans.
+     */
+    private final Map<String, CompletableFuture<Bean>> pendingBeans = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<ApplicationContext> readiness = CompletableFuture.completedFuture(this);
 
     public ClassPathApplicationContext(String... pathToXml) {
-        List<BeanDefinition> beanDefinitions = new XmlBeanDefinitionReader(pathToXml).readBeanDefinition();
-        this.beans = new BeanCreator(beanDefinitions).createBeans();
+        this((Executor) null, pathToXml);
+    }
+
+    /**
+     * @param executor executor used to create independent beans concurrently,
+     *                 or {@code null} to create beans on the calling thread
+     */
+    public ClassPathApplicationContext(Executor executor, String... pathToXml) {
+        this(false, executor, pathToXml);
+    }
+
+    /**
+     * @param lazyInitByDefault whether beans without a {@code lazy-init} attribute are created on first request
+     * @param executor          executor used to create independent beans concurrently,
+     *                          or {@code null} to create beans on the calling thread
+     */
+    public ClassPathApplicationContext(boolean lazyInitByDefault, Executor executor, String... pathToXml) {
+        this(new XmlBeanDefinitionReader(pathToXml), lazyInitByDefault, executor);
+    }
+
+    /**
+     * @param beanDefinitionReader source of bean definitions, for example a
+     *                             {@link com.kopylov.ioc.reader.binary.BinaryBeanDefinitionReader}
+     * @param lazyInitByDefault    whether beans without a {@code lazy-init} attribute are created on first request
+     * @param executor             executor used to create independent beans concurrently,
+     *                             or {@code null} to create beans on the calling thread
+     */
+    public ClassPathApplicationContext(BeanDefinitionReader beanDefinitionReader, boolean lazyInitByDefault,
+                                       Executor executor) {
+        this(beanDefinitionReader, lazyInitByDefault, executor, null);
+    }
+
+    /**
+     * @param beanDefinitionReader source of bean definitions
+     * @param lazyInitByDefault    whether beans without a {@code lazy-init} attribute are created on first request
+     * @param executor             executor used to create independent beans concurrently,
+     *                             or {@code null} to create beans on the calling thread
+     * @param startupListener      receives per-bean and per-phase startup timings, or {@code null}
+     */
+    public ClassPathApplicationContext(BeanDefinitionReader beanDefinitionReader, boolean lazyInitByDefault,
+                                       Executor executor, StartupListener startupListener) {
+        this(beanDefinitionReader, lazyInitByDefault, executor, startupListener, List.of());
+    }
+
+    /**
+     * @param beanDefinitionReader source of bean definitions
+     * @param lazyInitByDefault    whether beans without a {@code lazy-init} attribute are created on first request
+     * @param executor             executor used to create independent beans concurrently,
+     *                             or {@code null} to create beans on the calling thread
+     * @param startupListener      receives per-bean and per-phase startup timings, or {@code null}
+     * @param interceptors         applied, in order, to interface methods of every bean they apply to
+     */
+    public ClassPathApplicationContext(BeanDefinitionReader beanDefinitionReader, boolean lazyInitByDefault,
+                                       Executor executor, StartupListener startupListener,
+                                       List<MethodInterceptor> interceptors) {
+        this.beanDefinitionReader = beanDefinitionReader;
+        this.lazyInitByDefault = lazyInitByDefault;
+        this.startupRecorder = StartupRecorder.of(startupListener);
+        this.proxyFactory = new ProxyFactory(interceptors);
+        this.executor = executor;
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.CONTEXT_STARTUP, getClass().getSimpleName());
+        beanDefinitionReader.setStartupRecorder(startupRecorder);
+        try {
+            if (executor != null) {
+                createBeansInParallel(beanDefinitionReader.readBeanDefinition(), lazyInitByDefault, executor);
+            } else {
+                createBeansWhileReading(beanDefinitionReader, lazyInitByDefault);
+            }
+        } finally {
+            timer.stop();
+        }
     }
 
     public ClassPathApplicationContext() {
@@ -29,26 +160,24 @@ public class ClassPathApplicationContext implements ApplicationContext {
     @Override
     public <T> T getBean(Class<T> clazz) {
         validateClass(clazz);
-        if (!hasBeanWithClass(clazz)) {
+        List<String> candidateIds = registry.get().getBeanIds(clazz);
+        if (candidateIds == null) {
             throw new NoSuchBeanException(clazz.getName());
         }
-        for (Bean bean : beans.values()) {
-            if (clazz.isInstance(bean.getValue())) {
-                return clazz.cast(bean.getValue());
-            }
+        if (candidateIds.size() > 1) {
+            log.error("Bean has duplicates: {}", clazz.getName());
+            throw new NoUniqueBeanException("No unique bean : " + clazz.getName());
         }
-        return null;
+        return clazz.cast(findBeanValue(candidateIds.get(0)));
     }
 
     @Override
     public <T> T getBean(String id, Class<T> clazz) {
         validateId(id);
         validateClass(clazz);
-        Bean bean = beans.get(id);
-        if (bean != null) {
-            if (clazz.isInstance(bean.getValue())) {
-                return clazz.cast(bean.getValue());
-            }
+        Object value = findBeanValue(id);
+        if (clazz.isInstance(value)) {
+            return clazz.cast(value);
         }
         return null;
     }
@@ -56,18 +185,813 @@ public class ClassPathApplicationContext implements ApplicationContext {
     @Override
     public Object getBean(String id) {
         validateId(id);
-        if (!beans.containsKey(id)) {
+        Object value = findBeanValue(id);
+        if (value == null) {
             throw new NoSuchBeanException(id);
         }
-        return beans.get(id).getValue();
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> BeanPool<T> getBeanPool(String id, Class<T> clazz) {
+        validateId(id);
+        validateClass(clazz);
+        BeanRegistry currentRegistry = registry.get();
+        if (!currentRegistry.containsBean(id)) {
+            throw new NoSuchBeanException(id);
+        }
+        BeanScope scope = currentRegistry.getScope(id);
+        if (!(scope instanceof PooledScope) || !clazz.isAssignableFrom(scope.getBeanClass())) {
+            log.error("Bean: {} is not a pooled bean of type: {}", id, clazz.getName());
+            throw new BeanInstantiationException("Bean " + id + " is not a pooled bean of type " + clazz.getName());
+        }
+        return (BeanPool<T>) scope;
+    }
+
+    /**
+     * Adds a singleton created outside the context. The registry is copied and swapped with a CAS,
+     * so concurrent {@code getBean} calls never block and see the bean either fully registered or not at all.
+     */
+    @Override
+    public void registerBean(String id, Object bean) {
+        validateId(id);
+        if (bean == null) {
+            log.error("Null bean registered with id: {}", id);
+            throw new BeanInstantiationException("Bean must not be null. Id: " + id);
+        }
+        BeanRegistry currentRegistry;
+        BeanRegistry updatedRegistry;
+        do {
+            currentRegistry = registry.get();
+            if (currentRegistry.containsBean(id)) {
+                log.error("Bean with id: {} is already registered", id);
+                throw new BeanInstantiationException("Bean with id '" + id + "' is already registered.");
+            }
+            updatedRegistry = currentRegistry.withBean(new Bean(id, bean));
+        } while (!registry.compareAndSet(currentRegistry, updatedRegistry));
+    }
+
+    /**
+     * @return statistics of the method caches the bean declares, by method name; empty if it declares none
+     */
+    public Map<String, CacheStats> getCacheStats(String id) {
+        validateId(id);
+        return methodCacheManager.getStats(id);
     }
 
     public List<String> getBeanNames() {
-        return new ArrayList<>(beans.keySet());
+        return new ArrayList<>(registry.get().getBeanNames());
+    }
+
+    /**
+     * Returns a stage completing with this context once every asynchronous bean is created and published,
+     * or exceptionally if one of them failed. Until then, beans that don't depend on asynchronous beans can
+     * be used as usual, and {@code getBean} on an asynchronous bean or its dependents waits for it.
+     */
+    public CompletionStage<ApplicationContext> getReadiness() {
+        return readiness.minimalCompletionStage();
+    }
+
+    /**
+     * @param destroyTimeout how long {@link #close()} waits for the destroy method of a single bean
+     */
+    public void setDestroyTimeout(Duration destroyTimeout) {
+        if (destroyTimeout == null || destroyTimeout.isNegative() || destroyTimeout.isZero()) {
+            log.error("Incorrect destroy timeout entered: {}", destroyTimeout);
+            throw new IllegalArgumentException("Destroy timeout must be positive. Timeout: " + destroyTimeout);
+        }
+        this.destroyTimeout = destroyTimeout;
+    }
+
+    /**
+     * Calls the destroy methods of the created singletons and empties the context. A bean is destroyed
+     * once every bean referencing it is, so beans without a ref path between them are destroyed
+     * concurrently on the executor of the context, or on the common pool if it has none. A destroy method
+     * that fails or runs longer than the destroy timeout is logged and doesn't hold back the beans it
+     * references. Asynchronous beans still being created are waited for up to the destroy timeout. Closing
+     * a closed context has no effect.
+     * <p>
+     * Pooled beans are drained first and their idle instances destroyed the same way; instances borrowed at
+     * that moment are left to their borrowers. Prototype and thread-scoped beans can't declare a destroy
+     * method, since the context doesn't keep their instances.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        awaitReadiness(destroyTimeout);
+        BeanRegistry closedRegistry;
+        synchronized (lazyCreationLock) {
+            closedRegistry = registry.getAndSet(BeanRegistry.EMPTY);
+        }
+        destroyIdleInstances(closedRegistry, closedRegistry.getScopedBeans().keySet());
+        destroyBeans(closedRegistry, closedRegistry.getBeans().keySet());
     }
 
     void setBeans(Map<String, Bean> beans) {
-        this.beans = beans;
+        BeanRegistry currentRegistry = registry.get();
+        registry.set(new BeanRegistry(currentRegistry.getBeanDefinitions(), beans,
+                currentRegistry.getLazyBeanDefinitions(), currentRegistry.getScopedBeans(), this::isProxied));
+    }
+
+    /**
+     * Re-reads the configured paths and rebuilds only the beans whose definitions were added or changed,
+     * together with every bean that references them directly or through other beans. Unchanged singletons,
+     * created lazy-init beans and scopes are carried over as they are. The rebuilt registry is swapped in
+     * atomically: {@code getBean} calls that already started keep using the old one. Waits until the context
+     * is {@link #getReadiness() ready}; asynchronous beans are rebuilt on the calling thread.
+     * <p>
+     * Adding, changing or removing a {@link BeanPostProcessor} singleton rebuilds every bean, since any of them
+     * may have been processed by it, and the processors are discovered again among the rebuilt beans.
+     *
+     * @return ids of beans that were added, removed or rebuilt
+     */
+    public Set<String> refresh() {
+        if (beanDefinitionReader == null) {
+            log.error("Refresh requested for context without bean definition reader");
+            throw new BeanInstantiationException("Context has no bean definition reader to refresh from.");
+        }
+        readiness.handle((context, e) -> context).join();
+        pendingBeans.clear();
+        Map<String, BeanDefinition> definitionsById = new LinkedHashMap<>();
+        beanDefinitionReader.readBeanDefinition(beanDefinition ->
+                definitionsById.put(beanDefinition.getId(), beanDefinition));
+        synchronized (lazyCreationLock) {
+            BeanRegistry currentRegistry = registry.get();
+            Set<String> changedIds = findChangedIds(currentRegistry.getBeanDefinitions(), definitionsById);
+            if (changedIds.isEmpty()) {
+                return Set.of();
+            }
+            Set<String> rebuiltIds = collectDependents(definitionsById, changedIds);
+            boolean postProcessorsChanged = changesPostProcessors(currentRegistry, definitionsById, rebuiltIds);
+            if (postProcessorsChanged) {
+                rebuiltIds.addAll(currentRegistry.getBeanDefinitions().keySet());
+                rebuiltIds.addAll(definitionsById.keySet());
+            }
+            BeanRegistry refreshedRegistry = rebuildRegistry(currentRegistry, definitionsById, rebuiltIds,
+                    postProcessorsChanged);
+            BeanRegistry publishedRegistry;
+            do {
+                currentRegistry = registry.get();
+                publishedRegistry = refreshedRegistry.withRegisteredBeansOf(currentRegistry);
+            } while (!registry.compareAndSet(currentRegistry, publishedRegistry));
+            destroyIdleInstances(currentRegistry, findReplacedScopeIds(currentRegistry, publishedRegistry, rebuiltIds));
+            destroyBeans(currentRegistry, findReplacedIds(currentRegistry, publishedRegistry, rebuiltIds));
+            log.info("Refreshed beans: {}", rebuiltIds);
+            return rebuiltIds;
+        }
+    }
+
+    /**
+     * Creates eager beans as the reader streams their definitions, so parsing and instantiation overlap.
+     * Refs are wired once the whole configuration has been read. Beans whose constructor references other
+     * beans can't be created before those are known, so they are registered like lazy-init beans and
+     * created right after the registry is published. Asynchronous beans and their dependents are created in
+     * the background once the rest is initialized.
+     */
+    private void createBeansWhileReading(BeanDefinitionReader beanDefinitionReader, boolean lazyInitByDefault) {
+        Map<String, BeanDefinition> definitionsById = new LinkedHashMap<>();
+        Map<String, BeanDefinition> lazyDefinitions = new LinkedHashMap<>();
+        List<BeanDefinition> scopedDefinitions = new ArrayList<>();
+        Map<String, Bean> createdBeans = new HashMap<>();
+        List<BeanDefinition> beanDefinitionsWithRefs = new ArrayList<>();
+        List<String> deferredIds = new ArrayList<>();
+        this.beanCreator = new BeanCreator(List.of());
+        beanCreator.setStartupRecorder(startupRecorder);
+        beanCreator.setProxyFactory(proxyFactory);
+        beanCreator.setMethodCacheManager(methodCacheManager);
+        beanCreator.setPostProcessors(postProcessors);
+        beanDefinitionReader.readBeanDefinition(beanDefinition -> {
+            definitionsById.put(beanDefinition.getId(), beanDefinition);
+            if (!BeanScopes.isSingleton(beanDefinition)) {
+                scopedDefinitions.add(beanDefinition);
+            } else if (isLazyInit(beanDefinition, lazyInitByDefault) || isAsync(beanDefinition)) {
+                lazyDefinitions.put(beanDefinition.getId(), beanDefinition);
+            } else if (DependencyGraph.hasConstructorRefs(beanDefinition)) {
+                lazyDefinitions.put(beanDefinition.getId(), beanDefinition);
+                deferredIds.add(beanDefinition.getId());
+            } else {
+                createdBeans.put(beanDefinition.getId(), beanCreator.createBean(beanDefinition));
+                if (!beanDefinition.getRefProperty().isEmpty()) {
+                    beanDefinitionsWithRefs.add(beanDefinition);
+                }
+            }
+        });
+        Set<String> asyncIds = collectAsyncIds(definitionsById);
+        for (String id : asyncIds) {
+            createdBeans.remove(id);
+            lazyDefinitions.put(id, definitionsById.get(id));
+        }
+        beanDefinitionsWithRefs.removeIf(beanDefinition -> asyncIds.contains(beanDefinition.getId()));
+        deferredIds.removeAll(asyncIds);
+        DependencyGraph.ofConstructorArgs(new ArrayList<>(definitionsById.values())).topologicalOrder();
+        Map<String, BeanScope> scopes = createScopes(scopedDefinitions, definitionsById.keySet());
+        registry.set(new BeanRegistry(definitionsById, createdBeans, lazyDefinitions, scopes, this::isProxied));
+        for (BeanDefinition beanDefinition : beanDefinitionsWithRefs) {
+            beanCreator.injectRefProperties(createdBeans.get(beanDefinition.getId()), beanDefinition, this::findBean);
+        }
+        registry.set(initializeBeans(registry.get(), registry.get().getBeans().keySet()));
+        deferredIds.forEach(this::findBean);
+        createAsyncBeans(definitionsById, asyncIds);
+    }
+
+    private void createBeansInParallel(List<BeanDefinition> beanDefinitions, boolean lazyInitByDefault,
+                                       Executor executor) {
+        Set<String> eagerIds = selectEagerBeanIds(beanDefinitions, lazyInitByDefault);
+        List<BeanDefinition> eagerBeanDefinitions = new ArrayList<>();
+        Map<String, BeanDefinition> lazyDefinitions = new LinkedHashMap<>();
+        List<BeanDefinition> scopedDefinitions = new ArrayList<>();
+        List<String> deferredIds = new ArrayList<>();
+        Map<String, BeanDefinition> definitionsById = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            definitionsById.put(beanDefinition.getId(), beanDefinition);
+        }
+        Set<String> asyncIds = collectAsyncIds(definitionsById);
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            if (!BeanScopes.isSingleton(beanDefinition)) {
+                scopedDefinitions.add(beanDefinition);
+            } else if (!eagerIds.contains(beanDefinition.getId()) || asyncIds.contains(beanDefinition.getId())) {
+                lazyDefinitions.put(beanDefinition.getId(), beanDefinition);
+            } else if (DependencyGraph.hasConstructorRefs(beanDefinition)) {
+                lazyDefinitions.put(beanDefinition.getId(), beanDefinition);
+                deferredIds.add(beanDefinition.getId());
+            } else {
+                eagerBeanDefinitions.add(beanDefinition);
+            }
+        }
+        DependencyGraph.ofConstructorArgs(beanDefinitions).topologicalOrder();
+        Map<String, BeanScope> scopes = createScopes(scopedDefinitions, definitionsById.keySet());
+        Set<String> externalIds = new HashSet<>(scopes.keySet());
+        externalIds.addAll(deferredIds);
+        this.beanCreator = new BeanCreator(eagerBeanDefinitions, executor);
+        beanCreator.setStartupRecorder(startupRecorder);
+        beanCreator.setProxyFactory(proxyFactory);
+        beanCreator.setMethodCacheManager(methodCacheManager);
+        beanCreator.setPostProcessors(postProcessors);
+        beanCreator.setExternalBeanIds(externalIds);
+        Map<String, Bean> createdBeans = beanCreator.createWiredBeans();
+        registry.set(new BeanRegistry(definitionsById, createdBeans, lazyDefinitions, scopes, this::isProxied));
+        for (BeanDefinition beanDefinition : eagerBeanDefinitions) {
+            if (referencesAny(beanDefinition, externalIds)) {
+                beanCreator.injectRefProperties(createdBeans.get(beanDefinition.getId()), beanDefinition,
+                        this::findBean);
+            }
+        }
+        registry.set(initializeBeans(registry.get(), registry.get().getBeans().keySet()));
+        deferredIds.forEach(this::findBean);
+        createAsyncBeans(definitionsById, asyncIds);
+    }
+
+    /**
+     * Returns ids of the singletons created in the background: {@link AsyncFactoryBean asynchronous factories},
+     * beans with an init method returning a {@link CompletionStage}, and every singleton referencing them
+     * directly or through other beans, lazy-init or not.
+     */
+    private Set<String> collectAsyncIds(Map<String, BeanDefinition> definitionsById) {
+        Set<String> asyncCapableIds = new HashSet<>();
+        for (BeanDefinition beanDefinition : definitionsById.values()) {
+            if (BeanScopes.isSingleton(beanDefinition) && isAsync(beanDefinition)) {
+                asyncCapableIds.add(beanDefinition.getId());
+            }
+        }
+        if (asyncCapableIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> asyncIds = collectDependents(definitionsById, asyncCapableIds);
+        asyncIds.removeIf(id -> !BeanScopes.isSingleton(definitionsById.get(id)));
+        return asyncIds;
+    }
+
+    /**
+     * Tells whether instances of the bean are proxies, created for the interceptors of the context or for
+     * the method caches of the bean.
+     */
+    private boolean isProxied(BeanDefinition beanDefinition, Class<?> beanClass) {
+        List<MethodCacheDefinition> methodCaches = beanDefinition.getMethodCaches();
+        return methodCaches != null && !methodCaches.isEmpty()
+                || proxyFactory.proxies(beanDefinition.getId(), beanClass);
+    }
+
+    private boolean isAsync(BeanDefinition beanDefinition) {
+        Class<?> beanClass = loadBeanClass(beanDefinition);
+        String initMethod = beanDefinition.getInitMethod();
+        return AsyncFactoryBean.class.isAssignableFrom(beanClass)
+                || initMethod != null && InjectionPlan.forClass(beanClass).isAsyncLifecycleMethod(initMethod);
+    }
+
+    private Class<?> loadBeanClass(BeanDefinition beanDefinition) {
+        try {
+            return Class.forName(beanDefinition.getClazz());
+        } catch (ClassNotFoundException e) {
+            log.error("Can't load class of bean: {}", beanDefinition.getId(), e);
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClazz(), e);
+        }
+    }
+
+    /**
+     * Tells whether the refresh adds, replaces or removes a bean post processor singleton.
+     */
+    private boolean changesPostProcessors(BeanRegistry currentRegistry, Map<String, BeanDefinition> definitionsById,
+                                          Set<String> rebuiltIds) {
+        for (String id : rebuiltIds) {
+            Bean currentBean = currentRegistry.getBean(id);
+            if (currentBean != null && currentBean.getValue() instanceof BeanPostProcessor) {
+                return true;
+            }
+            BeanDefinition beanDefinition = definitionsById.get(id);
+            if (beanDefinition != null && BeanScopes.isSingleton(beanDefinition)
+                    && BeanPostProcessor.class.isAssignableFrom(loadBeanClass(beanDefinition))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates the given singletons on the executor of the context, or on the common pool if it has none.
+     * Each one starts once the beans it references are published and is published as soon as it is ready,
+     * so dependents are composed onto the futures of their dependencies instead of blocking a thread.
+     * {@link #getReadiness()} completes once all of them are published.
+     *
+     * @throws CircularDependencyException if the given singletons reference each other in a cycle
+     */
+    private void createAsyncBeans(Map<String, BeanDefinition> definitionsById, Set<String> asyncIds) {
+        if (asyncIds.isEmpty()) {
+            return;
+        }
+        List<BeanDefinition> asyncDefinitions = new ArrayList<>();
+        for (String id : asyncIds) {
+            asyncDefinitions.add(definitionsById.get(id));
+        }
+        DependencyGraph.of(asyncDefinitions, refId -> !asyncIds.contains(refId)).topologicalOrder();
+        Executor asyncExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        Map<String, CompletableFuture<Bean>> futures = DependencyOrderedTasks.run(asyncIds,
+                id -> DependencyGraph.referencedIds(definitionsById.get(id)),
+                id -> CompletableFuture.supplyAsync(() -> createAsyncBean(definitionsById.get(id)), asyncExecutor)
+                        .thenCompose(Function.identity())
+                        .thenApply(this::publishAsyncBean));
+        pendingBeans.putAll(futures);
+        readiness = CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Context is not ready, creation of an asynchronous bean failed", e);
+                    } else {
+                        log.info("Asynchronous beans are ready: {}", asyncIds);
+                    }
+                })
+                .thenApply(ignored -> this);
+    }
+
+    private CompletableFuture<Bean> createAsyncBean(BeanDefinition beanDefinition) {
+        log.debug("Creating asynchronous bean: {}", beanDefinition.getId());
+        Bean bean = beanCreator.createBean(beanDefinition, this::findBean);
+        beanCreator.injectRefProperties(bean, beanDefinition, this::findBean);
+        return beanCreator.initializeBeanAsync(bean, beanDefinition).thenCompose(this::produceFactoryObject);
+    }
+
+    /**
+     * @return future of the bean itself, or of the object it produces if it is an {@link AsyncFactoryBean}
+     */
+    private CompletableFuture<Bean> produceFactoryObject(Bean bean) {
+        if (!(bean.getValue() instanceof AsyncFactoryBean<?> factory)) {
+            return CompletableFuture.completedFuture(bean);
+        }
+        CompletionStage<?> object = factory.getObjectAsync();
+        if (object == null) {
+            log.error("Factory of Bean: {} returned no stage", bean.getId());
+            throw new BeanInstantiationException("Factory of bean " + bean.getId() + " returned no stage");
+        }
+        return object.toCompletableFuture().thenApply(value -> {
+            if (value == null) {
+                log.error("Factory of Bean: {} produced null", bean.getId());
+                throw new BeanInstantiationException("Factory of bean " + bean.getId() + " produced null");
+            }
+            return new Bean(bean.getId(), value);
+        });
+    }
+
+    private Bean publishAsyncBean(Bean bean) {
+        registry.updateAndGet(currentRegistry -> closed.get() ? currentRegistry
+                : currentRegistry.withCreatedLazyBeans(Map.of(bean.getId(), bean)));
+        return bean;
+    }
+
+    private Bean awaitBean(String id, CompletableFuture<Bean> pendingBean) {
+        try {
+            return pendingBean.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            log.error("Asynchronous creation of Bean: {} failed", id, e.getCause());
+            throw new BeanInstantiationException("Asynchronous creation of bean " + id + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Prepares creation plans of prototype and pooled beans. Refs between scoped beans are checked for
+     * cycles up front, since every instance would otherwise recurse without end.
+     */
+    private Map<String, BeanScope> createScopes(List<BeanDefinition> scopedDefinitions, Set<String> knownIds) {
+        if (scopedDefinitions.isEmpty()) {
+            return Map.of();
+        }
+        Set<String> scopedIds = new HashSet<>();
+        for (BeanDefinition beanDefinition : scopedDefinitions) {
+            scopedIds.add(beanDefinition.getId());
+        }
+        DependencyGraph.of(scopedDefinitions, refId -> !scopedIds.contains(refId) && knownIds.contains(refId))
+                .topologicalOrder();
+        Map<String, BeanScope> scopes = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : scopedDefinitions) {
+            scopes.put(beanDefinition.getId(), BeanScopes.create(beanDefinition, this::findBean,
+                    methodCacheManager.proxyFactoryFor(beanDefinition, proxyFactory), postProcessors));
+        }
+        return scopes;
+    }
+
+    /**
+     * Initializes the given singletons of the registry, discovering the bean post processors first on startup.
+     *
+     * @return a registry holding the initialized beans, or the given one if no bean was replaced
+     */
+    private BeanRegistry initializeBeans(BeanRegistry baseRegistry, Set<String> ids) {
+        Map<String, Bean> beans = new HashMap<>();
+        for (String id : ids) {
+            Bean bean = baseRegistry.getBean(id);
+            if (bean != null) {
+                beans.put(id, bean);
+            }
+        }
+        Map<String, Bean> processedBeans = beanCreator.initializeBeans(beans,
+                new ArrayList<>(baseRegistry.getBeanDefinitions().values()));
+        if (processedBeans == beans) {
+            return baseRegistry;
+        }
+        Map<String, Bean> allBeans = new HashMap<>(baseRegistry.getBeans());
+        allBeans.putAll(processedBeans);
+        return new BeanRegistry(baseRegistry.getBeanDefinitions(), allBeans, baseRegistry.getLazyBeanDefinitions(),
+                baseRegistry.getScopedBeans(), this::isProxied);
+    }
+
+    private boolean referencesAny(BeanDefinition beanDefinition, Set<String> ids) {
+        for (String refId : beanDefinition.getRefProperty().values()) {
+            if (ids.contains(refId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Same lookup as {@link #findBean(String)} without wrapping scoped instances into a {@link Bean},
+     * so repeated {@code getBean} calls on a thread-scoped bean don't allocate.
+     */
+    private Object findBeanValue(String id) {
+        BeanRegistry currentRegistry = registry.get();
+        Bean bean = currentRegistry.getBean(id);
+        if (bean != null) {
+            return bean.getValue();
+        }
+        BeanScope scope = currentRegistry.getScope(id);
+        if (scope != null) {
+            return scope.getInstance();
+        }
+        CompletableFuture<Bean> pendingBean = pendingBeans.get(id);
+        if (pendingBean != null) {
+            return awaitBean(id, pendingBean).getValue();
+        }
+        if (currentRegistry.getLazyBeanDefinition(id) != null) {
+            return createLazyBean(id).getValue();
+        }
+        return null;
+    }
+
+    private Bean findBean(String id) {
+        BeanRegistry currentRegistry = registry.get();
+        Bean bean = currentRegistry.getBean(id);
+        if (bean == null) {
+            BeanScope scope = currentRegistry.getScope(id);
+            if (scope != null) {
+                return new Bean(id, scope.getInstance());
+            }
+            CompletableFuture<Bean> pendingBean = pendingBeans.get(id);
+            if (pendingBean != null) {
+                return awaitBean(id, pendingBean);
+            }
+            if (currentRegistry.getLazyBeanDefinition(id) != null) {
+                bean = createLazyBean(id);
+            }
+        }
+        return bean;
+    }
+
+    private Bean createLazyBean(String id) {
+        synchronized (lazyCreationLock) {
+            BeanRegistry currentRegistry = registry.get();
+            Bean bean = currentRegistry.getBean(id);
+            if (bean != null) {
+                return bean;
+            }
+            Map<String, Bean> createdBeans = new LinkedHashMap<>();
+            bean = createLazyBean(currentRegistry, id, createdBeans);
+            registry.updateAndGet(latestRegistry -> latestRegistry.withCreatedLazyBeans(createdBeans));
+            return bean;
+        }
+    }
+
+    /**
+     * Creates a lazy-init bean of {@code baseRegistry} and wires it. Lazy-init beans it references are
+     * created as well; all of them are collected in {@code createdBeans} for the caller to publish.
+     */
+    private Bean createLazyBean(BeanRegistry baseRegistry, String id, Map<String, Bean> createdBeans) {
+        BeanDefinition beanDefinition = baseRegistry.getLazyBeanDefinition(id);
+        log.debug("Creating lazy-init bean: {}", id);
+        beansInCreation.add(id);
+        Bean bean;
+        try {
+            bean = beanCreator.createBean(beanDefinition, refId -> resolveRef(baseRegistry, refId, createdBeans));
+        } finally {
+            beansInCreation.remove(id);
+        }
+        createdBeans.put(id, bean);
+        beanCreator.injectRefProperties(bean, beanDefinition, refId -> resolveRef(baseRegistry, refId, createdBeans));
+        bean = beanCreator.initializeBean(bean, beanDefinition);
+        bean = awaitBean(id, produceFactoryObject(bean));
+        createdBeans.put(id, bean);
+        return bean;
+    }
+
+    private Bean resolveRef(BeanRegistry baseRegistry, String refId, Map<String, Bean> createdBeans) {
+        if (beansInCreation.contains(refId)) {
+            List<String> cycle = new ArrayList<>(beansInCreation);
+            cycle.add(refId);
+            log.error("Circular dependency through constructor found: {}", cycle);
+            throw new CircularDependencyException(cycle);
+        }
+        Bean bean = baseRegistry.getBean(refId);
+        if (bean == null) {
+            bean = createdBeans.get(refId);
+        }
+        BeanScope scope = baseRegistry.getScope(refId);
+        if (bean == null && scope != null) {
+            bean = new Bean(refId, scope.getCreationPlan().create(
+                    scopedRefId -> resolveRef(baseRegistry, scopedRefId, createdBeans)));
+        }
+        if (bean == null && baseRegistry.getLazyBeanDefinition(refId) != null) {
+            bean = createLazyBean(baseRegistry, refId, createdBeans);
+        }
+        return bean;
+    }
+
+    private Set<String> findChangedIds(Map<String, BeanDefinition> currentDefinitions,
+                                       Map<String, BeanDefinition> newDefinitions) {
+        Set<String> changedIds = new LinkedHashSet<>();
+        for (Map.Entry<String, BeanDefinition> entry : newDefinitions.entrySet()) {
+            if (!entry.getValue().equals(currentDefinitions.get(entry.getKey()))) {
+                changedIds.add(entry.getKey());
+            }
+        }
+        for (String id : currentDefinitions.keySet()) {
+            if (!newDefinitions.containsKey(id)) {
+                changedIds.add(id);
+            }
+        }
+        return changedIds;
+    }
+
+    private Set<String> collectDependents(Map<String, BeanDefinition> definitionsById, Set<String> changedIds) {
+        Map<String, List<String>> dependentsById = new HashMap<>();
+        for (BeanDefinition beanDefinition : definitionsById.values()) {
+            for (String refId : DependencyGraph.referencedIds(beanDefinition)) {
+                dependentsById.computeIfAbsent(refId, key -> new ArrayList<>()).add(beanDefinition.getId());
+            }
+        }
+        Set<String> affectedIds = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(changedIds);
+        while (!pending.isEmpty()) {
+            String id = pending.poll();
+            if (affectedIds.add(id)) {
+                pending.addAll(dependentsById.getOrDefault(id, List.of()));
+            }
+        }
+        return affectedIds;
+    }
+
+    /**
+     * Builds the registry for new definitions, reusing every bean and scope of {@code currentRegistry}
+     * that is not in {@code rebuiltIds}. Rebuilt beans are wired against the new registry before it is
+     * published, so no caller can observe them half-initialized.
+     *
+     * @param rediscoverPostProcessors whether to discover the bean post processors again among the created
+     *                                 beans before initializing them
+     */
+    private BeanRegistry rebuildRegistry(BeanRegistry currentRegistry, Map<String, BeanDefinition> definitionsById,
+                                         Set<String> rebuiltIds, boolean rediscoverPostProcessors) {
+        Map<String, Bean> refreshedBeans = new HashMap<>();
+        Map<String, BeanDefinition> lazyDefinitions = new LinkedHashMap<>();
+        Map<String, BeanScope> scopes = new LinkedHashMap<>();
+        List<BeanDefinition> scopedDefinitions = new ArrayList<>();
+        List<BeanDefinition> createdDefinitions = new ArrayList<>();
+        List<String> deferredIds = new ArrayList<>();
+        Set<String> asyncIds = collectAsyncIds(definitionsById);
+        for (BeanDefinition beanDefinition : definitionsById.values()) {
+            String id = beanDefinition.getId();
+            boolean rebuilt = rebuiltIds.contains(id);
+            if (!BeanScopes.isSingleton(beanDefinition)) {
+                if (rebuilt) {
+                    scopedDefinitions.add(beanDefinition);
+                } else {
+                    scopes.put(id, currentRegistry.getScope(id));
+                }
+                continue;
+            }
+            boolean lazyInit = isLazyInit(beanDefinition, lazyInitByDefault);
+            boolean deferred = DependencyGraph.hasConstructorRefs(beanDefinition) || asyncIds.contains(id);
+            if (lazyInit || deferred) {
+                lazyDefinitions.put(id, beanDefinition);
+            }
+            Bean currentBean = currentRegistry.getBean(id);
+            if (!rebuilt && currentBean != null) {
+                refreshedBeans.put(id, currentBean);
+            } else if (!lazyInit && deferred) {
+                deferredIds.add(id);
+            } else if (!lazyInit) {
+                refreshedBeans.put(id, beanCreator.createBean(beanDefinition));
+                createdDefinitions.add(beanDefinition);
+            }
+        }
+        DependencyGraph.ofConstructorArgs(new ArrayList<>(definitionsById.values())).topologicalOrder();
+        scopes.putAll(createScopes(scopedDefinitions, definitionsById.keySet()));
+
+        BeanRegistry refreshedRegistry = new BeanRegistry(definitionsById, refreshedBeans, lazyDefinitions, scopes,
+                this::isProxied);
+        Map<String, Bean> createdLazyBeans = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : createdDefinitions) {
+            beanCreator.injectRefProperties(refreshedBeans.get(beanDefinition.getId()), beanDefinition,
+                    refId -> resolveRef(refreshedRegistry, refId, createdLazyBeans));
+        }
+        for (String id : deferredIds) {
+            resolveRef(refreshedRegistry, id, createdLazyBeans);
+        }
+        BeanRegistry rebuiltRegistry = createdLazyBeans.isEmpty() ? refreshedRegistry
+                : refreshedRegistry.withCreatedLazyBeans(createdLazyBeans);
+        Set<String> createdIds = new HashSet<>();
+        List<Object> createdValues = new ArrayList<>();
+        for (BeanDefinition beanDefinition : createdDefinitions) {
+            createdIds.add(beanDefinition.getId());
+            createdValues.add(refreshedBeans.get(beanDefinition.getId()).getValue());
+        }
+        if (rediscoverPostProcessors) {
+            postProcessors.rediscover(createdValues);
+        }
+        return initializeBeans(rebuiltRegistry, createdIds);
+    }
+
+    /**
+     * Waits up to the timeout until every asynchronous bean is created or has failed, then forgets their
+     * futures, so lookups go to the registry alone.
+     */
+    private void awaitReadiness(Duration timeout) {
+        try {
+            readiness.handle((context, e) -> context).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Asynchronous beans are not ready after: {}", timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.debug("Readiness of context failed", e);
+        }
+        pendingBeans.clear();
+    }
+
+    /**
+     * Returns ids of singletons of {@code oldRegistry} that the refresh removed or replaced.
+     */
+    private Set<String> findReplacedIds(BeanRegistry oldRegistry, BeanRegistry newRegistry, Set<String> rebuiltIds) {
+        Set<String> replacedIds = new HashSet<>();
+        for (String id : rebuiltIds) {
+            Bean oldBean = oldRegistry.getBean(id);
+            if (oldBean != null && oldBean != newRegistry.getBean(id)) {
+                replacedIds.add(id);
+            }
+        }
+        return replacedIds;
+    }
+
+    /**
+     * Returns ids of scoped beans of {@code oldRegistry} whose scope the refresh removed or replaced.
+     */
+    private Set<String> findReplacedScopeIds(BeanRegistry oldRegistry, BeanRegistry newRegistry,
+                                             Set<String> rebuiltIds) {
+        Set<String> replacedIds = new HashSet<>();
+        for (String id : rebuiltIds) {
+            BeanScope oldScope = oldRegistry.getScope(id);
+            if (oldScope != null && oldScope != newRegistry.getScope(id)) {
+                replacedIds.add(id);
+            }
+        }
+        return replacedIds;
+    }
+
+    /**
+     * Drains the pools of the given pooled beans of the registry, calls the destroy method of every idle
+     * instance and waits until each call has completed, failed or timed out.
+     */
+    private void destroyIdleInstances(BeanRegistry baseRegistry, Set<String> ids) {
+        Executor destroyExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (String id : ids) {
+            BeanDefinition beanDefinition = baseRegistry.getBeanDefinitions().get(id);
+            if (beanDefinition == null || beanDefinition.getDestroyMethod() == null
+                    || !(baseRegistry.getScope(id) instanceof PooledScope pooledScope)) {
+                continue;
+            }
+            for (Object instance : pooledScope.drain()) {
+                futures.add(destroyBean(new Bean(id, instance), beanDefinition, destroyExecutor));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    /**
+     * Calls the destroy methods of the given singletons of the registry, each bean after all beans that
+     * reference it, and waits until every one has completed, failed or timed out.
+     */
+    private void destroyBeans(BeanRegistry baseRegistry, Set<String> ids) {
+        Map<String, BeanDefinition> beanDefinitions = baseRegistry.getBeanDefinitions();
+        List<String> destroyedIds = new ArrayList<>();
+        Map<String, List<String>> dependentsById = new HashMap<>();
+        boolean hasDestroyMethods = false;
+        for (String id : ids) {
+            BeanDefinition beanDefinition = beanDefinitions.get(id);
+            if (beanDefinition == null || baseRegistry.getBean(id) == null) {
+                continue;
+            }
+            destroyedIds.add(id);
+            hasDestroyMethods |= beanDefinition.getDestroyMethod() != null;
+            for (String refId : DependencyGraph.referencedIds(beanDefinition)) {
+                dependentsById.computeIfAbsent(refId, key -> new ArrayList<>()).add(id);
+            }
+        }
+        if (!hasDestroyMethods) {
+            return;
+        }
+        Executor destroyExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        Map<String, CompletableFuture<Void>> futures = DependencyOrderedTasks.run(destroyedIds,
+                id -> dependentsById.getOrDefault(id, List.of()),
+                id -> destroyBean(baseRegistry.getBean(id), beanDefinitions.get(id), destroyExecutor));
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+    }
+
+    private CompletableFuture<Void> destroyBean(Bean bean, BeanDefinition beanDefinition, Executor destroyExecutor) {
+        String destroyMethod = beanDefinition.getDestroyMethod();
+        if (destroyMethod == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String id = bean.getId();
+        Object target = ProxyFactory.unwrap(bean.getValue());
+        return CompletableFuture.runAsync(() -> InjectionPlan.forClass(target.getClass())
+                        .invokeLifecycleMethod(target, id, destroyMethod), destroyExecutor)
+                .orTimeout(destroyTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.error("Destroy method: {} of Bean: {} did not complete", destroyMethod, id, e);
+                    return null;
+                });
+    }
+
+    private Set<String> selectEagerBeanIds(List<BeanDefinition> beanDefinitions, boolean lazyInitByDefault) {
+        Map<String, BeanDefinition> definitionsById = new HashMap<>();
+        Deque<BeanDefinition> pending = new ArrayDeque<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            if (!BeanScopes.isSingleton(beanDefinition)) {
+                continue;
+            }
+            definitionsById.put(beanDefinition.getId(), beanDefinition);
+            if (!isLazyInit(beanDefinition, lazyInitByDefault)) {
+                pending.add(beanDefinition);
+            }
+        }
+        Set<String> eagerIds = new HashSet<>();
+        while (!pending.isEmpty()) {
+            BeanDefinition beanDefinition = pending.poll();
+            if (eagerIds.add(beanDefinition.getId())) {
+                for (String refId : DependencyGraph.referencedIds(beanDefinition)) {
+                    BeanDefinition refDefinition = definitionsById.get(refId);
+                    if (refDefinition != null) {
+                        pending.add(refDefinition);
+                    }
+                }
+            }
+        }
+        return eagerIds;
+    }
+
+    private boolean isLazyInit(BeanDefinition beanDefinition, boolean lazyInitByDefault) {
+        Boolean lazyInit = beanDefinition.getLazyInit();
+        return lazyInit != null ? lazyInit : lazyInitByDefault;
     }
 
     private void validateId(String id) {
@@ -82,21 +1006,5 @@ public class ClassPathApplicationContext implements ApplicationContext {
             log.error("Null class value entered");
             throw new BeanInstantiationException("Bean class must not be null.");
         }
-        long classDuplicatesCount = beans.values().stream()
-                .filter(bean -> clazz.isInstance(bean.getValue()))
-                .count();
-        if (classDuplicatesCount > 1) {
-            log.error("Bean has duplicates: {}" + clazz.getName());
-            throw new NoUniqueBeanException("No unique bean : " + clazz.getName());
-        }
-    }
-
-    private boolean hasBeanWithClass(Class<?> beanClass) {
-        for (Bean bean : beans.values()) {
-            if (bean.getValue().getClass().equals(beanClass)) {
-                return true;
-            }
-        }
-        return false;
     }
 }
@@ -0,0 +1,108 @@
+package com.kopylov.ioc.context;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Watches the directories of a set of files on a daemon thread and reports which of the files changed.
+ * Events are collected until none arrives for the debounce period, so an editor saving a file in several
+ * writes, or a deployment replacing many files, is reported as one change.
+ */
+@Slf4j
+class ConfigurationWatcher implements AutoCloseable {
+
+    private final WatchService watchService;
+    private final Supplier<Set<Path>> watchedFilesSupplier;
+    private final Duration debounce;
+    private final Consumer<Set<Path>> changeListener;
+    private final Set<Path> registeredDirectories = new HashSet<>();
+    private final Thread thread;
+    private volatile Set<Path> watchedFiles = Set.of();
+
+    /**
+     * @param watchedFilesSupplier files to watch, asked again after every reported change
+     * @param changeListener       receives the changed files on the watcher thread
+     */
+    ConfigurationWatcher(Supplier<Set<Path>> watchedFilesSupplier, Duration debounce,
+                         Consumer<Set<Path>> changeListener) throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchedFilesSupplier = watchedFilesSupplier;
+        this.debounce = debounce;
+        this.changeListener = changeListener;
+        this.thread = new Thread(this::watch, "ioc-configuration-watcher");
+        thread.setDaemon(true);
+        registerDirectories();
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    @Override
+    public void close() throws IOException {
+        thread.interrupt();
+        watchService.close();
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changedFiles = new HashSet<>();
+                collectChangedFiles(watchService.take(), changedFiles);
+                WatchKey watchKey;
+                while ((watchKey = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    collectChangedFiles(watchKey, changedFiles);
+                }
+                if (!changedFiles.isEmpty()) {
+                    changeListener.accept(changedFiles);
+                    registerDirectories();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("Configuration watcher stopped");
+        } catch (IOException e) {
+            log.error("Configuration watcher failed, changes will no longer be applied", e);
+        }
+    }
+
+    private void collectChangedFiles(WatchKey watchKey, Set<Path> changedFiles) {
+        Path directory = (Path) watchKey.watchable();
+        for (WatchEvent<?> event : watchKey.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                changedFiles.addAll(watchedFiles);
+                continue;
+            }
+            Path file = directory.resolve((Path) event.context());
+            if (watchedFiles.contains(file)) {
+                changedFiles.add(file);
+            }
+        }
+        watchKey.reset();
+    }
+
+    private void registerDirectories() throws IOException {
+        Set<Path> files = Set.copyOf(watchedFilesSupplier.get());
+        for (Path file : files) {
+            Path directory = file.getParent();
+            if (registeredDirectories.add(directory)) {
+                directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            }
+        }
+        this.watchedFiles = files;
+    }
+}
@@ -0,0 +1,68 @@
+package com.kopylov.ioc.context;
+
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.reader.file.FileSystemXmlBeanDefinitionReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Context built from XML files on disk that follows changes to them while it is open. When the configured
+ * files or any file they import change, only those files are parsed again and the context is
+ * {@link #refresh() refreshed}, which rebuilds just the affected beans.
+ */
+@Slf4j
+public class FileSystemApplicationContext extends ClassPathApplicationContext {
+
+    static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(200);
+
+    private final FileSystemXmlBeanDefinitionReader fileSystemReader;
+    private final ConfigurationWatcher configurationWatcher;
+
+    public FileSystemApplicationContext(String... paths) {
+        this(DEFAULT_DEBOUNCE, paths);
+    }
+
+    /**
+     * @param debounce how long the files must stay unchanged before changes are applied
+     */
+    public FileSystemApplicationContext(Duration debounce, String... paths) {
+        this(new FileSystemXmlBeanDefinitionReader(paths), debounce);
+    }
+
+    private FileSystemApplicationContext(FileSystemXmlBeanDefinitionReader beanDefinitionReader, Duration debounce) {
+        super(beanDefinitionReader, false, null);
+        this.fileSystemReader = beanDefinitionReader;
+        try {
+            this.configurationWatcher = new ConfigurationWatcher(beanDefinitionReader::getResourceFiles, debounce,
+                    this::reload);
+        } catch (IOException e) {
+            log.error("Can't watch context files: {}", beanDefinitionReader.getResourceFiles(), e);
+            throw new BeanInstantiationException("Can't watch context files", e);
+        }
+        configurationWatcher.start();
+    }
+
+    @Override
+    public void close() {
+        try {
+            configurationWatcher.close();
+        } catch (IOException e) {
+            log.warn("Error while closing configuration watcher", e);
+        }
+        super.close();
+    }
+
+    private void reload(Set<Path> changedFiles) {
+        log.info("Context files changed: {}", changedFiles);
+        changedFiles.forEach(fileSystemReader::invalidate);
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            log.error("Can't apply changes of context files: {}, keeping current beans", changedFiles, e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.kopylov.ioc.convert;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of {@link TypeConverter}s keyed by target type. The converter for a type, including
+ * parameterized {@code List} and {@code Map} types, is resolved once and cached until the next registration.
+ * <p>
+ * Converters of immutable types are memoized: the same literal converted to the same type returns the
+ * same shared instance, so thousands of beans configured with equal values parse and box them once.
+ * Built-in converters cover {@code String}, all primitives and their wrappers, enums, {@link Duration}
+ * (ISO-8601 or a number with an {@code ms}, {@code s}, {@code m}, {@code h} or {@code d} suffix),
+ * comma-separated lists and {@code key=value} maps.
+ */
+@Slf4j
+public class ConversionService {
+
+    static final int MAX_MEMOIZED_VALUES = 4096;
+
+    private static final ConversionService DEFAULT = new ConversionService();
+    private static final Map<Class<?>, Class<?>> WRAPPERS = Map.of(int.class, Integer.class, long.class, Long.class,
+            double.class, Double.class, float.class, Float.class, boolean.class, Boolean.class, byte.class, Byte.class,
+            short.class, Short.class, char.class, Character.class);
+
+    private final Map<Class<?>, TypeConverter<?>> registeredConverters = new ConcurrentHashMap<>();
+    private final Map<Type, TypeConverter<?>> resolvedConverters = new ConcurrentHashMap<>();
+
+    public ConversionService() {
+        register(String.class, value -> value);
+        register(Integer.class, Integer::valueOf, true);
+        register(Long.class, Long::valueOf, true);
+        register(Double.class, Double::valueOf, true);
+        register(Float.class, Float::valueOf, true);
+        register(Boolean.class, Boolean::valueOf, true);
+        register(Byte.class, Byte::valueOf, true);
+        register(Short.class, Short::valueOf, true);
+        register(Character.class, ConversionService::toCharacter, true);
+        register(Duration.class, ConversionService::toDuration, true);
+    }
+
+    /**
+     * Returns the service the container converts bean definition values with.
+     */
+    public static ConversionService getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Registers a converter whose results are not shared between beans.
+     */
+    public <T> void register(Class<T> type, TypeConverter<? extends T> converter) {
+        register(type, converter, false);
+    }
+
+    /**
+     * @param memoize whether the converted values are immutable, so equal literals may share one instance
+     */
+    public <T> void register(Class<T> type, TypeConverter<? extends T> converter, boolean memoize) {
+        registeredConverters.put(type, memoize ? new MemoizingConverter<>(converter) : converter);
+        resolvedConverters.clear();
+    }
+
+    public Object convert(String value, Type targetType) {
+        return converterFor(targetType).convert(value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no converter supports the type
+     */
+    public TypeConverter<?> converterFor(Type targetType) {
+        TypeConverter<?> converter = resolvedConverters.get(targetType);
+        if (converter == null) {
+            converter = createConverter(targetType);
+            resolvedConverters.put(targetType, converter);
+        }
+        return converter;
+    }
+
+    private TypeConverter<?> createConverter(Type targetType) {
+        if (targetType instanceof ParameterizedType) {
+            ParameterizedType parameterizedType = (ParameterizedType) targetType;
+            Type[] typeArguments = parameterizedType.getActualTypeArguments();
+            Type rawType = parameterizedType.getRawType();
+            if (rawType == List.class || rawType == Collection.class) {
+                return listConverter(converterFor(typeArguments[0]));
+            }
+            if (rawType == Map.class) {
+                return mapConverter(converterFor(typeArguments[0]), converterFor(typeArguments[1]));
+            }
+        } else if (targetType instanceof Class) {
+            Class<?> type = (Class<?>) targetType;
+            TypeConverter<?> converter = registeredConverters.get(WRAPPERS.getOrDefault(type, type));
+            if (converter != null) {
+                return converter;
+            }
+            if (type.isEnum()) {
+                return new MemoizingConverter<>(enumConverter(type));
+            }
+            if (type == List.class || type == Collection.class) {
+                return listConverter(converterFor(String.class));
+            }
+            if (type == Map.class) {
+                return mapConverter(converterFor(String.class), converterFor(String.class));
+            }
+        }
+        log.error("Unsupported filedType: {}", targetType.getTypeName());
+        throw new IllegalArgumentException("Unsupported fieldType: " + targetType.getTypeName());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static TypeConverter<?> enumConverter(Class<?> enumType) {
+        return value -> Enum.valueOf((Class<? extends Enum>) enumType, value.trim());
+    }
+
+    private static TypeConverter<?> listConverter(TypeConverter<?> elementConverter) {
+        TypeConverter<List<Object>> converter = value -> {
+            List<Object> elements = new ArrayList<>();
+            for (String element : split(value, ',')) {
+                elements.add(elementConverter.convert(element));
+            }
+            return List.copyOf(elements);
+        };
+        return elementConverter instanceof MemoizingConverter ? new MemoizingConverter<>(converter) : converter;
+    }
+
+    private static TypeConverter<?> mapConverter(TypeConverter<?> keyConverter, TypeConverter<?> valueConverter) {
+        TypeConverter<Map<Object, Object>> converter = value -> {
+            Map<Object, Object> entries = new LinkedHashMap<>();
+            for (String entry : split(value, ',')) {
+                int separator = entry.indexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Map entry '" + entry + "' must have the form key=value");
+                }
+                entries.put(keyConverter.convert(entry.substring(0, separator).trim()),
+                        valueConverter.convert(entry.substring(separator + 1).trim()));
+            }
+            return Collections.unmodifiableMap(entries);
+        };
+        boolean immutable = keyConverter instanceof MemoizingConverter && valueConverter instanceof MemoizingConverter;
+        return immutable ? new MemoizingConverter<>(converter) : converter;
+    }
+
+    private static List<String> split(String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        if (value.isBlank()) {
+            return parts;
+        }
+        int start = 0;
+        for (int i = 0; i <= value.length(); i++) {
+            if (i == value.length() || value.charAt(i) == separator) {
+                parts.add(value.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        return parts;
+    }
+
+    private static Character toCharacter(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Value '" + value + "' is not a single character");
+        }
+        return value.charAt(0);
+    }
+
+    private static Duration toDuration(String value) {
+        String duration = value.trim();
+        if (duration.startsWith("P") || duration.startsWith("-P")) {
+            return Duration.parse(duration);
+        }
+        if (duration.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(duration.substring(0, duration.length() - 2)));
+        }
+        long amount = Long.parseLong(duration.substring(0, duration.length() - 1));
+        switch (duration.charAt(duration.length() - 1)) {
+            case 's':
+                return Duration.ofSeconds(amount);
+            case 'm':
+                return Duration.ofMinutes(amount);
+            case 'h':
+                return Duration.ofHours(amount);
+            case 'd':
+                return Duration.ofDays(amount);
+            default:
+                throw new IllegalArgumentException("Unsupported duration: " + value);
+        }
+    }
+
+    /**
+     * Caches converted values by literal. Once the cache is full, further literals are converted without
+     * being cached, so configurations with many distinct values don't grow it without bound.
+     */
+    private static final class MemoizingConverter<T> implements TypeConverter<T> {
+
+        private final TypeConverter<? extends T> converter;
+        private final Map<String, T> values = new ConcurrentHashMap<>();
+
+        private MemoizingConverter(TypeConverter<? extends T> converter) {
+            this.converter = converter;
+        }
+
+        @Override
+        public T convert(String value) {
+            T convertedValue = values.get(value);
+            if (convertedValue == null) {
+                convertedValue = converter.convert(value);
+                if (values.size() < MAX_MEMOIZED_VALUES) {
+                    T memoizedValue = values.putIfAbsent(value, convertedValue);
+                    return memoizedValue != null ? memoizedValue : convertedValue;
+                }
+            }
+            return convertedValue;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.kopylov.ioc.convert;
+
+/**
+ * Converts the literal value of a property or constructor argument to the type it is injected as.
+ */
+@FunctionalInterface
+public interface TypeConverter<T> {
+
+    T convert(String value);
+}
@@ -1,27 +1,44 @@
 package com.kopylov.ioc.entity;
 
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Getter
 @Setter
+@EqualsAndHashCode
 public class BeanDefinition {
 
     private String id;
     private String clazz;
     private Map<String, String> property;
     private Map<String, String> refProperty;
+    private Boolean lazyInit;
+    private String scope;
+    private Integer poolSize;
+    private String initMethod;
+    private String destroyMethod;
+    private List<ConstructorArgument> constructorArgs;
+    private List<MethodCacheDefinition> methodCaches;
 
     public BeanDefinition(String id, String clazz) {
         this.id = id;
         this.clazz = clazz;
         this.property = new HashMap<>();
         this.refProperty = new HashMap<>();
+        this.constructorArgs = new ArrayList<>();
+        this.methodCaches = new ArrayList<>();
     }
 
     public BeanDefinition() {
+        this.property = new HashMap<>();
+        this.refProperty = new HashMap<>();
+        this.constructorArgs = new ArrayList<>();
+        this.methodCaches = new ArrayList<>();
     }
 }
@@ -0,0 +1,31 @@
+package com.kopylov.ioc.entity;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@code <constructor-arg>} of a bean definition: either a literal value or a ref to another bean.
+ * Arguments are passed to the constructor in the order they are declared.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConstructorArgument {
+
+    private final String value;
+    private final String ref;
+
+    public static ConstructorArgument ofValue(String value) {
+        return new ConstructorArgument(value, null);
+    }
+
+    public static ConstructorArgument ofRef(String ref) {
+        return new ConstructorArgument(null, ref);
+    }
+
+    public boolean isRef() {
+        return ref != null;
+    }
+}
@@ -0,0 +1,20 @@
+package com.kopylov.ioc.entity;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A {@code <cache>} of a bean definition: results of the named interface method are cached by arguments.
+ * {@code maxSize} and {@code ttl} are {@code null} for the defaults; {@code ttl} is kept as written and
+ * converted to a {@link java.time.Duration} when the cache is created.
+ */
+@Getter
+@EqualsAndHashCode
+@RequiredArgsConstructor
+public class MethodCacheDefinition {
+
+    private final String method;
+    private final Integer maxSize;
+    private final String ttl;
+}
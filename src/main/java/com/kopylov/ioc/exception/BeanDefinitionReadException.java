@@ -2,6 +2,10 @@ package com.kopylov.ioc.exception;
 
 public class BeanDefinitionReadException extends RuntimeException {
 
+    public BeanDefinitionReadException(String message) {
+        super(message);
+    }
+
     public BeanDefinitionReadException(String message, Throwable e) {
         super(message, e);
     }
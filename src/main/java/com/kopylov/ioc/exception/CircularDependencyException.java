@@ -0,0 +1,10 @@
+package com.kopylov.ioc.exception;
+
+import java.util.List;
+
+public class CircularDependencyException extends RuntimeException {
+
+    public CircularDependencyException(List<String> cycle) {
+        super("Circular dependency between beans: " + String.join(" -> ", cycle));
+    }
+}
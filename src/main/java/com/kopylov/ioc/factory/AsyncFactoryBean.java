@@ -0,0 +1,26 @@
+package com.kopylov.ioc.factory;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Bean that produces the actual bean asynchronously, for example after warming a cache or opening a
+ * connection pool. The context registers the produced object under the id of the factory once the stage
+ * completes; until then the factory and every singleton referencing it are created in the background and
+ * {@code getBean} on them waits. The bean is found by the type {@code T}, never by the factory class, so
+ * {@code T} should be declared by the factory class or one of its superclasses. The destroy method of the
+ * definition is called on the produced object.
+ * <p>
+ * Beans whose init method returns a {@link CompletionStage} are treated the same way: they are ready when
+ * the returned stage completes.
+ *
+ * @param <T> type of the produced bean
+ */
+public interface AsyncFactoryBean<T> {
+
+    /**
+     * Called once the factory is initialized.
+     *
+     * @return stage completing with the bean, never with {@code null}
+     */
+    CompletionStage<T> getObjectAsync();
+}
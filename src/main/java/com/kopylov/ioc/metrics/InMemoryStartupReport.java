@@ -0,0 +1,87 @@
+package com.kopylov.ioc.metrics;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps every startup step in memory and summarizes them per phase, for reading from code or dumping to logs.
+ */
+public class InMemoryStartupReport implements StartupListener {
+
+    private final ConcurrentLinkedQueue<StartupStep> steps = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public void stepFinished(StartupStep step) {
+        steps.add(step);
+    }
+
+    public List<StartupStep> getSteps() {
+        return new ArrayList<>(steps);
+    }
+
+    public Map<StartupPhase, PhaseSummary> getPhaseSummaries() {
+        Map<StartupPhase, PhaseSummary> summaries = new EnumMap<>(StartupPhase.class);
+        for (StartupStep step : steps) {
+            summaries.computeIfAbsent(step.getPhase(), PhaseSummary::new).add(step);
+        }
+        return summaries;
+    }
+
+    public List<StartupStep> getSlowestSteps(StartupPhase phase, int limit) {
+        return steps.stream()
+                .filter(step -> step.getPhase() == phase)
+                .sorted(Comparator.comparingLong(StartupStep::getDurationNanos).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder("Startup report:");
+        for (PhaseSummary summary : getPhaseSummaries().values()) {
+            report.append(System.lineSeparator()).append("  ").append(summary);
+            for (StartupStep step : getSlowestSteps(summary.getPhase(), 3)) {
+                report.append(System.lineSeparator()).append("    ").append(step.getName()).append(": ")
+                        .append(TimeUnit.NANOSECONDS.toMicros(step.getDurationNanos())).append(" us");
+            }
+        }
+        return report.toString();
+    }
+
+    @Getter
+    public static class PhaseSummary {
+
+        private final StartupPhase phase;
+        private int count;
+        private long totalNanos;
+        private long maxNanos;
+        private long allocatedBytes;
+
+        private PhaseSummary(StartupPhase phase) {
+            this.phase = phase;
+        }
+
+        private void add(StartupStep step) {
+            count++;
+            totalNanos += step.getDurationNanos();
+            maxNanos = Math.max(maxNanos, step.getDurationNanos());
+            if (step.getAllocatedBytes() > 0) {
+                allocatedBytes += step.getAllocatedBytes();
+            }
+        }
+
+        @Override
+        public String toString() {
+            return phase + ": count=" + count + ", total=" + TimeUnit.NANOSECONDS.toMillis(totalNanos) +
+                    " ms, max=" + TimeUnit.NANOSECONDS.toMicros(maxNanos) + " us, allocated=" +
+                    allocatedBytes + " bytes";
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.kopylov.ioc.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Emits every startup step as a {@code com.kopylov.ioc.StartupStep} JFR event, so startup can be analysed
+ * in a flight recording together with class loading, GC and lock events.
+ */
+public class JfrStartupListener implements StartupListener {
+
+    @Override
+    public void stepFinished(StartupStep step) {
+        StartupStepEvent event = new StartupStepEvent();
+        if (event.isEnabled()) {
+            event.phase = step.getPhase().name();
+            event.name = step.getName();
+            event.stepDuration = step.getDurationNanos();
+            event.allocatedBytes = step.getAllocatedBytes();
+            event.commit();
+        }
+    }
+
+    @Name("com.kopylov.ioc.StartupStep")
+    @Label("IoC Startup Step")
+    @Category("IoC")
+    @Description("A phase of IoC container startup applied to one bean or resource")
+    static class StartupStepEvent extends Event {
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Name")
+        String name;
+
+        @Label("Step Duration")
+        @Timespan(Timespan.NANOSECONDS)
+        long stepDuration;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocatedBytes;
+    }
+}
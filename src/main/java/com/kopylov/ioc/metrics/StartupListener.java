@@ -0,0 +1,11 @@
+package com.kopylov.ioc.metrics;
+
+/**
+ * Receives a {@link StartupStep} for every finished unit of startup work. Steps are reported from
+ * the thread that did the work, so implementations used with parallel creation must be thread-safe.
+ */
+@FunctionalInterface
+public interface StartupListener {
+
+    void stepFinished(StartupStep step);
+}
@@ -0,0 +1,37 @@
+package com.kopylov.ioc.metrics;
+
+public enum StartupPhase {
+
+    /**
+     * The whole context startup, from reading definitions until all eager beans are wired.
+     */
+    CONTEXT_STARTUP,
+    /**
+     * Parsing of one context resource.
+     */
+    PARSE_RESOURCE,
+    /**
+     * Loading of a bean class.
+     */
+    LOAD_CLASS,
+    /**
+     * Constructor execution of a bean.
+     */
+    INSTANTIATE,
+    /**
+     * Conversion and injection of the value properties of a bean.
+     */
+    SET_PROPERTIES,
+    /**
+     * Injection of the ref properties of a bean.
+     */
+    WIRE_REFS,
+    /**
+     * Bean post processors applied to a bean.
+     */
+    POST_PROCESS,
+    /**
+     * Init method execution of a bean.
+     */
+    INITIALIZE
+}
@@ -0,0 +1,101 @@
+package com.kopylov.ioc.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures startup steps and reports them to a {@link StartupListener}.
+ * {@link #NONE} records nothing and hands out a shared no-op timer, so instrumented code costs
+ * nothing when no listener is configured.
+ */
+@Slf4j
+public class StartupRecorder {
+
+    public static final StartupRecorder NONE = new StartupRecorder(null);
+
+    private static final Timer NO_OP_TIMER = new Timer(null, null, null, 0, 0);
+
+    private final StartupListener listener;
+    private final com.sun.management.ThreadMXBean threadMXBean;
+
+    private StartupRecorder(StartupListener listener) {
+        this.listener = listener;
+        this.threadMXBean = listener == null ? null : AllocationTracking.THREAD_MX_BEAN;
+    }
+
+    public static StartupRecorder of(StartupListener listener) {
+        return listener == null ? NONE : new StartupRecorder(listener);
+    }
+
+    public Timer start(StartupPhase phase, String name) {
+        if (listener == null) {
+            return NO_OP_TIMER;
+        }
+        return new Timer(this, phase, name, System.nanoTime(), allocatedBytes());
+    }
+
+    private void finish(Timer timer) {
+        long allocatedBytes = timer.startAllocatedBytes < 0 ? -1 : allocatedBytes() - timer.startAllocatedBytes;
+        StartupStep step = new StartupStep(timer.phase, timer.name, Thread.currentThread().getName(),
+                System.nanoTime() - timer.startNanos, allocatedBytes);
+        try {
+            listener.stepFinished(step);
+        } catch (RuntimeException e) {
+            log.warn("Startup listener failed on step: {}", step, e);
+        }
+    }
+
+    private long allocatedBytes() {
+        return threadMXBean == null ? -1 : threadMXBean.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Enables thread allocation accounting, which is JVM-wide, when the first recorder with a listener
+     * is created, so contexts that record nothing leave it as it was.
+     */
+    private static final class AllocationTracking {
+
+        private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = allocationTrackingBean();
+
+        private static com.sun.management.ThreadMXBean allocationTrackingBean() {
+            try {
+                if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                        && threadMXBean.isThreadAllocatedMemorySupported()) {
+                    threadMXBean.setThreadAllocatedMemoryEnabled(true);
+                    return threadMXBean;
+                }
+            } catch (LinkageError | UnsupportedOperationException | SecurityException e) {
+                log.debug("Thread allocation accounting is not available", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A running step. Call {@link #stop()} once, when the step is finished.
+     */
+    public static class Timer {
+
+        private final StartupRecorder recorder;
+        private final StartupPhase phase;
+        private final String name;
+        private final long startNanos;
+        private final long startAllocatedBytes;
+
+        private Timer(StartupRecorder recorder, StartupPhase phase, String name, long startNanos,
+                      long startAllocatedBytes) {
+            this.recorder = recorder;
+            this.phase = phase;
+            this.name = name;
+            this.startNanos = startNanos;
+            this.startAllocatedBytes = startAllocatedBytes;
+        }
+
+        public void stop() {
+            if (recorder != null) {
+                recorder.finish(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.kopylov.ioc.metrics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A finished unit of startup work: a phase applied to one bean or resource.
+ * {@code allocatedBytes} is the heap allocated by the recording thread during the step,
+ * or {@code -1} when the JVM does not support per-thread allocation accounting.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class StartupStep {
+
+    private final StartupPhase phase;
+    private final String name;
+    private final String threadName;
+    private final long durationNanos;
+    private final long allocatedBytes;
+}
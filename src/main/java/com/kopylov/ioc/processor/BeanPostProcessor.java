@@ -0,0 +1,38 @@
+package com.kopylov.ioc.processor;
+
+/**
+ * Hook into the creation of every bean, for example to validate it, register it for metrics or wrap it
+ * into a proxy. Processors are declared as ordinary beans of the context and are found among its eager
+ * singletons once they are wired; beans created before that, including the processors themselves, are
+ * not processed.
+ * <p>
+ * Different beans are processed concurrently, so implementations must be thread-safe.
+ */
+public interface BeanPostProcessor {
+
+    /**
+     * Called once the bean's properties and refs are set.
+     *
+     * @return the bean to use from now on, either the given one or a replacement
+     */
+    default Object postProcessBeforeInitialization(Object bean, String beanId) {
+        return bean;
+    }
+
+    /**
+     * Called after {@link #postProcessBeforeInitialization(Object, String)} of all processors.
+     *
+     * @return the bean to use from now on, either the given one or a replacement
+     */
+    default Object postProcessAfterInitialization(Object bean, String beanId) {
+        return bean;
+    }
+
+    /**
+     * Tells whether beans of the class are passed to this processor. It is evaluated once per class;
+     * for proxied beans the class of the proxied bean is given.
+     */
+    default boolean appliesTo(Class<?> beanClass) {
+        return true;
+    }
+}
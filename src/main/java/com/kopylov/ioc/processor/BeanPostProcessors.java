@@ -0,0 +1,117 @@
+package com.kopylov.ioc.processor;
+
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link BeanPostProcessor}s of a context, in the order their beans are declared. They are
+ * discovered once, and again only when a refresh changes them; the processors that apply to a bean
+ * class are resolved on first use and cached until then.
+ */
+@Slf4j
+public class BeanPostProcessors {
+
+    public static final BeanPostProcessors NONE = new BeanPostProcessors(List.of());
+
+    private static final BeanPostProcessor[] NO_PROCESSORS = new BeanPostProcessor[0];
+
+    private volatile Discovered discovered;
+
+    /**
+     * Creates processors that are not discovered yet.
+     */
+    public BeanPostProcessors() {
+    }
+
+    public BeanPostProcessors(List<BeanPostProcessor> processors) {
+        this.discovered = new Discovered(processors);
+    }
+
+    /**
+     * Collects the processors among the given beans. Later calls have no effect.
+     */
+    public synchronized void discover(Collection<?> beans) {
+        if (discovered == null) {
+            rediscover(beans);
+        }
+    }
+
+    /**
+     * Replaces the processors with those among the given beans and forgets which ones apply to each bean
+     * class. Beans processed so far keep what the previous processors made of them.
+     */
+    public synchronized void rediscover(Collection<?> beans) {
+        List<BeanPostProcessor> processors = new ArrayList<>();
+        for (Object bean : beans) {
+            if (bean instanceof BeanPostProcessor) {
+                processors.add((BeanPostProcessor) bean);
+            }
+        }
+        log.debug("Discovered {} bean post processors", processors.size());
+        discovered = new Discovered(processors);
+    }
+
+    public boolean isDiscovered() {
+        return discovered != null;
+    }
+
+    public boolean isEmpty() {
+        Discovered currentDiscovered = discovered;
+        return currentDiscovered == null || currentDiscovered.processors.isEmpty();
+    }
+
+    public Object applyBeforeInitialization(String beanId, Object bean) {
+        Object processedBean = bean;
+        for (BeanPostProcessor processor : processorsFor(processedBean)) {
+            processedBean = requireBean(processor.postProcessBeforeInitialization(processedBean, beanId), beanId);
+        }
+        return processedBean;
+    }
+
+    public Object applyAfterInitialization(String beanId, Object bean) {
+        Object processedBean = bean;
+        for (BeanPostProcessor processor : processorsFor(processedBean)) {
+            processedBean = requireBean(processor.postProcessAfterInitialization(processedBean, beanId), beanId);
+        }
+        return processedBean;
+    }
+
+    private BeanPostProcessor[] processorsFor(Object bean) {
+        Discovered currentDiscovered = discovered;
+        if (currentDiscovered == null || currentDiscovered.processors.isEmpty() || bean instanceof BeanPostProcessor) {
+            return NO_PROCESSORS;
+        }
+        return currentDiscovered.processorsByClass.computeIfAbsent(ProxyFactory.unwrap(bean).getClass(),
+                beanClass -> currentDiscovered.processors.stream()
+                        .filter(processor -> processor.appliesTo(beanClass))
+                        .toArray(BeanPostProcessor[]::new));
+    }
+
+    private static Object requireBean(Object bean, String beanId) {
+        if (bean == null) {
+            log.error("Bean post processor returned null for bean: {}", beanId);
+            throw new BeanInstantiationException("Bean post processor returned null for bean " + beanId);
+        }
+        return bean;
+    }
+
+    /**
+     * Processors together with the ones resolved for each bean class, replaced as a whole on rediscovery.
+     */
+    private static final class Discovered {
+
+        private final List<BeanPostProcessor> processors;
+        private final Map<Class<?>, BeanPostProcessor[]> processorsByClass = new ConcurrentHashMap<>();
+
+        private Discovered(List<BeanPostProcessor> processors) {
+            this.processors = List.copyOf(processors);
+        }
+    }
+}
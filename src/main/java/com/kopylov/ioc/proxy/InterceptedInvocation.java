@@ -0,0 +1,53 @@
+package com.kopylov.ioc.proxy;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Position in the interceptor chain of one call. Every {@link #proceed()} moves to a new position instead
+ * of advancing this one, so an interceptor can proceed again, for example to retry.
+ */
+@RequiredArgsConstructor
+final class InterceptedInvocation implements MethodInvocation {
+
+    static final MethodHandle INVOKE;
+
+    static {
+        try {
+            INVOKE = MethodHandles.lookup().findStatic(InterceptedInvocation.class, "invoke",
+                    MethodType.methodType(Object.class, Object.class, Method.class, MethodHandle.class,
+                            MethodInterceptor[].class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Getter
+    private final Object target;
+    @Getter
+    private final Method method;
+    private final MethodHandle targetHandle;
+    private final MethodInterceptor[] interceptors;
+    private final int index;
+    @Getter
+    private final Object[] arguments;
+
+    @Override
+    public Object proceed() throws Throwable {
+        if (index == interceptors.length) {
+            return (Object) targetHandle.invokeExact(target, arguments);
+        }
+        return interceptors[index].intercept(
+                new InterceptedInvocation(target, method, targetHandle, interceptors, index + 1, arguments));
+    }
+
+    private static Object invoke(Object target, Method method, MethodHandle targetHandle,
+                                 MethodInterceptor[] interceptors, Object[] arguments) throws Throwable {
+        return new InterceptedInvocation(target, method, targetHandle, interceptors, 0, arguments).proceed();
+    }
+}
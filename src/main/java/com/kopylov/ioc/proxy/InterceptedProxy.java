@@ -0,0 +1,12 @@
+package com.kopylov.ioc.proxy;
+
+/**
+ * Implemented by every proxy created by {@link ProxyFactory}.
+ */
+public interface InterceptedProxy {
+
+    /**
+     * @return the bean the proxy delegates to
+     */
+    Object getInterceptedTarget();
+}
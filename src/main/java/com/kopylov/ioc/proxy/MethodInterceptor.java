@@ -0,0 +1,25 @@
+package com.kopylov.ioc.proxy;
+
+import java.lang.reflect.Method;
+
+/**
+ * Code run around calls of bean methods, such as timing, retries or transactions. Interceptors are
+ * applied when a bean is created and only to the methods of the interfaces the bean implements.
+ */
+@FunctionalInterface
+public interface MethodInterceptor {
+
+    /**
+     * Handles a call. {@link MethodInvocation#proceed()} calls the next interceptor or the bean itself;
+     * it may be called more than once or not at all.
+     */
+    Object intercept(MethodInvocation invocation) throws Throwable;
+
+    /**
+     * Tells whether calls of the method on the bean go through this interceptor. It is evaluated once
+     * per bean when its proxy is created; methods no interceptor applies to call the bean directly.
+     */
+    default boolean appliesTo(String beanId, Method method) {
+        return true;
+    }
+}
@@ -0,0 +1,17 @@
+package com.kopylov.ioc.proxy;
+
+import java.lang.reflect.Method;
+
+public interface MethodInvocation {
+
+    Method getMethod();
+
+    Object getTarget();
+
+    /**
+     * @return arguments of the call; changes to the array are seen by the next interceptors and the bean
+     */
+    Object[] getArguments();
+
+    Object proceed() throws Throwable;
+}
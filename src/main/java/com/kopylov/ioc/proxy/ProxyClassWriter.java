@@ -0,0 +1,361 @@
+package com.kopylov.ioc.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class file of an interface proxy. The generated class has a {@code target} field and one
+ * {@link MethodHandle} field per intercepted method, all final and set by a
+ * {@code (Object, MethodHandle[])} constructor. A method that is not intercepted is a direct
+ * {@code invokeinterface} on the target. An intercepted one is a single {@code invokeExact} of its handle.
+ * Method bodies have no branches, so no stack map frames are needed.
+ */
+final class ProxyClassWriter {
+
+    static final String CONSTRUCTOR_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/invoke/MethodHandle;)V";
+
+    private static final int CLASS_FILE_VERSION = 61;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int ILOAD = 0x15;
+    private static final int LLOAD = 0x16;
+    private static final int FLOAD = 0x17;
+    private static final int DLOAD = 0x18;
+    private static final int ALOAD = 0x19;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int AALOAD = 0x32;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int FRETURN = 0xae;
+    private static final int DRETURN = 0xaf;
+    private static final int ARETURN = 0xb0;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int CHECKCAST = 0xc0;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final String OBJECT = "java/lang/Object";
+    private static final String OBJECT_DESCRIPTOR = "Ljava/lang/Object;";
+    private static final String METHOD_HANDLE = "java/lang/invoke/MethodHandle";
+    private static final String METHOD_HANDLE_DESCRIPTOR = "Ljava/lang/invoke/MethodHandle;";
+    private static final String TARGET = "target";
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+    private final String className;
+
+    private ProxyClassWriter(String className) {
+        this.className = className;
+    }
+
+    /**
+     * @param className          internal name of the proxy, in the package of the lookup that defines it
+     * @param interfaces         interfaces the proxy implements in addition to {@link InterceptedProxy}
+     * @param methods            methods of the interfaces the proxy implements
+     * @param interceptedMethods indexes into {@code methods} of methods that call their handle
+     */
+    static byte[] write(String className, List<Class<?>> interfaces, List<Method> methods, BitSet interceptedMethods) {
+        try {
+            return new ProxyClassWriter(className).writeClass(interfaces, methods, interceptedMethods);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeClass(List<Class<?>> interfaces, List<Method> methods, BitSet interceptedMethods)
+            throws IOException {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        body.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+        body.writeShort(classConstant(className));
+        body.writeShort(classConstant(OBJECT));
+        body.writeShort(interfaces.size() + 1);
+        for (Class<?> interfaceType : interfaces) {
+            body.writeShort(classConstant(internalName(interfaceType)));
+        }
+        body.writeShort(classConstant(internalName(InterceptedProxy.class)));
+
+        int handleCount = interceptedMethods.cardinality();
+        body.writeShort(handleCount + 1);
+        writeField(body, TARGET, OBJECT_DESCRIPTOR);
+        for (int handle = 0; handle < handleCount; handle++) {
+            writeField(body, handleField(handle), METHOD_HANDLE_DESCRIPTOR);
+        }
+
+        body.writeShort(methods.size() + 2);
+        writeConstructor(body, handleCount);
+        writeGetInterceptedTarget(body);
+        int handle = 0;
+        for (int i = 0; i < methods.size(); i++) {
+            if (interceptedMethods.get(i)) {
+                writeInterceptedMethod(body, methods.get(i), handle++);
+            } else {
+                writeForwardingMethod(body, methods.get(i));
+            }
+        }
+        body.writeShort(0);
+
+        ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+        DataOutputStream classFile = new DataOutputStream(classBytes);
+        classFile.writeInt(0xCAFEBABE);
+        classFile.writeShort(0);
+        classFile.writeShort(CLASS_FILE_VERSION);
+        classFile.writeShort(constantIndexes.size() + 1);
+        constantPoolBytes.writeTo(classFile);
+        bodyBytes.writeTo(classFile);
+        return classBytes.toByteArray();
+    }
+
+    private void writeField(DataOutputStream body, String name, String descriptor) throws IOException {
+        body.writeShort(ACC_PRIVATE | ACC_FINAL);
+        body.writeShort(utf8Constant(name));
+        body.writeShort(utf8Constant(descriptor));
+        body.writeShort(0);
+    }
+
+    private void writeConstructor(DataOutputStream body, int handleCount) throws IOException {
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(INVOKESPECIAL);
+        code.writeShort(memberConstant(CONSTANT_METHODREF, OBJECT, "<init>", "()V"));
+        code.writeByte(ALOAD_0);
+        code.writeByte(ALOAD_1);
+        code.writeByte(PUTFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, TARGET, OBJECT_DESCRIPTOR));
+        for (int handle = 0; handle < handleCount; handle++) {
+            code.writeByte(ALOAD_0);
+            code.writeByte(ALOAD_2);
+            writeIntConstant(code, handle);
+            code.writeByte(AALOAD);
+            code.writeByte(PUTFIELD);
+            code.writeShort(memberConstant(CONSTANT_FIELDREF, className, handleField(handle), METHOD_HANDLE_DESCRIPTOR));
+        }
+        code.writeByte(RETURN);
+        writeMethod(body, ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, 3, 3, codeBytes.toByteArray());
+    }
+
+    private void writeGetInterceptedTarget(DataOutputStream body) throws IOException {
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(GETFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, TARGET, OBJECT_DESCRIPTOR));
+        code.writeByte(ARETURN);
+        writeMethod(body, ACC_PUBLIC | ACC_FINAL, "getInterceptedTarget", "()" + OBJECT_DESCRIPTOR, 1, 1,
+                codeBytes.toByteArray());
+    }
+
+    private void writeForwardingMethod(DataOutputStream body, Method method) throws IOException {
+        String descriptor = descriptor(method);
+        String owner = internalName(method.getDeclaringClass());
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(GETFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, TARGET, OBJECT_DESCRIPTOR));
+        code.writeByte(CHECKCAST);
+        code.writeShort(classConstant(owner));
+        int argumentSlots = writeArgumentLoads(code, method);
+        code.writeByte(INVOKEINTERFACE);
+        code.writeShort(memberConstant(CONSTANT_INTERFACE_METHODREF, owner, method.getName(), descriptor));
+        code.writeByte(argumentSlots + 1);
+        code.writeByte(0);
+        code.writeByte(returnOpcode(method.getReturnType()));
+        writeMethod(body, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor, maxStack(method, argumentSlots),
+                argumentSlots + 1, codeBytes.toByteArray());
+    }
+
+    private void writeInterceptedMethod(DataOutputStream body, Method method, int handle) throws IOException {
+        String descriptor = descriptor(method);
+        ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        DataOutputStream code = new DataOutputStream(codeBytes);
+        code.writeByte(ALOAD_0);
+        code.writeByte(GETFIELD);
+        code.writeShort(memberConstant(CONSTANT_FIELDREF, className, handleField(handle), METHOD_HANDLE_DESCRIPTOR));
+        int argumentSlots = writeArgumentLoads(code, method);
+        code.writeByte(INVOKEVIRTUAL);
+        code.writeShort(memberConstant(CONSTANT_METHODREF, METHOD_HANDLE, "invokeExact", descriptor));
+        code.writeByte(returnOpcode(method.getReturnType()));
+        writeMethod(body, ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor, maxStack(method, argumentSlots),
+                argumentSlots + 1, codeBytes.toByteArray());
+    }
+
+    private void writeMethod(DataOutputStream body, int access, String name, String descriptor, int maxStack,
+                             int maxLocals, byte[] code) throws IOException {
+        body.writeShort(access);
+        body.writeShort(utf8Constant(name));
+        body.writeShort(utf8Constant(descriptor));
+        body.writeShort(1);
+        body.writeShort(utf8Constant("Code"));
+        body.writeInt(12 + code.length);
+        body.writeShort(maxStack);
+        body.writeShort(maxLocals);
+        body.writeInt(code.length);
+        body.write(code);
+        body.writeShort(0);
+        body.writeShort(0);
+    }
+
+    /**
+     * Pushes the arguments of the method in order and returns the number of local slots they take.
+     */
+    private static int writeArgumentLoads(DataOutputStream code, Method method) throws IOException {
+        int slot = 1;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (slot > 0xff) {
+                throw new IllegalArgumentException("Too many parameters to proxy method " + method);
+            }
+            code.writeByte(loadOpcode(parameterType));
+            code.writeByte(slot);
+            slot += slotSize(parameterType);
+        }
+        return slot - 1;
+    }
+
+    private static void writeIntConstant(DataOutputStream code, int value) throws IOException {
+        if (value <= 5) {
+            code.writeByte(ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            code.writeByte(BIPUSH);
+            code.writeByte(value);
+        } else {
+            code.writeByte(SIPUSH);
+            code.writeShort(value);
+        }
+    }
+
+    private static int maxStack(Method method, int argumentSlots) {
+        return Math.max(argumentSlots + 1, slotSize(method.getReturnType()));
+    }
+
+    private static int loadOpcode(Class<?> type) {
+        if (type == long.class) {
+            return LLOAD;
+        } else if (type == float.class) {
+            return FLOAD;
+        } else if (type == double.class) {
+            return DLOAD;
+        } else if (type.isPrimitive()) {
+            return ILOAD;
+        }
+        return ALOAD;
+    }
+
+    private static int returnOpcode(Class<?> type) {
+        if (type == void.class) {
+            return RETURN;
+        } else if (type == long.class) {
+            return LRETURN;
+        } else if (type == float.class) {
+            return FRETURN;
+        } else if (type == double.class) {
+            return DRETURN;
+        } else if (type.isPrimitive()) {
+            return IRETURN;
+        }
+        return ARETURN;
+    }
+
+    private static int slotSize(Class<?> type) {
+        if (type == void.class) {
+            return 0;
+        }
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static String descriptor(Method method) {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    private static String handleField(int handle) {
+        return "handle" + handle;
+    }
+
+    private int utf8Constant(String value) throws IOException {
+        Integer index = constantIndexes.get("U" + value);
+        if (index == null) {
+            constantPool.writeByte(CONSTANT_UTF8);
+            constantPool.writeUTF(value);
+            index = addConstant("U" + value);
+        }
+        return index;
+    }
+
+    private int classConstant(String internalName) throws IOException {
+        Integer index = constantIndexes.get("C" + internalName);
+        if (index == null) {
+            int nameIndex = utf8Constant(internalName);
+            constantPool.writeByte(CONSTANT_CLASS);
+            constantPool.writeShort(nameIndex);
+            index = addConstant("C" + internalName);
+        }
+        return index;
+    }
+
+    private int memberConstant(int tag, String owner, String name, String descriptor) throws IOException {
+        String key = tag + owner + "." + name + descriptor;
+        Integer index = constantIndexes.get(key);
+        if (index == null) {
+            int classIndex = classConstant(owner);
+            int nameAndTypeIndex = nameAndTypeConstant(name, descriptor);
+            constantPool.writeByte(tag);
+            constantPool.writeShort(classIndex);
+            constantPool.writeShort(nameAndTypeIndex);
+            index = addConstant(key);
+        }
+        return index;
+    }
+
+    private int nameAndTypeConstant(String name, String descriptor) throws IOException {
+        String key = "N" + name + ":" + descriptor;
+        Integer index = constantIndexes.get(key);
+        if (index == null) {
+            int nameIndex = utf8Constant(name);
+            int descriptorIndex = utf8Constant(descriptor);
+            constantPool.writeByte(CONSTANT_NAME_AND_TYPE);
+            constantPool.writeShort(nameIndex);
+            constantPool.writeShort(descriptorIndex);
+            index = addConstant(key);
+        }
+        return index;
+    }
+
+    private int addConstant(String key) {
+        int index = constantIndexes.size() + 1;
+        constantIndexes.put(key, index);
+        return index;
+    }
+}
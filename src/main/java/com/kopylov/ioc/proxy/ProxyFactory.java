@@ -0,0 +1,210 @@
+package com.kopylov.ioc.proxy;
+
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Wraps beans into proxies that route calls of intercepted methods through {@link MethodInterceptor}s.
+ * A proxy implements every public interface of the bean and is generated as a hidden class in the bean's
+ * package. The class is cached per bean class and set of intercepted methods, in a {@link ClassValue} of the
+ * bean class, so the cache doesn't keep the bean class loader reachable.
+ * <p>
+ * Methods no interceptor applies to call the bean directly. Each intercepted method calls a method
+ * handle held in a final field of the hidden class, which the JIT treats as a constant, so the interceptor
+ * chain can be inlined into the caller. Proxies have the identity {@code equals}, {@code hashCode} and
+ * {@code toString} of {@link Object}, and can be looked up by their interfaces but not by the bean class.
+ */
+@Slf4j
+public class ProxyFactory {
+
+    public static final ProxyFactory NONE = new ProxyFactory(List.of());
+
+    private static final ClassValue<Map<BitSet, ProxyClass>> PROXY_CLASSES = new ClassValue<>() {
+        @Override
+        protected Map<BitSet, ProxyClass> computeValue(Class<?> beanClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final MethodType CONSTRUCTOR_TYPE =
+            MethodType.methodType(Object.class, Object.class, MethodHandle[].class);
+
+    private final List<MethodInterceptor> interceptors;
+
+    public ProxyFactory(List<MethodInterceptor> interceptors) {
+        this.interceptors = List.copyOf(interceptors);
+    }
+
+    /**
+     * @return a factory applying the given interceptors after the interceptors of this one
+     */
+    public ProxyFactory withInterceptors(List<MethodInterceptor> additionalInterceptors) {
+        List<MethodInterceptor> combined = new ArrayList<>(interceptors);
+        combined.addAll(additionalInterceptors);
+        return new ProxyFactory(combined);
+    }
+
+    /**
+     * @return a proxy of the bean, or the bean itself if no interceptor applies to any of its interface methods
+     */
+    public Object proxy(String beanId, Object bean) {
+        if (interceptors.isEmpty()) {
+            return bean;
+        }
+        Class<?> beanClass = bean.getClass();
+        List<Class<?>> interfaces = collectInterfaces(beanClass);
+        List<Method> methods = collectMethods(interfaces);
+        BitSet interceptedMethods = new BitSet(methods.size());
+        List<MethodInterceptor[]> chains = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            List<MethodInterceptor> chain = new ArrayList<>();
+            for (MethodInterceptor interceptor : interceptors) {
+                if (interceptor.appliesTo(beanId, methods.get(i))) {
+                    chain.add(interceptor);
+                }
+            }
+            if (!chain.isEmpty()) {
+                interceptedMethods.set(i);
+                chains.add(chain.toArray(MethodInterceptor[]::new));
+            }
+        }
+        if (interceptedMethods.isEmpty()) {
+            return bean;
+        }
+        ProxyClass proxyClass = PROXY_CLASSES.get(beanClass).computeIfAbsent(interceptedMethods,
+                key -> defineProxyClass(beanClass, interfaces, methods, interceptedMethods));
+        log.debug("Creating proxy of bean: {} intercepting {} methods", beanId, chains.size());
+        return proxyClass.newInstance(bean, chains);
+    }
+
+    /**
+     * Tells whether {@link #proxy(String, Object)} wraps beans of the class with the given id into a proxy.
+     */
+    public boolean proxies(String beanId, Class<?> beanClass) {
+        if (interceptors.isEmpty()) {
+            return false;
+        }
+        for (Method method : collectMethods(collectInterfaces(beanClass))) {
+            for (MethodInterceptor interceptor : interceptors) {
+                if (interceptor.appliesTo(beanId, method)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the interfaces a proxy of beans of the class implements
+     */
+    public static List<Class<?>> getProxiedInterfaces(Class<?> beanClass) {
+        return collectInterfaces(beanClass);
+    }
+
+    /**
+     * @return the bean a proxy delegates to, or the given object if it is not a proxy
+     */
+    public static Object unwrap(Object bean) {
+        return bean instanceof InterceptedProxy ? ((InterceptedProxy) bean).getInterceptedTarget() : bean;
+    }
+
+    private static ProxyClass defineProxyClass(Class<?> beanClass, List<Class<?>> interfaces, List<Method> methods,
+                                               BitSet interceptedMethods) {
+        String className = beanClass.getName().replace('.', '/') + "$$InterceptedProxy";
+        byte[] classFile = ProxyClassWriter.write(className, interfaces, methods, interceptedMethods);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+            MethodHandles.Lookup proxyLookup = lookup.defineHiddenClass(classFile, true);
+            MethodHandle constructor = proxyLookup.findConstructor(proxyLookup.lookupClass(),
+                    MethodType.fromMethodDescriptorString(ProxyClassWriter.CONSTRUCTOR_DESCRIPTOR, null))
+                    .asType(CONSTRUCTOR_TYPE);
+            List<Method> intercepted = new ArrayList<>();
+            List<MethodHandle> targetHandles = new ArrayList<>();
+            for (int i = interceptedMethods.nextSetBit(0); i >= 0; i = interceptedMethods.nextSetBit(i + 1)) {
+                Method method = methods.get(i);
+                MethodHandle handle = lookup.unreflect(method);
+                intercepted.add(method);
+                targetHandles.add(handle.asType(handle.type().generic())
+                        .asSpreader(Object[].class, method.getParameterCount()));
+            }
+            return new ProxyClass(constructor, intercepted, targetHandles);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.error("Can't define proxy class for: {}", beanClass.getName(), e);
+            throw new BeanInstantiationException("Can't define proxy class for " + beanClass.getName(), e);
+        }
+    }
+
+    private static List<Class<?>> collectInterfaces(Class<?> beanClass) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = beanClass; type != null; type = type.getSuperclass()) {
+            for (Class<?> interfaceType : type.getInterfaces()) {
+                if (Modifier.isPublic(interfaceType.getModifiers()) && interfaceType != InterceptedProxy.class) {
+                    interfaces.add(interfaceType);
+                }
+            }
+        }
+        return new ArrayList<>(interfaces);
+    }
+
+    /**
+     * Collects the instance methods of the interfaces in a stable order, one per signature.
+     */
+    private static List<Method> collectMethods(List<Class<?>> interfaces) {
+        Map<String, Method> methodsBySignature = new LinkedHashMap<>();
+        for (Class<?> interfaceType : interfaces) {
+            for (Method method : interfaceType.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    String signature = method.getName() + MethodType.methodType(method.getReturnType(),
+                            method.getParameterTypes()).toMethodDescriptorString();
+                    methodsBySignature.putIfAbsent(signature, method);
+                }
+            }
+        }
+        List<Map.Entry<String, Method>> entries = new ArrayList<>(methodsBySignature.entrySet());
+        entries.sort(Map.Entry.comparingByKey(Comparator.naturalOrder()));
+        List<Method> methods = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Method> entry : entries) {
+            methods.add(entry.getValue());
+        }
+        return methods;
+    }
+
+    @RequiredArgsConstructor
+    private static final class ProxyClass {
+
+        private final MethodHandle constructor;
+        private final List<Method> interceptedMethods;
+        private final List<MethodHandle> targetHandles;
+
+        Object newInstance(Object bean, List<MethodInterceptor[]> chains) {
+            MethodHandle[] handles = new MethodHandle[interceptedMethods.size()];
+            for (int i = 0; i < handles.length; i++) {
+                Method method = interceptedMethods.get(i);
+                handles[i] = MethodHandles.insertArguments(InterceptedInvocation.INVOKE, 0, bean, method,
+                                targetHandles.get(i), chains.get(i))
+                        .asCollector(Object[].class, method.getParameterCount())
+                        .asType(MethodType.methodType(method.getReturnType(), method.getParameterTypes()));
+            }
+            try {
+                return (Object) constructor.invokeExact(bean, handles);
+            } catch (Throwable e) {
+                throw new BeanInstantiationException("Can't create proxy of " + bean.getClass().getName(), e);
+            }
+        }
+    }
+}
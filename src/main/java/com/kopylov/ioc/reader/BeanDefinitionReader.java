@@ -1,10 +1,26 @@
 package com.kopylov.ioc.reader;
 
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.metrics.StartupRecorder;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BeanDefinitionReader {
 
     List<BeanDefinition> readBeanDefinition();
+
+    /**
+     * Passes every bean definition to the consumer as soon as it is read, in declaration order.
+     * Readers that parse incrementally override this to avoid building the whole list first.
+     */
+    default void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        readBeanDefinition().forEach(consumer);
+    }
+
+    /**
+     * Sets the recorder that receives parse timings. Readers that are not instrumented ignore it.
+     */
+    default void setStartupRecorder(StartupRecorder startupRecorder) {
+    }
 }
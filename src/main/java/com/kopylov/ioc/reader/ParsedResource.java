@@ -0,0 +1,46 @@
+package com.kopylov.ioc.reader;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bean definitions and imports of a single context resource, as parsed, without following the imports.
+ * Each import remembers how many bean definitions preceded it, so declaration order can be restored.
+ */
+@Getter
+public class ParsedResource implements ResourceContentHandler {
+
+    private final List<BeanDefinition> beanDefinitions = new ArrayList<>();
+    private final List<String> imports = new ArrayList<>();
+    private final List<Integer> importPositions = new ArrayList<>();
+
+    @Override
+    public void addBeanDefinition(BeanDefinition beanDefinition) {
+        beanDefinitions.add(beanDefinition);
+    }
+
+    @Override
+    public void addImport(String path) {
+        imports.add(path);
+        importPositions.add(beanDefinitions.size());
+    }
+
+    /**
+     * Hands the bean definitions and imports to the handler in the order they were declared.
+     */
+    public void replayTo(ResourceContentHandler handler) {
+        int next = 0;
+        for (int i = 0; i < imports.size(); i++) {
+            for (; next < importPositions.get(i); next++) {
+                handler.addBeanDefinition(beanDefinitions.get(next));
+            }
+            handler.addImport(imports.get(i));
+        }
+        for (; next < beanDefinitions.size(); next++) {
+            handler.addBeanDefinition(beanDefinitions.get(next));
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.kopylov.ioc.reader;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+
+/**
+ * Receives the bean definitions and imports of a context resource in declaration order, as they are parsed.
+ */
+public interface ResourceContentHandler {
+
+    void addBeanDefinition(BeanDefinition beanDefinition);
+
+    /**
+     * @param path resolved path of the imported resource
+     */
+    void addImport(String path);
+}
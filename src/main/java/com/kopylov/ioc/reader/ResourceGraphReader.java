@@ -0,0 +1,189 @@
+package com.kopylov.ioc.reader;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Parses context resources and everything they import concurrently, then replays their bean definitions
+ * in declaration order: the definitions of an imported resource appear where its import element stands.
+ * <p>
+ * The first path is parsed on the calling thread and its definitions go to the consumer straight from the
+ * parse loop, so a single configuration file is still streamed into bean creation. The other paths are
+ * parsed ahead in the background, and so is every import as soon as the resource declaring it is parsed;
+ * the imports of the first path can only start once the parse loop reaches them. Only the resources parsed
+ * ahead are held in memory until they are replayed.
+ * <p>
+ * Every resource is parsed at most once per read, even if it is imported several times, and only its first
+ * occurrence in declaration order contributes definitions. A bean id declared twice is reported with the
+ * two resources that declare it.
+ */
+@Slf4j
+public class ResourceGraphReader {
+
+    private final Executor executor;
+    private final BiConsumer<String, ResourceContentHandler> parser;
+    @Setter
+    private volatile StartupRecorder startupRecorder = StartupRecorder.NONE;
+
+    /**
+     * @param parser parses the resource at the given path into the handler
+     */
+    public ResourceGraphReader(Executor executor, BiConsumer<String, ResourceContentHandler> parser) {
+        this.executor = executor;
+        this.parser = parser;
+    }
+
+    /**
+     * Reads with a parser that can only return whole resources; the first path is replayed once parsed.
+     */
+    public ResourceGraphReader(Executor executor, Function<String, ParsedResource> parser) {
+        this(executor, (path, handler) -> parser.apply(path).replayTo(handler));
+    }
+
+    public static String resolveImport(String resourcePath) {
+        return resourcePath.startsWith("/") ? "/context" + resourcePath : "/context/" + resourcePath;
+    }
+
+    public void read(String[] paths, Consumer<BeanDefinition> consumer) {
+        if (paths.length == 0) {
+            return;
+        }
+        Read read = new Read(consumer);
+        read.parsedResources.put(paths[0], read.emitted);
+        for (int i = 1; i < paths.length; i++) {
+            read.parse(paths[i]);
+        }
+        read.stream(paths[0]);
+        for (int i = 1; i < paths.length; i++) {
+            read.emit(paths[i]);
+        }
+    }
+
+    private void parseResource(String path, ResourceContentHandler handler) {
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.PARSE_RESOURCE, path);
+        try {
+            parser.accept(path, handler);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private static ParsedResource join(CompletableFuture<ParsedResource> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanDefinitionReadException("Error while reading the XML file", e.getCause());
+        }
+    }
+
+    /**
+     * State of a single read: the resources parsed or being parsed, and what has been emitted so far.
+     * Emitted resources are replaced by a marker, so their definitions can be collected before the read ends.
+     */
+    private class Read {
+
+        private final CompletableFuture<ParsedResource> emitted = CompletableFuture.completedFuture(null);
+        private final Map<String, CompletableFuture<ParsedResource>> parsedResources = new ConcurrentHashMap<>();
+        private final Set<String> emittedPaths = new HashSet<>();
+        private final Map<String, String> beanSources = new HashMap<>();
+        private final Consumer<BeanDefinition> consumer;
+
+        private Read(Consumer<BeanDefinition> consumer) {
+            this.consumer = consumer;
+        }
+
+        /**
+         * Starts parsing the resource unless it is already started. The future is registered before parsing
+         * starts and completed outside of any map update, so imports may be followed on the calling thread
+         * and through cycles.
+         */
+        private void parse(String path) {
+            CompletableFuture<ParsedResource> future = new CompletableFuture<>();
+            if (parsedResources.putIfAbsent(path, future) != null) {
+                return;
+            }
+            CompletableFuture.supplyAsync(() -> {
+                        ParsedResource parsedResource = new ParsedResource();
+                        parseResource(path, parsedResource);
+                        return parsedResource;
+                    }, executor)
+                    .thenApply(parsedResource -> {
+                        parsedResource.getImports().forEach(this::parse);
+                        return parsedResource;
+                    })
+                    .whenComplete((parsedResource, e) -> {
+                        if (e != null) {
+                            future.completeExceptionally(e);
+                        } else {
+                            future.complete(parsedResource);
+                        }
+                    });
+        }
+
+        /**
+         * Emits the definitions of the resource from its parse loop, so the parsing step recorded for it
+         * also covers the work of the consumer.
+         */
+        private void stream(String path) {
+            emittedPaths.add(path);
+            parseResource(path, emitter(path));
+        }
+
+        private void emit(String path) {
+            if (!emittedPaths.add(path)) {
+                log.debug("Resource {} is already read, skipping repeated import", path);
+                return;
+            }
+            ParsedResource parsedResource = join(parsedResources.get(path));
+            parsedResources.put(path, emitted);
+            parsedResource.replayTo(emitter(path));
+        }
+
+        private ResourceContentHandler emitter(String path) {
+            return new ResourceContentHandler() {
+                @Override
+                public void addBeanDefinition(BeanDefinition beanDefinition) {
+                    accept(beanDefinition, path);
+                }
+
+                @Override
+                public void addImport(String importPath) {
+                    parse(importPath);
+                    emit(importPath);
+                }
+            };
+        }
+
+        private void accept(BeanDefinition beanDefinition, String path) {
+            String id = beanDefinition.getId();
+            if (id != null) {
+                String previousPath = beanSources.putIfAbsent(id, path);
+                if (previousPath != null) {
+                    log.error("Bean id: {} is declared in {} and {}", id, previousPath, path);
+                    throw new BeanDefinitionReadException("Duplicate bean id '" + id + "' declared in " +
+                            previousPath + " and " + path);
+                }
+            }
+            consumer.accept(beanDefinition);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.kopylov.ioc.reader.annotation;
+
+import com.kopylov.ioc.annotation.processor.ComponentIndexProcessor;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.reader.BeanDefinitionReader;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads bean definitions of {@link com.kopylov.ioc.annotation.Component} classes from the component
+ * indexes that {@link ComponentIndexProcessor} writes into every compiled module. Only the index files
+ * are read: the classpath is not scanned and no class is loaded.
+ */
+@Slf4j
+public class ComponentIndexBeanDefinitionReader implements BeanDefinitionReader {
+
+    private final String[] basePackages;
+    private final ClassLoader classLoader;
+    private final XmlBeanDefinitionStaxReader staxReader = new XmlBeanDefinitionStaxReader();
+    @Setter
+    private StartupRecorder startupRecorder = StartupRecorder.NONE;
+
+    /**
+     * @param basePackages packages whose components (including subpackages) are read; all if none given
+     */
+    public ComponentIndexBeanDefinitionReader(String... basePackages) {
+        this(ComponentIndexBeanDefinitionReader.class.getClassLoader(), basePackages);
+    }
+
+    public ComponentIndexBeanDefinitionReader(ClassLoader classLoader, String... basePackages) {
+        this.classLoader = classLoader;
+        this.basePackages = basePackages;
+    }
+
+    @Override
+    public List<BeanDefinition> readBeanDefinition() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        readBeanDefinition(beanDefinitions::add);
+        return beanDefinitions;
+    }
+
+    @Override
+    public void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        try {
+            for (URL index : Collections.list(classLoader.getResources(ComponentIndexProcessor.INDEX_LOCATION))) {
+                readIndex(index, consumer);
+            }
+        } catch (IOException e) {
+            log.error("I/O error occurred while reading the component index", e);
+            throw new BeanDefinitionReadException("I/O error occurred while reading the component index", e);
+        }
+    }
+
+    private void readIndex(URL index, Consumer<BeanDefinition> consumer) throws IOException {
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.PARSE_RESOURCE, index.toString());
+        try (InputStream inputStream = index.openStream()) {
+            for (BeanDefinition beanDefinition : staxReader.inputStreamResourceReader(inputStream, resource -> resource)
+                    .getBeanDefinitions()) {
+                if (isInBasePackage(beanDefinition.getClazz())) {
+                    consumer.accept(beanDefinition);
+                }
+            }
+        } catch (XMLStreamException e) {
+            log.error("Error while parsing the component index: {}", index, e);
+            throw new BeanDefinitionReadException("Error while parsing the component index " + index, e);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private boolean isInBasePackage(String className) {
+        if (basePackages.length == 0) {
+            return true;
+        }
+        for (String basePackage : basePackages) {
+            if (className.startsWith(basePackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
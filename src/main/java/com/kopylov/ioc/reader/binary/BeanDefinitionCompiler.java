@@ -0,0 +1,72 @@
+package com.kopylov.ioc.reader.binary;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Build-time tool that compiles XML contexts from the classpath into bean definition snapshots.
+ * {@code /context/app.xml} is written to {@code <outputDir>/context/app.beans}, so the snapshot can be
+ * loaded from the same classpath location by {@link BinaryBeanDefinitionReader}.
+ * <p>
+ * Usage: {@code BeanDefinitionCompiler <outputDir> <contextPath>[,<contextPath>...]}
+ */
+@Slf4j
+public class BeanDefinitionCompiler {
+
+    static final String SNAPSHOT_EXTENSION = ".beans";
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: BeanDefinitionCompiler <outputDir> <contextPath>[,<contextPath>...]");
+        }
+        List<String> contextPaths = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            for (String contextPath : args[i].split(",")) {
+                if (!contextPath.isBlank()) {
+                    contextPaths.add(contextPath.trim());
+                }
+            }
+        }
+        new BeanDefinitionCompiler().compile(Paths.get(args[0]), contextPaths.toArray(String[]::new));
+    }
+
+    public List<Path> compile(Path outputDirectory, String... contextPaths) {
+        List<Path> snapshots = new ArrayList<>();
+        for (String contextPath : contextPaths) {
+            List<BeanDefinition> beanDefinitions = new XmlBeanDefinitionStaxReader(contextPath).readBeanDefinition();
+            Path snapshot = outputDirectory.resolve(snapshotPath(contextPath));
+            try {
+                Files.createDirectories(snapshot.getParent());
+                try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(snapshot))) {
+                    BeanDefinitionSnapshot.write(beanDefinitions, outputStream);
+                }
+            } catch (IOException e) {
+                log.error("I/O error occurred while writing the bean definition snapshot: {}", snapshot, e);
+                throw new BeanDefinitionReadException("I/O error occurred while writing the bean definition snapshot", e);
+            }
+            log.info("Compiled {} bean definitions from {} to {}", beanDefinitions.size(), contextPath, snapshot);
+            snapshots.add(snapshot);
+        }
+        return snapshots;
+    }
+
+    static String snapshotPath(String contextPath) {
+        String relativePath = contextPath.startsWith("/") ? contextPath.substring(1) : contextPath;
+        int extensionIndex = relativePath.lastIndexOf('.');
+        if (extensionIndex > relativePath.lastIndexOf('/')) {
+            relativePath = relativePath.substring(0, extensionIndex);
+        }
+        return relativePath + SNAPSHOT_EXTENSION;
+    }
+}
@@ -0,0 +1,167 @@
+package com.kopylov.ioc.reader.binary;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of a list of bean definitions with all imports already resolved.
+ * Layout: magic, version, definition count, then per definition: id, class, lazy-init flag, scope
+ * (empty for the default), pool size ({@code -1} for the default), init and destroy methods (empty for
+ * none), value properties and ref properties as counted name/value pairs, constructor arguments as a
+ * count followed by a ref flag and a string each, and method caches as a count followed by method,
+ * max size ({@code -1} for the default) and ttl (empty for none) each.
+ */
+public final class BeanDefinitionSnapshot {
+
+    static final int MAGIC = 0x10CBEA45;
+    static final int VERSION = 5;
+
+    private static final byte LAZY_INIT_DEFAULT = 0;
+    private static final byte LAZY_INIT_FALSE = 1;
+    private static final byte LAZY_INIT_TRUE = 2;
+
+    private BeanDefinitionSnapshot() {
+    }
+
+    public static void write(List<BeanDefinition> beanDefinitions, OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(beanDefinitions.size());
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            output.writeUTF(beanDefinition.getId());
+            output.writeUTF(beanDefinition.getClazz());
+            output.writeByte(lazyInitToByte(beanDefinition.getLazyInit()));
+            output.writeUTF(beanDefinition.getScope() == null ? "" : beanDefinition.getScope());
+            output.writeInt(beanDefinition.getPoolSize() == null ? -1 : beanDefinition.getPoolSize());
+            output.writeUTF(beanDefinition.getInitMethod() == null ? "" : beanDefinition.getInitMethod());
+            output.writeUTF(beanDefinition.getDestroyMethod() == null ? "" : beanDefinition.getDestroyMethod());
+            writeProperties(output, beanDefinition.getProperty());
+            writeProperties(output, beanDefinition.getRefProperty());
+            writeConstructorArgs(output, beanDefinition.getConstructorArgs());
+            writeMethodCaches(output, beanDefinition.getMethodCaches());
+        }
+        output.flush();
+    }
+
+    public static List<BeanDefinition> read(InputStream inputStream) throws IOException {
+        DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a bean definition snapshot");
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported bean definition snapshot version: " + version);
+        }
+        int count = input.readInt();
+        List<BeanDefinition> beanDefinitions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BeanDefinition beanDefinition = new BeanDefinition(input.readUTF(), input.readUTF());
+            beanDefinition.setLazyInit(lazyInitFromByte(input.readByte()));
+            String scope = input.readUTF();
+            beanDefinition.setScope(scope.isEmpty() ? null : scope);
+            int poolSize = input.readInt();
+            beanDefinition.setPoolSize(poolSize < 0 ? null : poolSize);
+            String initMethod = input.readUTF();
+            beanDefinition.setInitMethod(initMethod.isEmpty() ? null : initMethod);
+            String destroyMethod = input.readUTF();
+            beanDefinition.setDestroyMethod(destroyMethod.isEmpty() ? null : destroyMethod);
+            readProperties(input, beanDefinition.getProperty());
+            readProperties(input, beanDefinition.getRefProperty());
+            readConstructorArgs(input, beanDefinition.getConstructorArgs());
+            readMethodCaches(input, beanDefinition.getMethodCaches());
+            beanDefinitions.add(beanDefinition);
+        }
+        return beanDefinitions;
+    }
+
+    private static void writeProperties(DataOutputStream output, Map<String, String> properties) throws IOException {
+        if (properties == null) {
+            properties = new HashMap<>();
+        }
+        output.writeInt(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            output.writeUTF(property.getKey());
+            output.writeUTF(property.getValue());
+        }
+    }
+
+    private static void readProperties(DataInputStream input, Map<String, String> properties) throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            properties.put(input.readUTF(), input.readUTF());
+        }
+    }
+
+    private static void writeConstructorArgs(DataOutputStream output, List<ConstructorArgument> constructorArgs)
+            throws IOException {
+        if (constructorArgs == null) {
+            constructorArgs = List.of();
+        }
+        output.writeInt(constructorArgs.size());
+        for (ConstructorArgument constructorArg : constructorArgs) {
+            output.writeBoolean(constructorArg.isRef());
+            output.writeUTF(constructorArg.isRef() ? constructorArg.getRef() : constructorArg.getValue());
+        }
+    }
+
+    private static void readConstructorArgs(DataInputStream input, List<ConstructorArgument> constructorArgs)
+            throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            boolean ref = input.readBoolean();
+            String value = input.readUTF();
+            constructorArgs.add(ref ? ConstructorArgument.ofRef(value) : ConstructorArgument.ofValue(value));
+        }
+    }
+
+    private static void writeMethodCaches(DataOutputStream output, List<MethodCacheDefinition> methodCaches)
+            throws IOException {
+        if (methodCaches == null) {
+            methodCaches = List.of();
+        }
+        output.writeInt(methodCaches.size());
+        for (MethodCacheDefinition methodCache : methodCaches) {
+            output.writeUTF(methodCache.getMethod());
+            output.writeInt(methodCache.getMaxSize() == null ? -1 : methodCache.getMaxSize());
+            output.writeUTF(methodCache.getTtl() == null ? "" : methodCache.getTtl());
+        }
+    }
+
+    private static void readMethodCaches(DataInputStream input, List<MethodCacheDefinition> methodCaches)
+            throws IOException {
+        int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            String method = input.readUTF();
+            int maxSize = input.readInt();
+            String ttl = input.readUTF();
+            methodCaches.add(new MethodCacheDefinition(method, maxSize < 0 ? null : maxSize,
+                    ttl.isEmpty() ? null : ttl));
+        }
+    }
+
+    private static byte lazyInitToByte(Boolean lazyInit) {
+        if (lazyInit == null) {
+            return LAZY_INIT_DEFAULT;
+        }
+        return lazyInit ? LAZY_INIT_TRUE : LAZY_INIT_FALSE;
+    }
+
+    private static Boolean lazyInitFromByte(byte lazyInit) {
+        if (lazyInit == LAZY_INIT_DEFAULT) {
+            return null;
+        }
+        return lazyInit == LAZY_INIT_TRUE;
+    }
+}
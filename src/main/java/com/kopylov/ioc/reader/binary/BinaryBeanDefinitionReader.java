@@ -0,0 +1,51 @@
+package com.kopylov.ioc.reader.binary;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.reader.BeanDefinitionReader;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads bean definitions from snapshots produced by {@link BeanDefinitionCompiler}, without any XML parsing.
+ */
+@Slf4j
+public class BinaryBeanDefinitionReader implements BeanDefinitionReader {
+
+    private final String[] paths;
+    @Setter
+    private StartupRecorder startupRecorder = StartupRecorder.NONE;
+
+    public BinaryBeanDefinitionReader(String... paths) {
+        this.paths = paths;
+    }
+
+    @Override
+    public List<BeanDefinition> readBeanDefinition() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        for (String path : paths) {
+            StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.PARSE_RESOURCE, path);
+            try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+                if (inputStream == null) {
+                    throw new FileNotFoundException("Bean definition snapshot not found: " + path);
+                }
+                beanDefinitions.addAll(BeanDefinitionSnapshot.read(new BufferedInputStream(inputStream)));
+            } catch (IOException e) {
+                log.error("I/O error occurred while reading the bean definition snapshot", e);
+                throw new BeanDefinitionReadException("I/O error occurred while reading the bean definition snapshot", e);
+            } finally {
+                timer.stop();
+            }
+        }
+        return beanDefinitions;
+    }
+}
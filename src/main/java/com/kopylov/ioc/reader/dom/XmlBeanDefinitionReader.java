@@ -1,8 +1,13 @@
 package com.kopylov.ioc.reader.dom;
 
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
 import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupRecorder;
 import com.kopylov.ioc.reader.BeanDefinitionReader;
+import com.kopylov.ioc.reader.ParsedResource;
+import com.kopylov.ioc.reader.ResourceGraphReader;
 import lombok.extern.slf4j.Slf4j;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -17,89 +22,105 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 
 @Slf4j
 public class XmlBeanDefinitionReader implements BeanDefinitionReader {
 
     private final String[] paths;
     private final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    private final ResourceGraphReader resourceGraphReader;
 
     public XmlBeanDefinitionReader(String... paths) {
+        this(ForkJoinPool.commonPool(), paths);
+    }
+
+    /**
+     * @param executor executor that parses the given paths and their imports concurrently
+     */
+    public XmlBeanDefinitionReader(Executor executor, String... paths) {
         this.paths = paths;
+        this.resourceGraphReader = new ResourceGraphReader(executor, this::readResource);
     }
 
     @Override
     public List<BeanDefinition> readBeanDefinition() {
         List<BeanDefinition> beanDefinitions = new ArrayList<>();
-        for (String path : paths) {
-            try (InputStream inputStream = getClass().getResourceAsStream(path)) {
-                Document document = createDocument(inputStream);
-                readImportedResources(beanDefinitions, document);
-                beanDefinitions.addAll(documentBeanDefinitionReader(document));
-            } catch (ParserConfigurationException e) {
-                log.error("Error while configuring the XML parser", e);
-                throw new BeanDefinitionReadException("Error while configuring the XML parser", e);
-            } catch (IOException e) {
-                log.error("I/O error occurred while reading the XML file", e);
-                throw new BeanDefinitionReadException("I/O error occurred while reading the XML file", e);
-            } catch (SAXException e) {
-                log.error("Error while reading the XML file", e);
-                throw new BeanDefinitionReadException("Error while reading the XML file ", e);
-            }
-        }
+        readBeanDefinition(beanDefinitions::add);
         return beanDefinitions;
     }
 
+    @Override
+    public void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        resourceGraphReader.read(paths, consumer);
+    }
+
+    @Override
+    public void setStartupRecorder(StartupRecorder startupRecorder) {
+        resourceGraphReader.setStartupRecorder(startupRecorder);
+    }
+
+    ParsedResource readResource(String path) {
+        try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+            return documentResourceReader(createDocument(inputStream));
+        } catch (ParserConfigurationException e) {
+            log.error("Error while configuring the XML parser", e);
+            throw new BeanDefinitionReadException("Error while configuring the XML parser", e);
+        } catch (IOException e) {
+            log.error("I/O error occurred while reading the XML file", e);
+            throw new BeanDefinitionReadException("I/O error occurred while reading the XML file", e);
+        } catch (SAXException e) {
+            log.error("Error while reading the XML file", e);
+            throw new BeanDefinitionReadException("Error while reading the XML file ", e);
+        }
+    }
+
     Document createDocument(InputStream inputStream)
             throws ParserConfigurationException, IOException, SAXException {
 
-        DocumentBuilder builder = factory.newDocumentBuilder();
+        DocumentBuilder builder;
+        synchronized (factory) {
+            builder = factory.newDocumentBuilder();
+        }
         return builder.parse(inputStream);
     }
 
     List<BeanDefinition> documentBeanDefinitionReader(Document document) {
-        List<BeanDefinition> beanDefinitions = new ArrayList<>();
-        NodeList beanList = document.getElementsByTagName("bean");
-        for (int i = 0; i < beanList.getLength(); i++) {
-            Node bean = beanList.item(i);
-            if (bean == null || bean.getNodeType() != Node.ELEMENT_NODE) {
-                log.error("Bean is not an Element node or is null");
-                throw new IllegalArgumentException("Invalid bean node");
-            }
-            Element beanElement = (Element) bean;
-            BeanDefinition beanDefinition = createBeanDefinition(beanElement);
-            NodeList beanProperty = beanElement.getElementsByTagName("property");
-            for (int j = 0; j < beanProperty.getLength(); j++) {
-                Node property = beanProperty.item(j);
-                setBeanDefinitionProperty(property, beanDefinition);
+        return documentResourceReader(document).getBeanDefinitions();
+    }
+
+    ParsedResource documentResourceReader(Document document) {
+        ParsedResource parsedResource = new ParsedResource();
+        NodeList elements = document.getElementsByTagName("*");
+        for (int i = 0; i < elements.getLength(); i++) {
+            Element element = (Element) elements.item(i);
+            if (element.getTagName().equals("bean")) {
+                parsedResource.addBeanDefinition(readBean(element));
+            } else if (element.getTagName().equals("import")) {
+                parsedResource.addImport(ResourceGraphReader.resolveImport(element.getAttribute("resource")));
             }
-            beanDefinitions.add(beanDefinition);
         }
-        return beanDefinitions;
+        return parsedResource;
     }
 
-    private void readImportedResources(List<BeanDefinition> beanDefinitions, Document document)
-            throws IOException, ParserConfigurationException, SAXException {
-
-        NodeList importNodes = document.getElementsByTagName("import");
-        for (int i = 0; i < importNodes.getLength(); i++) {
-            Node importNode = importNodes.item(i);
-            if (importNode.getNodeType() == Node.ELEMENT_NODE) {
-                Element importElement = (Element) importNode;
-                String resourcePath = importElement.getAttribute("resource");
-                if (!resourcePath.startsWith("/")) {
-                    try (InputStream importedInputStream = getClass().getResourceAsStream("/context/" + resourcePath)) {
-                        Document importedDocument = createDocument(importedInputStream);
-                        beanDefinitions.addAll(documentBeanDefinitionReader(importedDocument));
-                    }
-                } else {
-                    try (InputStream importedInputStream = getClass().getResourceAsStream("/context" + resourcePath)) {
-                        Document importedDocument = createDocument(importedInputStream);
-                        beanDefinitions.addAll(documentBeanDefinitionReader(importedDocument));
-                    }
-                }
-            }
+    private BeanDefinition readBean(Element beanElement) {
+        BeanDefinition beanDefinition = createBeanDefinition(beanElement);
+        NodeList beanProperty = beanElement.getElementsByTagName("property");
+        for (int j = 0; j < beanProperty.getLength(); j++) {
+            Node property = beanProperty.item(j);
+            setBeanDefinitionProperty(property, beanDefinition);
+        }
+        NodeList constructorArgs = beanElement.getElementsByTagName("constructor-arg");
+        for (int j = 0; j < constructorArgs.getLength(); j++) {
+            addConstructorArg((Element) constructorArgs.item(j), beanDefinition);
         }
+        NodeList methodCaches = beanElement.getElementsByTagName("cache");
+        for (int j = 0; j < methodCaches.getLength(); j++) {
+            addMethodCache((Element) methodCaches.item(j), beanDefinition);
+        }
+        return beanDefinition;
     }
 
     private BeanDefinition createBeanDefinition(Element beanElement) {
@@ -109,7 +130,28 @@ public class XmlBeanDefinitionReader implements BeanDefinitionReader {
             log.error("Error while reading attribute of Element");
             throw new IllegalArgumentException("Bean attributes 'id' and 'class' must not be empty");
         }
-        return new BeanDefinition(id, clazz);
+        BeanDefinition beanDefinition = new BeanDefinition(id, clazz);
+        String lazyInit = beanElement.getAttribute("lazy-init");
+        if (!lazyInit.isEmpty()) {
+            beanDefinition.setLazyInit(Boolean.parseBoolean(lazyInit));
+        }
+        String scope = beanElement.getAttribute("scope");
+        if (!scope.isEmpty()) {
+            beanDefinition.setScope(scope);
+        }
+        String poolSize = beanElement.getAttribute("pool-size");
+        if (!poolSize.isEmpty()) {
+            beanDefinition.setPoolSize(Integer.parseInt(poolSize));
+        }
+        String initMethod = beanElement.getAttribute("init-method");
+        if (!initMethod.isEmpty()) {
+            beanDefinition.setInitMethod(initMethod);
+        }
+        String destroyMethod = beanElement.getAttribute("destroy-method");
+        if (!destroyMethod.isEmpty()) {
+            beanDefinition.setDestroyMethod(destroyMethod);
+        }
+        return beanDefinition;
     }
 
     private void setBeanDefinitionProperty(Node property, BeanDefinition beanDefinition) {
@@ -123,4 +165,29 @@ public class XmlBeanDefinitionReader implements BeanDefinitionReader {
             beanDefinition.getRefProperty().put(propertyName, propertyRef);
         }
     }
-}
\ No newline at end of file
+
+    private void addConstructorArg(Element argumentElement, BeanDefinition beanDefinition) {
+        if (argumentElement.hasAttribute("ref")) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofRef(argumentElement.getAttribute("ref")));
+        } else if (argumentElement.hasAttribute("value")) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofValue(argumentElement.getAttribute("value")));
+        } else {
+            log.error("Constructor argument of bean: {} has neither value nor ref", beanDefinition.getId());
+            throw new IllegalArgumentException("Constructor argument of bean '" + beanDefinition.getId() +
+                    "' must have a 'value' or 'ref' attribute");
+        }
+    }
+
+    private void addMethodCache(Element cacheElement, BeanDefinition beanDefinition) {
+        String method = cacheElement.getAttribute("method");
+        if (method.isEmpty()) {
+            log.error("Cache of bean: {} has no method", beanDefinition.getId());
+            throw new IllegalArgumentException("Cache of bean '" + beanDefinition.getId() +
+                    "' must have a 'method' attribute");
+        }
+        String maxSize = cacheElement.getAttribute("max-size");
+        String ttl = cacheElement.getAttribute("ttl");
+        beanDefinition.getMethodCaches().add(new MethodCacheDefinition(method,
+                maxSize.isEmpty() ? null : Integer.parseInt(maxSize), ttl.isEmpty() ? null : ttl));
+    }
+}
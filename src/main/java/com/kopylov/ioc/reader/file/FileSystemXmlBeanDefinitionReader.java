@@ -0,0 +1,134 @@
+package com.kopylov.ioc.reader.file;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.reader.BeanDefinitionReader;
+import com.kopylov.ioc.reader.ParsedResource;
+import com.kopylov.ioc.reader.ResourceGraphReader;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * Reads context XML files from the filesystem and keeps the parsed form of every file, so a repeated read
+ * parses only the files {@link #invalidate(Path) invalidated} since the previous one. Files are parsed with
+ * {@link XmlBeanDefinitionStaxReader}; imports are resolved relative to the directory of the importing file.
+ */
+@Slf4j
+public class FileSystemXmlBeanDefinitionReader implements BeanDefinitionReader {
+
+    private final String[] paths;
+    private final XmlBeanDefinitionStaxReader staxReader = new XmlBeanDefinitionStaxReader();
+    private final Map<String, ParsedResource> parsedFiles = new ConcurrentHashMap<>();
+    private final ResourceGraphReader resourceGraphReader;
+
+    public FileSystemXmlBeanDefinitionReader(String... paths) {
+        this(ForkJoinPool.commonPool(), paths);
+    }
+
+    /**
+     * @param executor executor that parses the given files and their imports concurrently
+     */
+    public FileSystemXmlBeanDefinitionReader(Executor executor, String... paths) {
+        this.paths = new String[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            this.paths[i] = normalize(Paths.get(paths[i])).toString();
+        }
+        this.resourceGraphReader = new ResourceGraphReader(executor, this::readResource);
+    }
+
+    @Override
+    public List<BeanDefinition> readBeanDefinition() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        readBeanDefinition(beanDefinitions::add);
+        return beanDefinitions;
+    }
+
+    @Override
+    public void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        resourceGraphReader.read(paths, consumer);
+        parsedFiles.keySet().retainAll(collectResourcePaths());
+    }
+
+    @Override
+    public void setStartupRecorder(StartupRecorder startupRecorder) {
+        resourceGraphReader.setStartupRecorder(startupRecorder);
+    }
+
+    /**
+     * Drops the parsed form of a file, so the next read parses it again.
+     */
+    public void invalidate(Path file) {
+        parsedFiles.remove(normalize(file).toString());
+    }
+
+    /**
+     * Returns the files read so far: the configured paths and every file they import.
+     */
+    public Set<Path> getResourceFiles() {
+        Set<Path> files = new LinkedHashSet<>();
+        for (String path : collectResourcePaths()) {
+            files.add(Paths.get(path));
+        }
+        return files;
+    }
+
+    ParsedResource readResource(String path) {
+        ParsedResource parsedResource = parsedFiles.get(path);
+        if (parsedResource == null) {
+            parsedResource = parseFile(Paths.get(path));
+            parsedFiles.put(path, parsedResource);
+        }
+        return parsedResource;
+    }
+
+    private ParsedResource parseFile(Path file) {
+        log.debug("Parsing context file: {}", file);
+        Path directory = file.getParent();
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return staxReader.inputStreamResourceReader(inputStream, resourcePath -> normalize(directory.resolve(
+                    resourcePath.startsWith("/") ? resourcePath.substring(1) : resourcePath)).toString());
+        } catch (IOException e) {
+            log.error("I/O error occurred while reading the XML file: {}", file, e);
+            throw new BeanDefinitionReadException("I/O error occurred while reading the XML file " + file, e);
+        } catch (XMLStreamException e) {
+            log.error("Error while parsing the XML file: {}", file, e);
+            throw new BeanDefinitionReadException("Error while parsing the XML file " + file, e);
+        }
+    }
+
+    private Set<String> collectResourcePaths() {
+        Set<String> resourcePaths = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(List.of(paths));
+        while (!pending.isEmpty()) {
+            String path = pending.poll();
+            ParsedResource parsedResource = parsedFiles.get(path);
+            if (resourcePaths.add(path) && parsedResource != null) {
+                pending.addAll(parsedResource.getImports());
+            }
+        }
+        return resourcePaths;
+    }
+
+    private static Path normalize(Path file) {
+        return file.toAbsolutePath().normalize();
+    }
+}
@@ -0,0 +1,298 @@
+package com.kopylov.ioc.reader.mapped;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.reader.BeanDefinitionReader;
+import com.kopylov.ioc.reader.ResourceGraphReader;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Reads bean definitions without building a DOM tree or an event stream. Filesystem paths are
+ * memory-mapped, classpath resources are copied into a single direct buffer, and the document is
+ * scanned with an {@link XmlCursor}, so heap usage does not grow with the size of the file.
+ * <p>
+ * Paths that exist on the filesystem take precedence over classpath resources. Imports of a file are
+ * resolved relative to its directory, imports of a classpath resource relative to {@code /context}.
+ * Like {@link ResourceGraphReader}, every resource is read at most once per read,
+ * so repeated and cyclic imports are skipped, and a bean id declared twice is reported with the two
+ * resources that declare it.
+ */
+@Slf4j
+public class MappedXmlBeanDefinitionReader implements BeanDefinitionReader {
+
+    private static final byte[] BEAN = XmlCursor.name("bean");
+    private static final byte[] PROPERTY = XmlCursor.name("property");
+    private static final byte[] CONSTRUCTOR_ARG = XmlCursor.name("constructor-arg");
+    private static final byte[] CACHE = XmlCursor.name("cache");
+    private static final byte[] IMPORT = XmlCursor.name("import");
+    private static final byte[] ID = XmlCursor.name("id");
+    private static final byte[] CLASS = XmlCursor.name("class");
+    private static final byte[] LAZY_INIT = XmlCursor.name("lazy-init");
+    private static final byte[] SCOPE = XmlCursor.name("scope");
+    private static final byte[] POOL_SIZE = XmlCursor.name("pool-size");
+    private static final byte[] INIT_METHOD = XmlCursor.name("init-method");
+    private static final byte[] DESTROY_METHOD = XmlCursor.name("destroy-method");
+    private static final byte[] NAME = XmlCursor.name("name");
+    private static final byte[] VALUE = XmlCursor.name("value");
+    private static final byte[] REF = XmlCursor.name("ref");
+    private static final byte[] RESOURCE = XmlCursor.name("resource");
+    private static final byte[] METHOD = XmlCursor.name("method");
+    private static final byte[] MAX_SIZE = XmlCursor.name("max-size");
+    private static final byte[] TTL = XmlCursor.name("ttl");
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    private final String[] paths;
+    @Setter
+    private StartupRecorder startupRecorder = StartupRecorder.NONE;
+
+    public MappedXmlBeanDefinitionReader(String... paths) {
+        this.paths = paths;
+    }
+
+    @Override
+    public List<BeanDefinition> readBeanDefinition() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        readBeanDefinition(beanDefinitions::add);
+        return beanDefinitions;
+    }
+
+    @Override
+    public void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        ReadSession session = new ReadSession(consumer);
+        for (String path : paths) {
+            try {
+                Path file = toFile(path);
+                if (file != null) {
+                    readFile(file, session);
+                } else {
+                    readClasspathResource(path, session);
+                }
+            } catch (IOException e) {
+                log.error("I/O error occurred while reading the XML file", e);
+                throw new BeanDefinitionReadException("I/O error occurred while reading the XML file", e);
+            } catch (IllegalStateException e) {
+                log.error("Error while reading the XML file", e);
+                throw new BeanDefinitionReadException("Error while reading the XML file " + path, e);
+            }
+        }
+    }
+
+    private void readFile(Path file, ReadSession session) throws IOException {
+        Path absoluteFile = file.toAbsolutePath().normalize();
+        if (!session.startReading(absoluteFile.toString())) {
+            return;
+        }
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.PARSE_RESOURCE, file.toString());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readBuffer(buffer, session, absoluteFile.getParent(), file.toString());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void readClasspathResource(String path, ReadSession session) throws IOException {
+        if (!session.startReading(path)) {
+            return;
+        }
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.PARSE_RESOURCE, path);
+        try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("XML resource not found: " + path);
+            }
+            readBuffer(readFully(inputStream), session, null, path);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void readBuffer(ByteBuffer buffer, ReadSession session, Path directory, String resource)
+            throws IOException {
+        XmlCursor cursor = new XmlCursor(buffer);
+        BeanDefinition beanDefinition = null;
+        for (XmlCursor.Token token = cursor.next(); token != XmlCursor.Token.END_DOCUMENT; token = cursor.next()) {
+            if (token == XmlCursor.Token.START_ELEMENT) {
+                if (cursor.isElement(BEAN)) {
+                    beanDefinition = createBeanDefinition(cursor);
+                    if (cursor.isEmptyElement()) {
+                        session.accept(beanDefinition, resource);
+                        beanDefinition = null;
+                    }
+                } else if (cursor.isElement(PROPERTY) && beanDefinition != null) {
+                    setBeanDefinitionProperty(cursor, beanDefinition);
+                } else if (cursor.isElement(CONSTRUCTOR_ARG) && beanDefinition != null) {
+                    addConstructorArg(cursor, beanDefinition);
+                } else if (cursor.isElement(CACHE) && beanDefinition != null) {
+                    addMethodCache(cursor, beanDefinition);
+                } else if (cursor.isElement(IMPORT)) {
+                    readImportedResource(cursor.getAttributeValue(RESOURCE), session, directory);
+                }
+            } else if (cursor.isElement(BEAN) && beanDefinition != null) {
+                session.accept(beanDefinition, resource);
+                beanDefinition = null;
+            }
+        }
+        if (beanDefinition != null) {
+            throw new IllegalStateException("Element 'bean' with id '" + beanDefinition.getId() + "' is not closed");
+        }
+    }
+
+    private void readImportedResource(String resourcePath, ReadSession session, Path directory)
+            throws IOException {
+        if (resourcePath == null || resourcePath.isEmpty()) {
+            return;
+        }
+        if (directory != null) {
+            readFile(directory.resolve(resourcePath.startsWith("/") ? resourcePath.substring(1) : resourcePath),
+                    session);
+        } else {
+            readClasspathResource(ResourceGraphReader.resolveImport(resourcePath), session);
+        }
+    }
+
+    private BeanDefinition createBeanDefinition(XmlCursor cursor) {
+        String id = cursor.getAttributeValue(ID);
+        String clazz = cursor.getAttributeValue(CLASS);
+        if (id == null || id.isEmpty() || clazz == null || clazz.isEmpty()) {
+            log.error("Error while reading attribute of Element");
+            throw new IllegalArgumentException("Bean attributes 'id' and 'class' must not be empty");
+        }
+        BeanDefinition beanDefinition = new BeanDefinition(id, clazz);
+        String lazyInit = cursor.getAttributeValue(LAZY_INIT);
+        if (lazyInit != null && !lazyInit.isEmpty()) {
+            beanDefinition.setLazyInit(Boolean.parseBoolean(lazyInit));
+        }
+        beanDefinition.setScope(cursor.getAttributeValue(SCOPE));
+        String poolSize = cursor.getAttributeValue(POOL_SIZE);
+        if (poolSize != null && !poolSize.isEmpty()) {
+            beanDefinition.setPoolSize(Integer.parseInt(poolSize));
+        }
+        beanDefinition.setInitMethod(emptyToNull(cursor.getAttributeValue(INIT_METHOD)));
+        beanDefinition.setDestroyMethod(emptyToNull(cursor.getAttributeValue(DESTROY_METHOD)));
+        return beanDefinition;
+    }
+
+    private void setBeanDefinitionProperty(XmlCursor cursor, BeanDefinition beanDefinition) {
+        String propertyName = cursor.getAttributeValue(NAME);
+        String propertyValue = cursor.getAttributeValue(VALUE);
+        if (propertyValue != null && !propertyValue.isEmpty()) {
+            beanDefinition.getProperty().put(propertyName, propertyValue);
+            return;
+        }
+        String propertyRef = cursor.getAttributeValue(REF);
+        if (propertyRef != null && !propertyRef.isEmpty()) {
+            beanDefinition.getRefProperty().put(propertyName, propertyRef);
+        }
+    }
+
+    private void addConstructorArg(XmlCursor cursor, BeanDefinition beanDefinition) {
+        String argumentRef = cursor.getAttributeValue(REF);
+        String argumentValue = cursor.getAttributeValue(VALUE);
+        if (argumentRef != null) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofRef(argumentRef));
+        } else if (argumentValue != null) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofValue(argumentValue));
+        } else {
+            throw new IllegalStateException("Constructor argument of bean '" + beanDefinition.getId() +
+                    "' must have a 'value' or 'ref' attribute");
+        }
+    }
+
+    private void addMethodCache(XmlCursor cursor, BeanDefinition beanDefinition) {
+        String method = cursor.getAttributeValue(METHOD);
+        if (method == null || method.isEmpty()) {
+            throw new IllegalStateException("Cache of bean '" + beanDefinition.getId() +
+                    "' must have a 'method' attribute");
+        }
+        String maxSize = cursor.getAttributeValue(MAX_SIZE);
+        String ttl = cursor.getAttributeValue(TTL);
+        beanDefinition.getMethodCaches().add(new MethodCacheDefinition(method,
+                maxSize == null || maxSize.isEmpty() ? null : Integer.parseInt(maxSize),
+                ttl == null || ttl.isEmpty() ? null : ttl));
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static Path toFile(String path) {
+        try {
+            Path file = Paths.get(path);
+            return Files.isRegularFile(file) ? file : null;
+        } catch (InvalidPathException e) {
+            return null;
+        }
+    }
+
+    private static ByteBuffer readFully(InputStream inputStream) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(Math.max(inputStream.available(), INITIAL_BUFFER_SIZE));
+        ReadableByteChannel channel = Channels.newChannel(inputStream);
+        while (channel.read(buffer) >= 0) {
+            if (!buffer.hasRemaining()) {
+                ByteBuffer grown = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Resources already read and the resource declaring each bean id, for a single read.
+     */
+    private static final class ReadSession {
+
+        private final Consumer<BeanDefinition> consumer;
+        private final Set<String> readResources = new HashSet<>();
+        private final Map<String, String> beanSources = new HashMap<>();
+
+        private ReadSession(Consumer<BeanDefinition> consumer) {
+            this.consumer = consumer;
+        }
+
+        private boolean startReading(String resource) {
+            if (!readResources.add(resource)) {
+                log.debug("Resource {} is already read, skipping repeated import", resource);
+                return false;
+            }
+            return true;
+        }
+
+        private void accept(BeanDefinition beanDefinition, String resource) {
+            String previousResource = beanSources.putIfAbsent(beanDefinition.getId(), resource);
+            if (previousResource != null) {
+                log.error("Bean id: {} is declared in {} and {}", beanDefinition.getId(), previousResource, resource);
+                throw new BeanDefinitionReadException("Duplicate bean id '" + beanDefinition.getId() +
+                        "' declared in " + previousResource + " and " + resource);
+            }
+            consumer.accept(beanDefinition);
+        }
+    }
+}
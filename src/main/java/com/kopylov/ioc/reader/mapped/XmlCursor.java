@@ -0,0 +1,311 @@
+package com.kopylov.ioc.reader.mapped;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Forward-only cursor over the tags of an XML document held in a byte buffer.
+ * Text, comments, processing instructions and declarations are skipped; only start and end tags
+ * are reported. Element names are compared in place, and attribute values are decoded into strings
+ * only when requested, so scanning allocates nothing for elements the caller is not interested in.
+ */
+class XmlCursor {
+
+    enum Token {
+        START_ELEMENT, END_ELEMENT, END_DOCUMENT
+    }
+
+    private static final int MAX_ATTRIBUTES = 16;
+    private static final byte[] PROCESSING_INSTRUCTION_END = name("?>");
+    private static final byte[] COMMENT_END = name("-->");
+    private static final byte[] CDATA_END = name("]]>");
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private int position;
+
+    private int nameStart;
+    private int nameEnd;
+    private boolean emptyElement;
+    private int attributeCount;
+    private final int[] attributeBounds = new int[MAX_ATTRIBUTES * 4];
+    private byte[] scratch = new byte[64];
+
+    XmlCursor(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+    }
+
+    Token next() {
+        while (true) {
+            int tagStart = indexOf('<', position);
+            if (tagStart < 0) {
+                position = limit;
+                return Token.END_DOCUMENT;
+            }
+            position = tagStart + 1;
+            byte first = byteAt(position);
+            if (first == '!') {
+                skipDeclaration();
+            } else if (first == '?') {
+                position = indexOf(PROCESSING_INSTRUCTION_END, position) + 2;
+            } else if (first == '/') {
+                position++;
+                readName();
+                position = requireIndexOf('>', position) + 1;
+                emptyElement = false;
+                attributeCount = 0;
+                return Token.END_ELEMENT;
+            } else {
+                readName();
+                readAttributes();
+                return Token.START_ELEMENT;
+            }
+        }
+    }
+
+    /**
+     * Compares the local part of the current element name with an ASCII name without decoding it.
+     */
+    boolean isElement(byte[] localName) {
+        int start = nameStart;
+        for (int i = nameStart; i < nameEnd; i++) {
+            if (buffer.get(i) == ':') {
+                start = i + 1;
+            }
+        }
+        return regionEquals(start, nameEnd, localName);
+    }
+
+    boolean isEmptyElement() {
+        return emptyElement;
+    }
+
+    /**
+     * Returns the decoded value of an attribute of the current start element, or {@code null} if it is absent.
+     */
+    String getAttributeValue(byte[] attributeName) {
+        for (int i = 0; i < attributeCount; i++) {
+            int offset = i * 4;
+            if (regionEquals(attributeBounds[offset], attributeBounds[offset + 1], attributeName)) {
+                return decode(attributeBounds[offset + 2], attributeBounds[offset + 3]);
+            }
+        }
+        return null;
+    }
+
+    static byte[] name(String name) {
+        return name.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void readName() {
+        nameStart = position;
+        while (position < limit && !isNameEnd(buffer.get(position))) {
+            position++;
+        }
+        nameEnd = position;
+    }
+
+    private void readAttributes() {
+        attributeCount = 0;
+        emptyElement = false;
+        while (true) {
+            skipWhitespace();
+            byte current = byteAt(position);
+            if (current == '>') {
+                position++;
+                return;
+            }
+            if (current == '/') {
+                position = requireIndexOf('>', position) + 1;
+                emptyElement = true;
+                return;
+            }
+            int attributeNameStart = position;
+            while (!isNameEnd(byteAt(position)) && byteAt(position) != '=') {
+                position++;
+            }
+            int attributeNameEnd = position;
+            skipWhitespace();
+            if (byteAt(position) != '=') {
+                throw new IllegalStateException("Malformed attribute at byte " + attributeNameStart);
+            }
+            position++;
+            skipWhitespace();
+            byte quote = byteAt(position);
+            if (quote != '"' && quote != '\'') {
+                throw new IllegalStateException("Unquoted attribute value at byte " + position);
+            }
+            int valueStart = position + 1;
+            int valueEnd = requireIndexOf(quote, valueStart);
+            position = valueEnd + 1;
+            addAttribute(attributeNameStart, attributeNameEnd, valueStart, valueEnd);
+        }
+    }
+
+    private void addAttribute(int attributeNameStart, int attributeNameEnd, int valueStart, int valueEnd) {
+        int offset = attributeCount * 4;
+        if (offset == attributeBounds.length) {
+            throw new IllegalStateException("Too many attributes on element at byte " + nameStart);
+        }
+        attributeBounds[offset] = attributeNameStart;
+        attributeBounds[offset + 1] = attributeNameEnd;
+        attributeBounds[offset + 2] = valueStart;
+        attributeBounds[offset + 3] = valueEnd;
+        attributeCount++;
+    }
+
+    private void skipDeclaration() {
+        if (startsWith(position, "!--")) {
+            position = indexOf(COMMENT_END, position + 3) + 3;
+        } else if (startsWith(position, "![CDATA[")) {
+            position = indexOf(CDATA_END, position + 8) + 3;
+        } else {
+            int depth = 0;
+            while (true) {
+                byte current = byteAt(position++);
+                if (current == '[') {
+                    depth++;
+                } else if (current == ']') {
+                    depth--;
+                } else if (current == '>' && depth == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private String decode(int start, int end) {
+        int length = end - start;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        boolean hasEntity = false;
+        for (int i = 0; i < length; i++) {
+            byte current = buffer.get(start + i);
+            hasEntity |= current == '&';
+            scratch[i] = current;
+        }
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return hasEntity ? replaceEntities(value) : value;
+    }
+
+    private static String replaceEntities(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        int index = 0;
+        while (index < value.length()) {
+            char current = value.charAt(index);
+            int entityEnd = current == '&' ? value.indexOf(';', index) : -1;
+            if (entityEnd < 0) {
+                result.append(current);
+                index++;
+                continue;
+            }
+            String entity = value.substring(index + 1, entityEnd);
+            switch (entity) {
+                case "amp" -> result.append('&');
+                case "lt" -> result.append('<');
+                case "gt" -> result.append('>');
+                case "quot" -> result.append('"');
+                case "apos" -> result.append('\'');
+                default -> {
+                    if (entity.startsWith("#")) {
+                        result.appendCodePoint(parseCharacterReference(entity));
+                    } else {
+                        throw new IllegalStateException("Unknown entity: &" + entity + ";");
+                    }
+                }
+            }
+            index = entityEnd + 1;
+        }
+        return result.toString();
+    }
+
+    private static int parseCharacterReference(String entity) {
+        try {
+            int codePoint = entity.startsWith("#x")
+                    ? Integer.parseInt(entity.substring(2), 16)
+                    : Integer.parseInt(entity.substring(1));
+            if (!Character.isValidCodePoint(codePoint)) {
+                throw new IllegalStateException("Character reference out of range: &" + entity + ";");
+            }
+            return codePoint;
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Malformed character reference: &" + entity + ";", e);
+        }
+    }
+
+    private boolean regionEquals(int start, int end, byte[] expected) {
+        if (end - start != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(int from, String prefix) {
+        if (from + prefix.length() > limit) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer.get(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(char target, int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int requireIndexOf(int target, int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unexpected end of document, expected '" + (char) target + "'");
+    }
+
+    private int indexOf(byte[] targetBytes, int from) {
+        for (int i = from; i <= limit - targetBytes.length; i++) {
+            if (regionEquals(i, i + targetBytes.length, targetBytes)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Unexpected end of document, expected '" +
+                new String(targetBytes, StandardCharsets.US_ASCII) + "'");
+    }
+
+    private void skipWhitespace() {
+        while (position < limit && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+    }
+
+    private byte byteAt(int index) {
+        if (index >= limit) {
+            throw new IllegalStateException("Unexpected end of document");
+        }
+        return buffer.get(index);
+    }
+
+    private static boolean isNameEnd(byte value) {
+        return isWhitespace(value) || value == '>' || value == '/';
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+}
@@ -1,138 +1,218 @@
 package com.kopylov.ioc.reader.stax;
 
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
 import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.metrics.StartupRecorder;
 import com.kopylov.ioc.reader.BeanDefinitionReader;
+import com.kopylov.ioc.reader.ParsedResource;
+import com.kopylov.ioc.reader.ResourceContentHandler;
+import com.kopylov.ioc.reader.ResourceGraphReader;
 import lombok.extern.slf4j.Slf4j;
 
-import javax.xml.namespace.QName;
-import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.events.Attribute;
-import javax.xml.stream.events.EndElement;
-import javax.xml.stream.events.StartElement;
-import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.XMLStreamReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 @Slf4j
 public class XmlBeanDefinitionStaxReader implements BeanDefinitionReader {
 
+    private static final String BEAN = "bean";
+    private static final String PROPERTY = "property";
+    private static final String CONSTRUCTOR_ARG = "constructor-arg";
+    private static final String CACHE = "cache";
+    private static final String IMPORT = "import";
+    private static final String ID = "id";
+    private static final String CLASS = "class";
+    private static final String LAZY_INIT = "lazy-init";
+    private static final String SCOPE = "scope";
+    private static final String POOL_SIZE = "pool-size";
+    private static final String INIT_METHOD = "init-method";
+    private static final String DESTROY_METHOD = "destroy-method";
+    private static final String NAME = "name";
+    private static final String REF = "ref";
+    private static final String VALUE = "value";
+    private static final String RESOURCE = "resource";
+    private static final String METHOD = "method";
+    private static final String MAX_SIZE = "max-size";
+    private static final String TTL = "ttl";
+
     private final String[] paths;
     private final XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+    private final ResourceGraphReader resourceGraphReader;
 
     public XmlBeanDefinitionStaxReader(String... paths) {
+        this(ForkJoinPool.commonPool(), paths);
+    }
+
+    /**
+     * @param executor executor that parses the given paths and their imports concurrently
+     */
+    public XmlBeanDefinitionStaxReader(Executor executor, String... paths) {
         this.paths = paths;
+        this.resourceGraphReader = new ResourceGraphReader(executor, this::readResource);
     }
 
     @Override
     public List<BeanDefinition> readBeanDefinition() {
         List<BeanDefinition> beanDefinitions = new ArrayList<>();
-        for (String path : paths) {
-            try (InputStream inputStream = getClass().getResourceAsStream(path)) {
-                beanDefinitions.addAll(inputStreamBeanDefinitionReader(inputStream));
-            } catch (IOException e) {
-                log.error("I/O error occurred while reading the XML file", e);
-                throw new BeanDefinitionReadException("I/O error occurred while reading the XML file", e);
-            } catch (XMLStreamException e) {
-                log.error("Error while parsing the XML" + e);
-                throw new BeanDefinitionReadException("Error while parsing the XML", e);
-            }
-        }
+        readBeanDefinition(beanDefinitions::add);
         return beanDefinitions;
     }
 
-    List<BeanDefinition> inputStreamBeanDefinitionReader(InputStream inputStream) throws XMLStreamException, IOException {
-        List<BeanDefinition> beanDefinitions = new ArrayList<>();
-        BeanDefinition beanDefinition = null;
-        XMLEventReader reader = xmlInputFactory.createXMLEventReader(inputStream);
-        while (reader.hasNext()) {
-            XMLEvent xmlEvent = reader.nextEvent();
-            if (xmlEvent.isStartElement()) {
-                StartElement startElement = xmlEvent.asStartElement();
-                readImportResources(beanDefinitions, startElement);
-                if (startElement.getName().getLocalPart().equals("bean")) {
-                    beanDefinition = new BeanDefinition();
-                    setIdAndClass(beanDefinition, startElement);
-                } else if (startElement.getName().getLocalPart().equals("property") && beanDefinition != null) {
-                    beanDefinitionPropertySetter(beanDefinition, startElement);
-                }
-            }
-            if (xmlEvent.isEndElement()) {
-                EndElement endElement = xmlEvent.asEndElement();
-                if (endElement.getName().getLocalPart().equals("bean")) {
-                    beanDefinitions.add(beanDefinition);
-                    beanDefinition = null;
-                }
+    @Override
+    public void readBeanDefinition(Consumer<BeanDefinition> consumer) {
+        resourceGraphReader.read(paths, consumer);
+    }
+
+    @Override
+    public void setStartupRecorder(StartupRecorder startupRecorder) {
+        resourceGraphReader.setStartupRecorder(startupRecorder);
+    }
+
+    void readResource(String path, ResourceContentHandler handler) {
+        try (InputStream inputStream = getClass().getResourceAsStream(path)) {
+            if (inputStream == null) {
+                log.warn("XML resource not found: {}", path);
+                return;
             }
+            inputStreamResourceReader(inputStream, ResourceGraphReader::resolveImport, handler);
+        } catch (IOException e) {
+            log.error("I/O error occurred while reading the XML file", e);
+            throw new BeanDefinitionReadException("I/O error occurred while reading the XML file", e);
+        } catch (XMLStreamException e) {
+            log.error("Error while parsing the XML" + e);
+            throw new BeanDefinitionReadException("Error while parsing the XML", e);
         }
-        return beanDefinitions;
     }
 
-    private void readImportResources(List<BeanDefinition> beanDefinitions, StartElement startElement) throws IOException, XMLStreamException {
-        if (startElement.getName().getLocalPart().equals("import")) {
-            Attribute resourceAttribute = startElement.getAttributeByName(new QName("resource"));
-            if (resourceAttribute != null) {
-                String resourcePath = resourceAttribute.getValue();
-                if (!resourcePath.startsWith("/")) {
-                    try (InputStream importedInputStream = getClass().getResourceAsStream("/context/" + resourcePath)) {
-                        if (importedInputStream != null) {
-                            beanDefinitions.addAll(inputStreamBeanDefinitionReader(importedInputStream));
-                        }
-                    }
-                } else {
-                    try (InputStream importedInputStream = getClass().getResourceAsStream("/context" + resourcePath)) {
-                        if (importedInputStream != null) {
-                            beanDefinitions.addAll(inputStreamBeanDefinitionReader(importedInputStream));
+    List<BeanDefinition> inputStreamBeanDefinitionReader(InputStream inputStream) throws XMLStreamException {
+        return inputStreamResourceReader(inputStream).getBeanDefinitions();
+    }
+
+    ParsedResource inputStreamResourceReader(InputStream inputStream) throws XMLStreamException {
+        return inputStreamResourceReader(inputStream, ResourceGraphReader::resolveImport);
+    }
+
+    /**
+     * Parses a single resource without following its imports.
+     *
+     * @param importResolver maps the {@code resource} attribute of an import to the path it is read from
+     */
+    public ParsedResource inputStreamResourceReader(InputStream inputStream, UnaryOperator<String> importResolver)
+            throws XMLStreamException {
+        ParsedResource parsedResource = new ParsedResource();
+        inputStreamResourceReader(inputStream, importResolver, parsedResource);
+        return parsedResource;
+    }
+
+    /**
+     * Parses a single resource without following its imports, handing each bean definition and import to
+     * the handler as soon as its element is read.
+     *
+     * @param importResolver maps the {@code resource} attribute of an import to the path it is read from
+     */
+    public void inputStreamResourceReader(InputStream inputStream, UnaryOperator<String> importResolver,
+                                          ResourceContentHandler handler) throws XMLStreamException {
+        BeanDefinition beanDefinition = null;
+        XMLStreamReader reader;
+        synchronized (xmlInputFactory) {
+            reader = xmlInputFactory.createXMLStreamReader(inputStream);
+        }
+        try {
+            while (reader.hasNext()) {
+                int eventType = reader.next();
+                if (eventType == XMLStreamConstants.START_ELEMENT) {
+                    String localName = reader.getLocalName();
+                    if (BEAN.equals(localName)) {
+                        beanDefinition = new BeanDefinition();
+                        setIdAndClass(beanDefinition, reader);
+                    } else if (PROPERTY.equals(localName) && beanDefinition != null) {
+                        beanDefinitionPropertySetter(beanDefinition, reader);
+                    } else if (CONSTRUCTOR_ARG.equals(localName) && beanDefinition != null) {
+                        addConstructorArg(beanDefinition, reader);
+                    } else if (CACHE.equals(localName) && beanDefinition != null) {
+                        addMethodCache(beanDefinition, reader);
+                    } else if (IMPORT.equals(localName)) {
+                        String resourcePath = reader.getAttributeValue(null, RESOURCE);
+                        if (resourcePath != null) {
+                            handler.addImport(importResolver.apply(resourcePath));
                         }
                     }
+                } else if (eventType == XMLStreamConstants.END_ELEMENT && BEAN.equals(reader.getLocalName())) {
+                    handler.addBeanDefinition(beanDefinition);
+                    beanDefinition = null;
                 }
             }
+        } finally {
+            reader.close();
         }
     }
 
-    private void beanDefinitionPropertySetter(BeanDefinition beanDefinition, StartElement startElement) {
-        Attribute propertyName = startElement.getAttributeByName(new QName("name"));
-        Attribute propertyRef = startElement.getAttributeByName(new QName("ref"));
-        Attribute propertyValue = startElement.getAttributeByName(new QName("value"));
+    private void beanDefinitionPropertySetter(BeanDefinition beanDefinition, XMLStreamReader reader) {
+        String propertyName = reader.getAttributeValue(null, NAME);
+        String propertyRef = reader.getAttributeValue(null, REF);
+        String propertyValue = reader.getAttributeValue(null, VALUE);
         if (propertyName != null && propertyRef != null) {
-            setRefProperty(beanDefinition, propertyName, propertyRef);
+            beanDefinition.getRefProperty().put(propertyName, propertyRef);
         } else if (propertyName != null && propertyValue != null) {
-            setProperty(beanDefinition, propertyName, propertyValue);
+            beanDefinition.getProperty().put(propertyName, propertyValue);
         }
     }
 
-    private void setRefProperty(BeanDefinition beanDefinition, Attribute propertyName, Attribute propertyRef) {
-        if (beanDefinition.getRefProperty() == null) {
-            Map<String, String> refPropertyMap = new HashMap<>();
-            refPropertyMap.put(propertyName.getValue(), propertyRef.getValue());
-            beanDefinition.setRefProperty(refPropertyMap);
+    private void addConstructorArg(BeanDefinition beanDefinition, XMLStreamReader reader) {
+        String argumentRef = reader.getAttributeValue(null, REF);
+        String argumentValue = reader.getAttributeValue(null, VALUE);
+        if (argumentRef != null) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofRef(argumentRef));
+        } else if (argumentValue != null) {
+            beanDefinition.getConstructorArgs().add(ConstructorArgument.ofValue(argumentValue));
         } else {
-            beanDefinition.getRefProperty().put(propertyName.getValue(), propertyRef.getValue());
+            log.error("Constructor argument of bean: {} has neither value nor ref", beanDefinition.getId());
+            throw new IllegalArgumentException("Constructor argument of bean '" + beanDefinition.getId() +
+                    "' must have a 'value' or 'ref' attribute");
         }
     }
 
-    private void setProperty(BeanDefinition beanDefinition, Attribute propertyName, Attribute propertyValue) {
-        if (beanDefinition.getProperty() == null) {
-            Map<String, String> propertyMap = new HashMap<>();
-            propertyMap.put(propertyName.getValue(), propertyValue.getValue());
-            beanDefinition.setProperty(propertyMap);
-        } else {
-            beanDefinition.getProperty().put(propertyName.getValue(), propertyValue.getValue());
+    private void addMethodCache(BeanDefinition beanDefinition, XMLStreamReader reader) {
+        String method = reader.getAttributeValue(null, METHOD);
+        if (method == null) {
+            log.error("Cache of bean: {} has no method", beanDefinition.getId());
+            throw new IllegalArgumentException("Cache of bean '" + beanDefinition.getId() +
+                    "' must have a 'method' attribute");
         }
+        String maxSize = reader.getAttributeValue(null, MAX_SIZE);
+        beanDefinition.getMethodCaches().add(new MethodCacheDefinition(method,
+                maxSize == null ? null : Integer.parseInt(maxSize), reader.getAttributeValue(null, TTL)));
     }
 
-    private void setIdAndClass(BeanDefinition beanDefinition, StartElement startElement) {
-        Attribute idAttribute = startElement.getAttributeByName(new QName("id"));
-        Attribute classAttribute = startElement.getAttributeByName(new QName("class"));
-        if (idAttribute != null && classAttribute != null) {
-            beanDefinition.setId(idAttribute.getValue());
-            beanDefinition.setClazz(classAttribute.getValue());
+    private void setIdAndClass(BeanDefinition beanDefinition, XMLStreamReader reader) {
+        String id = reader.getAttributeValue(null, ID);
+        String clazz = reader.getAttributeValue(null, CLASS);
+        if (id != null && clazz != null) {
+            beanDefinition.setId(id);
+            beanDefinition.setClazz(clazz);
+        }
+        String lazyInit = reader.getAttributeValue(null, LAZY_INIT);
+        if (lazyInit != null) {
+            beanDefinition.setLazyInit(Boolean.parseBoolean(lazyInit));
+        }
+        beanDefinition.setScope(reader.getAttributeValue(null, SCOPE));
+        String poolSize = reader.getAttributeValue(null, POOL_SIZE);
+        if (poolSize != null) {
+            beanDefinition.setPoolSize(Integer.parseInt(poolSize));
         }
+        beanDefinition.setInitMethod(reader.getAttributeValue(null, INIT_METHOD));
+        beanDefinition.setDestroyMethod(reader.getAttributeValue(null, DESTROY_METHOD));
     }
 }
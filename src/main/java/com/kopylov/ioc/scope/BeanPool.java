@@ -0,0 +1,17 @@
+package com.kopylov.ioc.scope;
+
+/**
+ * Reusable instances of a pooled bean. Every borrowed instance should be released once the caller
+ * is done with it, and only once; an instance released into a full pool is dropped.
+ */
+public interface BeanPool<T> {
+
+    T borrow();
+
+    /**
+     * @throws IllegalArgumentException if the instance doesn't belong to this pool or is already idle in it
+     */
+    void release(T instance);
+
+    int getIdleCount();
+}
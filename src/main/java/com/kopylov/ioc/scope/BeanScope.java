@@ -0,0 +1,23 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.util.CreationPlan;
+
+/**
+ * Supplies instances of a bean that is not a singleton. Implementations are called concurrently
+ * from {@code getBean}.
+ */
+public interface BeanScope {
+
+    String SINGLETON = "singleton";
+    String PROTOTYPE = "prototype";
+    String POOLED = "pooled";
+    String THREAD = "thread";
+
+    Object getInstance();
+
+    CreationPlan getCreationPlan();
+
+    default Class<?> getBeanClass() {
+        return getCreationPlan().getBeanClass();
+    }
+}
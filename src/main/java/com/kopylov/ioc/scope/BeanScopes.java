@@ -0,0 +1,74 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.processor.BeanPostProcessors;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import com.kopylov.ioc.util.CreationPlan;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.function.Function;
+
+@Slf4j
+public final class BeanScopes {
+
+    static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    private BeanScopes() {
+    }
+
+    public static boolean isSingleton(BeanDefinition beanDefinition) {
+        String scope = beanDefinition.getScope();
+        return scope == null || BeanScope.SINGLETON.equals(scope);
+    }
+
+    /**
+     * @param refResolver resolves refs of every instance the scope creates
+     */
+    public static BeanScope create(BeanDefinition beanDefinition, Function<String, Bean> refResolver) {
+        return create(beanDefinition, refResolver, ProxyFactory.NONE);
+    }
+
+    /**
+     * @param refResolver  resolves refs of every instance the scope creates
+     * @param proxyFactory wraps every instance the scope creates
+     */
+    public static BeanScope create(BeanDefinition beanDefinition, Function<String, Bean> refResolver,
+                                   ProxyFactory proxyFactory) {
+        return create(beanDefinition, refResolver, proxyFactory, BeanPostProcessors.NONE);
+    }
+
+    /**
+     * Prototype and thread-scoped beans can't declare a destroy method: their instances aren't kept by the
+     * scope, so it would never be called.
+     *
+     * @param refResolver    resolves refs of every instance the scope creates
+     * @param proxyFactory   wraps every instance the scope creates
+     * @param postProcessors applied to every instance the scope creates
+     */
+    public static BeanScope create(BeanDefinition beanDefinition, Function<String, Bean> refResolver,
+                                   ProxyFactory proxyFactory, BeanPostProcessors postProcessors) {
+        String scope = beanDefinition.getScope();
+        if ((BeanScope.PROTOTYPE.equals(scope) || BeanScope.THREAD.equals(scope))
+                && beanDefinition.getDestroyMethod() != null) {
+            log.error("Destroy method: {} of bean: {} is not supported in scope: {}",
+                    beanDefinition.getDestroyMethod(), beanDefinition.getId(), scope);
+            throw new BeanInstantiationException("Destroy method of bean " + beanDefinition.getId() +
+                    " is not supported in scope '" + scope + "'");
+        }
+        if (BeanScope.PROTOTYPE.equals(scope)) {
+            return new PrototypeScope(CreationPlan.of(beanDefinition, proxyFactory, postProcessors), refResolver);
+        }
+        if (BeanScope.POOLED.equals(scope)) {
+            Integer poolSize = beanDefinition.getPoolSize();
+            return new PooledScope(CreationPlan.of(beanDefinition, proxyFactory, postProcessors), refResolver,
+                    poolSize != null ? poolSize : DEFAULT_POOL_SIZE);
+        }
+        if (BeanScope.THREAD.equals(scope)) {
+            return new ThreadScope(CreationPlan.of(beanDefinition, proxyFactory, postProcessors), refResolver);
+        }
+        log.error("Unknown scope: {} of bean: {}", scope, beanDefinition.getId());
+        throw new BeanInstantiationException("Unknown scope '" + scope + "' of bean " + beanDefinition.getId());
+    }
+}
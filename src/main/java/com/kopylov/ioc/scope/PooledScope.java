@@ -0,0 +1,137 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import com.kopylov.ioc.util.CreationPlan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Keeps up to {@code poolSize} idle instances in a fixed array of slots claimed with CAS, so borrowing
+ * and releasing never block. Each thread starts probing at its own slot to keep threads apart.
+ * When no idle instance is found a new one is created, so borrowing never waits either.
+ * <p>
+ * Idle instances are also kept in an identity set: an instance is added to it before it takes a slot and
+ * removed after it leaves one, so of concurrent releases of the same instance only one succeeds.
+ */
+public class PooledScope implements BeanScope, BeanPool<Object> {
+
+    private final CreationPlan creationPlan;
+    private final Function<String, Bean> refResolver;
+    private final AtomicReferenceArray<IdleInstance> idleInstances;
+    private final Set<IdleInstance> idleSet = ConcurrentHashMap.newKeySet();
+
+    public PooledScope(CreationPlan creationPlan, Function<String, Bean> refResolver, int poolSize) {
+        if (poolSize < 1) {
+            throw new IllegalArgumentException("Pool size of bean " + creationPlan.getId() +
+                    " must be positive: " + poolSize);
+        }
+        this.creationPlan = creationPlan;
+        this.refResolver = refResolver;
+        this.idleInstances = new AtomicReferenceArray<>(poolSize);
+    }
+
+    @Override
+    public Object getInstance() {
+        return borrow();
+    }
+
+    @Override
+    public CreationPlan getCreationPlan() {
+        return creationPlan;
+    }
+
+    @Override
+    public Object borrow() {
+        int poolSize = idleInstances.length();
+        int start = firstSlot(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            int slot = (start + i) % poolSize;
+            IdleInstance idleInstance = idleInstances.get(slot);
+            if (idleInstance != null && idleInstances.compareAndSet(slot, idleInstance, null)) {
+                idleSet.remove(idleInstance);
+                return idleInstance.instance;
+            }
+        }
+        return creationPlan.create(refResolver);
+    }
+
+    @Override
+    public void release(Object instance) {
+        if (!creationPlan.getBeanClass().isInstance(ProxyFactory.unwrap(instance))) {
+            throw new IllegalArgumentException("Instance of " + (instance == null ? null : instance.getClass()) +
+                    " doesn't belong to pool of bean " + creationPlan.getId());
+        }
+        IdleInstance idleInstance = new IdleInstance(instance);
+        if (!idleSet.add(idleInstance)) {
+            throw new IllegalArgumentException("Instance of bean " + creationPlan.getId() + " is already released");
+        }
+        int poolSize = idleInstances.length();
+        int start = firstSlot(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            int slot = (start + i) % poolSize;
+            if (idleInstances.get(slot) == null && idleInstances.compareAndSet(slot, null, idleInstance)) {
+                return;
+            }
+        }
+        idleSet.remove(idleInstance);
+    }
+
+    /**
+     * Takes every idle instance out of the pool, so the caller can destroy them. Instances released later
+     * are pooled again.
+     */
+    public List<Object> drain() {
+        List<Object> drained = new ArrayList<>();
+        for (int i = 0; i < idleInstances.length(); i++) {
+            IdleInstance idleInstance = idleInstances.getAndSet(i, null);
+            if (idleInstance != null) {
+                idleSet.remove(idleInstance);
+                drained.add(idleInstance.instance);
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public int getIdleCount() {
+        int idleCount = 0;
+        for (int i = 0; i < idleInstances.length(); i++) {
+            if (idleInstances.get(i) != null) {
+                idleCount++;
+            }
+        }
+        return idleCount;
+    }
+
+    private static int firstSlot(int poolSize) {
+        return (int) (Thread.currentThread().getId() % poolSize);
+    }
+
+    /**
+     * An idle instance compared by identity, since beans may override {@code equals}.
+     */
+    private static final class IdleInstance {
+
+        private final Object instance;
+
+        private IdleInstance(Object instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdleInstance && ((IdleInstance) other).instance == instance;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(instance);
+        }
+    }
+}
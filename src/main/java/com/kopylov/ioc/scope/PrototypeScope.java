@@ -0,0 +1,24 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.util.CreationPlan;
+import lombok.RequiredArgsConstructor;
+
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+public class PrototypeScope implements BeanScope {
+
+    private final CreationPlan creationPlan;
+    private final Function<String, Bean> refResolver;
+
+    @Override
+    public Object getInstance() {
+        return creationPlan.create(refResolver);
+    }
+
+    @Override
+    public CreationPlan getCreationPlan() {
+        return creationPlan;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.util.CreationPlan;
+
+import java.util.function.Function;
+
+/**
+ * One instance per thread, for beans that are cheap to keep around but not thread-safe.
+ * After the first request on a thread, lookups are a plain {@link ThreadLocal} read: no locking and
+ * no allocation. Each scope owns its {@code ThreadLocal}, so instances become collectable together
+ * with their thread or with the context.
+ */
+public class ThreadScope implements BeanScope {
+
+    private final CreationPlan creationPlan;
+    private final ThreadLocal<Object> instances;
+
+    public ThreadScope(CreationPlan creationPlan, Function<String, Bean> refResolver) {
+        this.creationPlan = creationPlan;
+        this.instances = ThreadLocal.withInitial(() -> creationPlan.create(refResolver));
+    }
+
+    @Override
+    public Object getInstance() {
+        return instances.get();
+    }
+
+    @Override
+    public CreationPlan getCreationPlan() {
+        return creationPlan;
+    }
+}
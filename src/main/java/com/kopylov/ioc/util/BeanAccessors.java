@@ -0,0 +1,142 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Creates constructor and setter accessors backed by {@link LambdaMetafactory}, so the JIT can inline them
+ * like ordinary lambdas. Falls back to plain reflection when the bean class is not accessible to a full
+ * privilege lookup (for example when it is loaded by another class loader).
+ */
+@Slf4j
+public final class BeanAccessors {
+
+    private static final MethodType SUPPLIER_FACTORY = MethodType.methodType(Supplier.class);
+    private static final MethodType SUPPLIER_SIGNATURE = MethodType.methodType(Object.class);
+    private static final MethodType BI_CONSUMER_FACTORY = MethodType.methodType(BiConsumer.class);
+    private static final MethodType BI_CONSUMER_SIGNATURE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private BeanAccessors() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Supplier<Object> constructor(Constructor<?> constructor) {
+        Class<?> beanClass = constructor.getDeclaringClass();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "get", SUPPLIER_FACTORY,
+                    SUPPLIER_SIGNATURE, handle, MethodType.methodType(beanClass));
+            return (Supplier<Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            log.debug("Falling back to reflective constructor for class: {}", beanClass.getName(), e);
+            return () -> newInstance(constructor);
+        }
+    }
+
+    /**
+     * Returns a function calling the constructor with an argument array. The method handle is spread
+     * over the array once, so each call only casts and unboxes the arguments.
+     */
+    public static Function<Object[], Object> constructorWithArgs(Constructor<?> constructor) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(constructor.getDeclaringClass(),
+                    MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            MethodHandle spreader = handle.asType(handle.type().generic())
+                    .asSpreader(Object[].class, constructor.getParameterCount());
+            return args -> invokeConstructor(spreader, args);
+        } catch (IllegalAccessException e) {
+            log.debug("Falling back to reflective constructor: {}", constructor, e);
+            return args -> newInstance(constructor, args);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static BiConsumer<Object, Object> setter(Method method) {
+        Class<?> beanClass = method.getDeclaringClass();
+        Class<?> parameterType = method.getParameterTypes()[0];
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(beanClass, MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflect(method);
+            MethodType instantiatedSignature = MethodType.methodType(void.class, beanClass,
+                    MethodType.methodType(parameterType).wrap().returnType());
+            CallSite callSite = LambdaMetafactory.metafactory(lookup, "accept", BI_CONSUMER_FACTORY,
+                    BI_CONSUMER_SIGNATURE, handle, instantiatedSignature);
+            return (BiConsumer<Object, Object>) callSite.getTarget().invokeExact();
+        } catch (Throwable e) {
+            log.debug("Falling back to reflective setter: {}", method, e);
+            return (target, value) -> invoke(method, target, value);
+        }
+    }
+
+    public static BiConsumer<Object, Object> fieldWriter(Field field) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+            MethodHandle handle = lookup.unreflectSetter(field).asType(BI_CONSUMER_SIGNATURE);
+            return (target, value) -> invokeSetter(handle, target, value);
+        } catch (IllegalAccessException e) {
+            log.debug("Falling back to reflective field access: {}", field, e);
+            field.setAccessible(true);
+            return (target, value) -> set(field, target, value);
+        }
+    }
+
+    private static Object newInstance(Constructor<?> constructor, Object... args) {
+        try {
+            return constructor.newInstance(args);
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new BeanInstantiationException("Error with create instance of " +
+                    constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    private static Object invokeConstructor(MethodHandle spreader, Object[] args) {
+        try {
+            return spreader.invokeExact(args);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanInstantiationException("Error with create instance", e);
+        }
+    }
+
+    private static void invoke(Method method, Object target, Object value) {
+        try {
+            method.invoke(target, value);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Error invoking method " + method.getName() + ".", e);
+        }
+    }
+
+    private static void invokeSetter(MethodHandle handle, Object target, Object value) {
+        try {
+            handle.invokeExact(target, value);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Error setting field value.", e);
+        }
+    }
+
+    private static void set(Field field, Object target, Object value) {
+        try {
+            field.set(target, value);
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("Error setting field value " + field.getName() + ".", e);
+        }
+    }
+}
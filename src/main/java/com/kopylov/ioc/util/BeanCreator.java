@@ -1,49 +1,298 @@
 package com.kopylov.ioc.util;
 
+import com.kopylov.ioc.cache.MethodCacheManager;
 import com.kopylov.ioc.entity.Bean;
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
 import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.CircularDependencyException;
 import com.kopylov.ioc.exception.NoSuchBeanException;
+import com.kopylov.ioc.metrics.StartupPhase;
+import com.kopylov.ioc.metrics.StartupRecorder;
+import com.kopylov.ioc.processor.BeanPostProcessors;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 @Slf4j
 public class BeanCreator {
 
     private final List<BeanDefinition> beanDefinitions;
+    private final Executor executor;
+    @Setter
+    private StartupRecorder startupRecorder = StartupRecorder.NONE;
+    /**
+     * Ids of beans managed outside this creator, such as prototypes. Refs to them are neither ordered
+     * nor wired by {@link #createBeans()}; the caller wires them afterwards.
+     */
+    @Setter
+    private Set<String> externalBeanIds = Set.of();
+    /**
+     * Wraps every bean into a proxy right after instantiation. Properties and refs are still set on the bean
+     * itself, while other beans get the proxy injected.
+     */
+    @Setter
+    private ProxyFactory proxyFactory = ProxyFactory.NONE;
+    /**
+     * Adds the method caches a bean definition declares to the interceptors of its proxy.
+     */
+    @Setter
+    private MethodCacheManager methodCacheManager = new MethodCacheManager();
+    /**
+     * Applied to every bean around its init method. Discovered among the created beans by
+     * {@link #initializeBeans(Map, List)} unless already discovered.
+     */
+    @Setter
+    private BeanPostProcessors postProcessors = new BeanPostProcessors();
 
     public BeanCreator(List<BeanDefinition> beanDefinitions) {
+        this(beanDefinitions, null);
+    }
+
+    /**
+     * @param executor executor used to create independent beans concurrently,
+     *                 or {@code null} to create all beans on the calling thread
+     */
+    public BeanCreator(List<BeanDefinition> beanDefinitions, Executor executor) {
         this.beanDefinitions = beanDefinitions;
+        this.executor = executor;
     }
 
+    /**
+     * Creates and wires the beans, then initializes them with {@link #initializeBeans(Map, List)}.
+     */
     public Map<String, Bean> createBeans() {
+        return initializeBeans(createWiredBeans(), beanDefinitions);
+    }
+
+    /**
+     * Same as {@link #createBeans()} without initialization, for callers that wire more refs before
+     * calling {@link #initializeBeans(Map, List)}.
+     */
+    public Map<String, Bean> createWiredBeans() {
+        if (executor != null) {
+            return createBeansInParallel();
+        }
         Map<String, Bean> beans = fillIdAndClass(beanDefinitions);
         beans = fillProperties(beans, beanDefinitions);
         beans = fillRefProperties(beans, beanDefinitions);
         return beans;
     }
 
-    Map<String, Bean> fillIdAndClass(List<BeanDefinition> beanDefinitions) {
-        Map<String, Bean> beans = new HashMap<>();
+    /**
+     * Discovers the bean post processors among the wired beans, unless they are already discovered, and
+     * initializes every bean that has a definition: before-init processors, init method, after-init
+     * processors. A bean is initialized once the beans it references are, so beans without a ref path
+     * between them are initialized concurrently on the executor of this creator, or on the common pool if
+     * it has none; an init method returning a {@link CompletionStage} holds back its dependents without
+     * blocking a thread until the stage completes. Replacements returned by processors are injected into
+     * the ref properties of the given definitions; constructor arguments keep the original bean.
+     *
+     * @return the initialized beans
+     */
+    public Map<String, Bean> initializeBeans(Map<String, Bean> beans, List<BeanDefinition> beanDefinitions) {
+        Map<String, BeanDefinition> definitionsById = new LinkedHashMap<>();
+        boolean hasInitMethods = false;
         for (BeanDefinition beanDefinition : beanDefinitions) {
-            if (beanDefinition != null) {
-                String id = beanDefinition.getId();
+            if (beans.containsKey(beanDefinition.getId())) {
+                definitionsById.put(beanDefinition.getId(), beanDefinition);
+                hasInitMethods |= beanDefinition.getInitMethod() != null;
+            }
+        }
+        if (!postProcessors.isDiscovered()) {
+            List<Object> values = new ArrayList<>();
+            for (String id : definitionsById.keySet()) {
+                values.add(beans.get(id).getValue());
+            }
+            postProcessors.discover(values);
+        }
+        if (postProcessors.isEmpty() && !hasInitMethods) {
+            return beans;
+        }
+        Executor initExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+        Map<String, Bean> initializedBeans = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<Bean>> futures = DependencyOrderedTasks.run(definitionsById.keySet(),
+                id -> DependencyGraph.referencedIds(definitionsById.get(id)),
+                id -> CompletableFuture.supplyAsync(() -> {
+                    BeanDefinition beanDefinition = definitionsById.get(id);
+                    Bean bean = beans.get(id);
+                    injectReplacedRefs(bean, beanDefinition, beans, initializedBeans);
+                    return initializeBeanAsync(bean, beanDefinition);
+                }, initExecutor).thenCompose(initialization -> initialization.thenApply(initializedBean -> {
+                    initializedBeans.put(id, initializedBean);
+                    return initializedBean;
+                })));
+        try {
+            CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanInstantiationException("Error with initialize Beans", e.getCause());
+        }
+        Map<String, Bean> result = new HashMap<>(beans);
+        result.putAll(initializedBeans);
+        for (BeanDefinition beanDefinition : definitionsById.values()) {
+            injectReplacedRefs(result.get(beanDefinition.getId()), beanDefinition, beans, initializedBeans);
+        }
+        return result;
+    }
+
+    /**
+     * Initializes a single wired bean: runs the before-init processors, the init method of its definition
+     * and the after-init processors. Waits for the stage an asynchronous init method returns.
+     *
+     * @return the given bean, or a bean with the replacement a processor returned
+     */
+    public Bean initializeBean(Bean bean, BeanDefinition beanDefinition) {
+        try {
+            return initializeBeanAsync(bean, beanDefinition).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanInstantiationException("Error with initialize Bean " + bean.getId(), e.getCause());
+        }
+    }
+
+    /**
+     * Same as {@link #initializeBean(Bean, BeanDefinition)}, except that the after-init processors run once
+     * the stage returned by an asynchronous init method completes, on the thread completing it. The
+     * before-init processors and the init method itself run on the calling thread.
+     *
+     * @return future of the given bean, or of a bean with the replacement a processor returned
+     */
+    public CompletableFuture<Bean> initializeBeanAsync(Bean bean, BeanDefinition beanDefinition) {
+        String id = bean.getId();
+        Object value = bean.getValue();
+        if (!postProcessors.isEmpty()) {
+            StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.POST_PROCESS, id);
+            try {
+                value = postProcessors.applyBeforeInitialization(id, value);
+            } finally {
+                timer.stop();
+            }
+        }
+        String initMethod = beanDefinition.getInitMethod();
+        CompletableFuture<?> initialization = CompletableFuture.completedFuture(null);
+        if (initMethod != null) {
+            StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.INITIALIZE, id);
+            try {
+                Object target = ProxyFactory.unwrap(bean.getValue());
+                Object result = InjectionPlan.forClass(target.getClass()).invokeLifecycleMethod(target, id, initMethod);
+                if (result instanceof CompletionStage) {
+                    initialization = ((CompletionStage<?>) result).toCompletableFuture();
+                }
+            } finally {
+                timer.stop();
+            }
+        }
+        Object initializedValue = value;
+        return initialization.thenApply(ignored -> {
+            Object processedValue = initializedValue;
+            if (!postProcessors.isEmpty()) {
+                StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.POST_PROCESS, id);
                 try {
-                    Object object = Class.forName(beanDefinition.getClazz()).getConstructor().newInstance();
-                    Bean bean = new Bean(id, object);
-                    beans.put(id, bean);
-                } catch (Exception e) {
-                    log.error("Failed to create Bean from BeanDefinition: {}" + id, e);
-                    throw new BeanInstantiationException("Error with create Bean from BeanDefinition", e);
+                    processedValue = postProcessors.applyAfterInitialization(id, processedValue);
+                } finally {
+                    timer.stop();
                 }
             }
+            return processedValue == bean.getValue() ? bean : new Bean(id, processedValue);
+        });
+    }
+
+    /**
+     * Sets the ref properties of the bean that point to beans a processor has already replaced.
+     */
+    private void injectReplacedRefs(Bean bean, BeanDefinition beanDefinition, Map<String, Bean> originalBeans,
+                                    Map<String, Bean> initializedBeans) {
+        for (Map.Entry<String, String> refProperty : beanDefinition.getRefProperty().entrySet()) {
+            Bean refBean = initializedBeans.get(refProperty.getValue());
+            if (refBean != null && refBean != originalBeans.get(refProperty.getValue())) {
+                setBeanRefProperty(refProperty.getKey(), bean, refBean);
+            }
+        }
+    }
+
+    Map<String, Bean> createBeansInParallel() {
+        DependencyGraph dependencyGraph = DependencyGraph.of(beanDefinitions, externalBeanIds::contains);
+        Map<String, BeanDefinition> definitionsById = new HashMap<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            definitionsById.put(beanDefinition.getId(), beanDefinition);
+        }
+
+        Map<String, CompletableFuture<Bean>> futures = new HashMap<>();
+        CompletableFuture<Void> firstFailure = new CompletableFuture<>();
+        for (String id : dependencyGraph.topologicalOrder()) {
+            BeanDefinition beanDefinition = definitionsById.get(id);
+            Map<String, CompletableFuture<Bean>> dependencyFutures = new HashMap<>();
+            for (String dependency : dependencyGraph.getDependencies(id)) {
+                dependencyFutures.put(dependency, futures.get(dependency));
+            }
+            CompletableFuture<Void> dependenciesCreated = CompletableFuture.allOf(
+                    dependencyFutures.values().toArray(CompletableFuture[]::new));
+            CompletableFuture<Bean> instantiated = DependencyGraph.hasConstructorRefs(beanDefinition)
+                    ? dependenciesCreated.thenApplyAsync(ignored -> createBean(beanDefinition,
+                    refId -> dependencyFutures.containsKey(refId) ? dependencyFutures.get(refId).join() : null),
+                    executor)
+                    : CompletableFuture.supplyAsync(() -> createBean(beanDefinition), executor);
+            CompletableFuture<Bean> future = instantiated
+                    .thenCombine(dependenciesCreated, (bean, ignored) -> {
+                        injectRefProperties(bean, beanDefinition, refId -> dependencyFutures.get(refId).join(),
+                                externalBeanIds);
+                        return bean;
+                    });
+            future.whenComplete((bean, e) -> {
+                if (e != null) {
+                    firstFailure.completeExceptionally(e);
+                }
+            });
+            futures.put(id, future);
+        }
+
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)),
+                    firstFailure).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanInstantiationException("Error with create Beans in parallel", e.getCause());
+        }
+        Map<String, Bean> beans = new HashMap<>();
+        futures.forEach((id, future) -> beans.put(id, future.join()));
+        return beans;
+    }
+
+    /**
+     * Instantiates the beans so that every bean comes after the beans its constructor references.
+     */
+    Map<String, Bean> fillIdAndClass(List<BeanDefinition> beanDefinitions) {
+        Map<String, BeanDefinition> definitionsById = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            if (beanDefinition != null) {
+                definitionsById.put(beanDefinition.getId(), beanDefinition);
+            }
+        }
+        DependencyGraph constructorGraph = DependencyGraph.ofConstructorArgs(new ArrayList<>(definitionsById.values()));
+        Map<String, Bean> beans = new HashMap<>();
+        for (String id : constructorGraph.topologicalOrder()) {
+            beans.put(id, instantiate(definitionsById.get(id), beans::get));
         }
         return beans;
     }
@@ -56,97 +305,125 @@ public class BeanCreator {
                 log.error("Can't find Bean with id: {}" + id);
                 throw new IllegalArgumentException("Bean with id '" + id + "' not found.");
             }
-            Field[] fields = bean.getValue().getClass().getDeclaredFields();
-            Set<Map.Entry<String, String>> properties = beanDefinition.getProperty().entrySet();
-            propertyReader(bean, fields, properties);
+            injectProperties(bean, beanDefinition);
         }
         return beans;
     }
 
     Map<String, Bean> fillRefProperties(Map<String, Bean> beans, List<BeanDefinition> beanDefinitions) {
         for (BeanDefinition beanDefinition : beanDefinitions) {
-            String beanDefinitionId = beanDefinition.getId();
-            if (beans.containsKey(beanDefinitionId)) {
-                if (!beanDefinition.getRefProperty().isEmpty()) {
-                    for (Map.Entry<String, String> refProperty : beanDefinition.getRefProperty().entrySet()) {
-                        String beanKey = refProperty.getKey();
-                        if (beans.containsKey(beanKey)) {
-                            Bean beanWithRefProperty = beans.get(beanDefinitionId);
-                            Bean refBean = beans.get(beanKey);
-                            setBeanRefProperty(beanKey, beanWithRefProperty, refBean);
-                        } else {
-                            log.error("No such Bean with key: {} in map" + beanKey);
-                            throw new NoSuchBeanException(beanKey);
-                        }
-                    }
-                }
+            Bean beanWithRefProperty = beans.get(beanDefinition.getId());
+            if (beanWithRefProperty != null) {
+                injectRefProperties(beanWithRefProperty, beanDefinition, beans::get, externalBeanIds);
             }
         }
         return beans;
     }
 
-    private void setBeanRefProperty(String beanKey, Bean beanWithRefProperty, Bean refBean) {
+    /**
+     * Creates a single bean and sets its value properties. Ref properties are left for
+     * {@link #injectRefProperties(Bean, BeanDefinition, Function)}.
+     */
+    public Bean createBean(BeanDefinition beanDefinition) {
+        return createBean(beanDefinition, refId -> null);
+    }
+
+    /**
+     * Same as {@link #createBean(BeanDefinition)} for a definition whose constructor references other beans.
+     *
+     * @param constructorRefResolver returns the bean for an id referenced by a constructor argument,
+     *                               or {@code null} if there is none
+     */
+    public Bean createBean(BeanDefinition beanDefinition, Function<String, Bean> constructorRefResolver) {
+        Bean bean = instantiate(beanDefinition, constructorRefResolver);
+        injectProperties(bean, beanDefinition);
+        return bean;
+    }
+
+    private Bean instantiate(BeanDefinition beanDefinition, Function<String, Bean> constructorRefResolver) {
+        String id = beanDefinition.getId();
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.LOAD_CLASS, id);
         try {
-            Field declaredField = beanWithRefProperty.getValue().getClass().getDeclaredField(beanKey);
-            declaredField.setAccessible(true);
-            declaredField.set(beanWithRefProperty.getValue(), refBean.getValue());
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            log.error("Error when trying to add ref properties for Bean with key: {}" + beanKey, e);
-            throw new RuntimeException("Error setting field value " + beanKey + ".", e);
+            Class<?> beanClass = Class.forName(beanDefinition.getClazz());
+            timer.stop();
+            timer = startupRecorder.start(StartupPhase.INSTANTIATE, id);
+            InjectionPlan injectionPlan = InjectionPlan.forClass(beanClass);
+            Object[] args = injectionPlan.prepareConstructorArgs(id, beanDefinition.getConstructorArgs());
+            resolveConstructorRefs(beanDefinition, args, constructorRefResolver);
+            Object instance = injectionPlan.newInstance(id, args);
+            return new Bean(id, methodCacheManager.proxyFactoryFor(beanDefinition, proxyFactory).proxy(id, instance));
+        } catch (NoSuchBeanException | CircularDependencyException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to create Bean from BeanDefinition: {}" + id, e);
+            throw new BeanInstantiationException("Error with create Bean from BeanDefinition", e);
+        } finally {
+            timer.stop();
         }
     }
 
-    private void propertyReader(Bean bean, Field[] fields, Set<Map.Entry<String, String>> properties) {
-        for (Map.Entry<String, String> property : properties) {
-            String propertyName = property.getKey();
-            String propertyValue = property.getValue();
-            String setMethodName = "set" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
-            Class<?> fieldType = fieldTypeReader(propertyName, fields);
-            try {
-                Method setMethod = bean.getValue().getClass().getMethod(setMethodName, fieldType);
-                Object convertedField = convertToType(propertyValue, fieldType);
-                setMethod.invoke(bean.getValue(), convertedField);
-            } catch (NoSuchMethodException e) {
-                log.error("No such method:{} for property: {}", setMethodName, propertyName, e);
-                throw new IllegalArgumentException("Set method " + setMethodName +
-                        " not found for property " + propertyName + ".");
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                log.error("Error during property with name: {} setting for Bean: {}" + propertyName, bean.getId(), e);
-                throw new RuntimeException("Error setting property " + propertyName +
-                        " for bean " + bean.getId() + ".", e);
-            }
-        }
-    }
-
-    private Class<?> fieldTypeReader(String propertyName, Field[] fields) {
-        Class<?> fieldType = null;
-        for (Field field : fields) {
-            if (field.getName().equalsIgnoreCase(propertyName)) {
-                fieldType = field.getType();
-            }
-        }
-        return fieldType;
-    }
-
-    private Object convertToType(String value, Class<?> fieldType) {
-        if (fieldType == String.class) {
-            return value;
-        }
-        if (fieldType == int.class || fieldType == Integer.class) {
-            return Integer.parseInt(value);
-        } else if (fieldType == double.class || fieldType == Double.class) {
-            return Double.parseDouble(value);
-        } else if (fieldType == long.class || fieldType == Long.class) {
-            return Long.parseLong(value);
-        } else if (fieldType == boolean.class || fieldType == Boolean.class) {
-            return Boolean.parseBoolean(value);
-        } else if (fieldType == float.class || fieldType == Float.class) {
-            return Float.parseFloat(value);
-        } else if (fieldType == byte.class || fieldType == Byte.class) {
-            return Byte.parseByte(value);
-        } else {
-            log.error("Unsupported filedType: {}" + fieldType.getName());
-            throw new IllegalArgumentException("Unsupported fieldType: " + fieldType.getName());
+    private void resolveConstructorRefs(BeanDefinition beanDefinition, Object[] args,
+                                        Function<String, Bean> constructorRefResolver) {
+        List<ConstructorArgument> constructorArgs = beanDefinition.getConstructorArgs();
+        for (int i = 0; i < args.length; i++) {
+            String refId = constructorArgs.get(i).getRef();
+            if (refId != null) {
+                Bean refBean = constructorRefResolver.apply(refId);
+                if (refBean == null) {
+                    log.error("No such Bean with key: {} for constructor of: {}", refId, beanDefinition.getId());
+                    throw new NoSuchBeanException(refId);
+                }
+                args[i] = refBean.getValue();
+            }
+        }
+    }
+
+    private void injectProperties(Bean bean, BeanDefinition beanDefinition) {
+        if (beanDefinition.getProperty().isEmpty()) {
+            return;
+        }
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.SET_PROPERTIES, bean.getId());
+        try {
+            Object value = ProxyFactory.unwrap(bean.getValue());
+            InjectionPlan injectionPlan = InjectionPlan.forClass(value.getClass());
+            for (Map.Entry<String, String> property : beanDefinition.getProperty().entrySet()) {
+                injectionPlan.injectProperty(value, bean.getId(), property.getKey(), property.getValue());
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+    public void injectRefProperties(Bean bean, BeanDefinition beanDefinition, Function<String, Bean> refResolver) {
+        injectRefProperties(bean, beanDefinition, refResolver, Set.of());
+    }
+
+    private void injectRefProperties(Bean bean, BeanDefinition beanDefinition, Function<String, Bean> refResolver,
+                                     Set<String> skippedIds) {
+        if (beanDefinition.getRefProperty().isEmpty()) {
+            return;
+        }
+        StartupRecorder.Timer timer = startupRecorder.start(StartupPhase.WIRE_REFS, bean.getId());
+        try {
+            for (Map.Entry<String, String> refProperty : beanDefinition.getRefProperty().entrySet()) {
+                String refId = refProperty.getValue();
+                if (skippedIds.contains(refId)) {
+                    continue;
+                }
+                Bean refBean = refResolver.apply(refId);
+                if (refBean == null) {
+                    log.error("No such Bean with key: {} in map", refId);
+                    throw new NoSuchBeanException(refId);
+                }
+                setBeanRefProperty(refProperty.getKey(), bean, refBean);
+            }
+        } finally {
+            timer.stop();
         }
     }
+
+    private void setBeanRefProperty(String fieldName, Bean beanWithRefProperty, Bean refBean) {
+        Object value = ProxyFactory.unwrap(beanWithRefProperty.getValue());
+        InjectionPlan.forClass(value.getClass()).injectRef(value, fieldName, refBean.getValue());
+    }
 }
@@ -0,0 +1,166 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.entity.Bean;
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.NoSuchBeanException;
+import com.kopylov.ioc.factory.AsyncFactoryBean;
+import com.kopylov.ioc.processor.BeanPostProcessors;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Recipe for building instances of one bean definition. The class is loaded, the constructor resolved and
+ * every literal constructor argument and property value converted once, so beans created many times
+ * (prototype and pooled scopes) never go back to the {@link BeanDefinition}.
+ */
+@Slf4j
+public class CreationPlan {
+
+    @Getter
+    private final String id;
+    @Getter
+    private final Class<?> beanClass;
+    private final InjectionPlan injectionPlan;
+    private final Object[] constructorArgs;
+    private final String[] constructorRefIds;
+    private final List<Consumer<Object>> propertyInjections;
+    private final String[] refFieldNames;
+    private final String[] refIds;
+    private final String initMethod;
+    private final ProxyFactory proxyFactory;
+    private final BeanPostProcessors postProcessors;
+
+    private CreationPlan(String id, Class<?> beanClass, Object[] constructorArgs, String[] constructorRefIds,
+                         List<Consumer<Object>> propertyInjections, String[] refFieldNames, String[] refIds,
+                         String initMethod, ProxyFactory proxyFactory, BeanPostProcessors postProcessors) {
+        this.id = id;
+        this.beanClass = beanClass;
+        this.injectionPlan = InjectionPlan.forClass(beanClass);
+        this.constructorArgs = constructorArgs;
+        this.constructorRefIds = constructorRefIds;
+        this.propertyInjections = propertyInjections;
+        this.refFieldNames = refFieldNames;
+        this.refIds = refIds;
+        this.initMethod = initMethod;
+        this.proxyFactory = proxyFactory;
+        this.postProcessors = postProcessors;
+    }
+
+    public static CreationPlan of(BeanDefinition beanDefinition) {
+        return of(beanDefinition, ProxyFactory.NONE);
+    }
+
+    /**
+     * @param proxyFactory wraps every created instance once it is fully initialized
+     */
+    public static CreationPlan of(BeanDefinition beanDefinition, ProxyFactory proxyFactory) {
+        return of(beanDefinition, proxyFactory, BeanPostProcessors.NONE);
+    }
+
+    /**
+     * @param proxyFactory   wraps every created instance once it is fully initialized
+     * @param postProcessors applied to every created instance after it is wrapped, around its init method
+     */
+    public static CreationPlan of(BeanDefinition beanDefinition, ProxyFactory proxyFactory,
+                                  BeanPostProcessors postProcessors) {
+        String id = beanDefinition.getId();
+        Class<?> beanClass;
+        try {
+            beanClass = Class.forName(beanDefinition.getClazz());
+        } catch (ClassNotFoundException e) {
+            log.error("Can't load class of bean: {}", id, e);
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClazz(), e);
+        }
+        InjectionPlan injectionPlan = InjectionPlan.forClass(beanClass);
+        List<ConstructorArgument> constructorArgDefinitions = beanDefinition.getConstructorArgs();
+        Object[] constructorArgs = injectionPlan.prepareConstructorArgs(id, constructorArgDefinitions);
+        String[] constructorRefIds = new String[constructorArgs.length];
+        for (int i = 0; i < constructorRefIds.length; i++) {
+            constructorRefIds[i] = constructorArgDefinitions.get(i).getRef();
+        }
+        List<Consumer<Object>> propertyInjections = new ArrayList<>(beanDefinition.getProperty().size());
+        for (Map.Entry<String, String> property : beanDefinition.getProperty().entrySet()) {
+            propertyInjections.add(injectionPlan.prepareProperty(id, property.getKey(), property.getValue()));
+        }
+        Map<String, String> refProperty = beanDefinition.getRefProperty();
+        String[] refFieldNames = refProperty.keySet().toArray(String[]::new);
+        String[] refIds = refProperty.values().toArray(String[]::new);
+        return new CreationPlan(id, beanClass, constructorArgs, constructorRefIds, List.copyOf(propertyInjections),
+                refFieldNames, refIds, beanDefinition.getInitMethod(), proxyFactory, postProcessors);
+    }
+
+    /**
+     * Creates a fully initialized instance. Waits for the stage of an asynchronous init method and, for an
+     * {@link AsyncFactoryBean}, returns the object it produces.
+     *
+     * @param refResolver returns the bean for a referenced id, or {@code null} if there is none
+     */
+    public Object create(Function<String, Bean> refResolver) {
+        Object instance = injectionPlan.newInstance(id, resolveConstructorArgs(refResolver));
+        for (Consumer<Object> propertyInjection : propertyInjections) {
+            propertyInjection.accept(instance);
+        }
+        for (int i = 0; i < refIds.length; i++) {
+            injectionPlan.injectRef(instance, refFieldNames[i], resolveRef(refIds[i], refResolver));
+        }
+        Object bean = postProcessors.applyBeforeInitialization(id, proxyFactory.proxy(id, instance));
+        if (initMethod != null) {
+            Object result = injectionPlan.invokeLifecycleMethod(instance, id, initMethod);
+            if (result instanceof CompletionStage) {
+                await((CompletionStage<?>) result);
+            }
+        }
+        bean = postProcessors.applyAfterInitialization(id, bean);
+        if (bean instanceof AsyncFactoryBean) {
+            bean = await(((AsyncFactoryBean<?>) bean).getObjectAsync());
+            if (bean == null) {
+                log.error("Factory of Bean: {} produced null", id);
+                throw new BeanInstantiationException("Factory of bean " + id + " produced null");
+            }
+        }
+        return bean;
+    }
+
+    private Object await(CompletionStage<?> stage) {
+        try {
+            return stage.toCompletableFuture().join();
+        } catch (CompletionException e) {
+            log.error("Asynchronous initialization of Bean: {} failed", id, e.getCause());
+            throw new BeanInstantiationException("Asynchronous initialization of bean " + id + " failed",
+                    e.getCause());
+        }
+    }
+
+    private Object[] resolveConstructorArgs(Function<String, Bean> refResolver) {
+        if (constructorArgs.length == 0) {
+            return constructorArgs;
+        }
+        Object[] args = constructorArgs.clone();
+        for (int i = 0; i < args.length; i++) {
+            if (constructorRefIds[i] != null) {
+                args[i] = resolveRef(constructorRefIds[i], refResolver);
+            }
+        }
+        return args;
+    }
+
+    private Object resolveRef(String refId, Function<String, Bean> refResolver) {
+        Bean refBean = refResolver.apply(refId);
+        if (refBean == null) {
+            log.error("No such Bean with key: {} referenced by: {}", refId, id);
+            throw new NoSuchBeanException(refId);
+        }
+        return refBean.getValue();
+    }
+}
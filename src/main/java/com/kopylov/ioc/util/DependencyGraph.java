@@ -0,0 +1,150 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.exception.CircularDependencyException;
+import com.kopylov.ioc.exception.NoSuchBeanException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Directed graph of bean ids built from the ref properties and constructor refs of bean definitions.
+ * An edge points from a bean to every bean it references.
+ */
+@Slf4j
+public class DependencyGraph {
+
+    private final Map<String, List<String>> dependencies;
+
+    private DependencyGraph(Map<String, List<String>> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    public static DependencyGraph of(List<BeanDefinition> beanDefinitions) {
+        return of(beanDefinitions, refId -> false);
+    }
+
+    /**
+     * @param isExternal tells which refs point to beans managed outside the given definitions;
+     *                   they add no edge and need not be among the definitions
+     */
+    public static DependencyGraph of(List<BeanDefinition> beanDefinitions, Predicate<String> isExternal) {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            List<String> refIds = new ArrayList<>();
+            for (String refId : referencedIds(beanDefinition)) {
+                if (!isExternal.test(refId)) {
+                    refIds.add(refId);
+                }
+            }
+            dependencies.put(beanDefinition.getId(), refIds);
+        }
+        for (Map.Entry<String, List<String>> entry : dependencies.entrySet()) {
+            for (String refId : entry.getValue()) {
+                if (!dependencies.containsKey(refId)) {
+                    log.error("Bean: {} references missing bean: {}", entry.getKey(), refId);
+                    throw new NoSuchBeanException(refId);
+                }
+            }
+        }
+        return new DependencyGraph(dependencies);
+    }
+
+    /**
+     * Graph of constructor refs only. Unlike ref properties these can't be wired after instantiation,
+     * so any cycle in it can't be resolved. Refs to beans outside the given definitions add no edge.
+     */
+    public static DependencyGraph ofConstructorArgs(List<BeanDefinition> beanDefinitions) {
+        Map<String, List<String>> dependencies = new LinkedHashMap<>();
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            dependencies.put(beanDefinition.getId(), new ArrayList<>());
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            for (ConstructorArgument constructorArg : beanDefinition.getConstructorArgs()) {
+                if (constructorArg.isRef() && dependencies.containsKey(constructorArg.getRef())) {
+                    dependencies.get(beanDefinition.getId()).add(constructorArg.getRef());
+                }
+            }
+        }
+        return new DependencyGraph(dependencies);
+    }
+
+    /**
+     * Returns ids of all beans the definition references, through ref properties and constructor refs.
+     */
+    public static List<String> referencedIds(BeanDefinition beanDefinition) {
+        List<String> refIds = new ArrayList<>(beanDefinition.getRefProperty().values());
+        for (ConstructorArgument constructorArg : beanDefinition.getConstructorArgs()) {
+            if (constructorArg.isRef()) {
+                refIds.add(constructorArg.getRef());
+            }
+        }
+        return refIds;
+    }
+
+    public static boolean hasConstructorRefs(BeanDefinition beanDefinition) {
+        for (ConstructorArgument constructorArg : beanDefinition.getConstructorArgs()) {
+            if (constructorArg.isRef()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<String> getDependencies(String id) {
+        return dependencies.getOrDefault(id, List.of());
+    }
+
+    /**
+     * Returns bean ids ordered so that every bean comes after all beans it references. The depth-first
+     * search keeps its path on an explicit stack, so long reference chains can't overflow the thread stack.
+     *
+     * @throws CircularDependencyException with the ids forming the first cycle found
+     */
+    public List<String> topologicalOrder() {
+        List<String> order = new ArrayList<>(dependencies.size());
+        Map<String, Boolean> visited = new HashMap<>();
+        List<String> path = new ArrayList<>();
+        Deque<Iterator<String>> pendingDependencies = new ArrayDeque<>();
+        for (String rootId : dependencies.keySet()) {
+            if (visited.containsKey(rootId)) {
+                continue;
+            }
+            visited.put(rootId, false);
+            path.add(rootId);
+            pendingDependencies.push(getDependencies(rootId).iterator());
+            while (!pendingDependencies.isEmpty()) {
+                Iterator<String> dependencyIterator = pendingDependencies.peek();
+                if (!dependencyIterator.hasNext()) {
+                    pendingDependencies.pop();
+                    String id = path.remove(path.size() - 1);
+                    visited.put(id, true);
+                    order.add(id);
+                    continue;
+                }
+                String dependency = dependencyIterator.next();
+                Boolean finished = visited.get(dependency);
+                if (finished == null) {
+                    visited.put(dependency, false);
+                    path.add(dependency);
+                    pendingDependencies.push(getDependencies(dependency).iterator());
+                } else if (!finished) {
+                    List<String> cycle = new ArrayList<>(path.subList(path.indexOf(dependency), path.size()));
+                    cycle.add(dependency);
+                    log.error("Circular dependency found: {}", cycle);
+                    throw new CircularDependencyException(cycle);
+                }
+            }
+        }
+        return order;
+    }
+}
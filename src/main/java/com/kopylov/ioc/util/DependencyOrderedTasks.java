@@ -0,0 +1,67 @@
+package com.kopylov.ioc.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Starts one task per bean id as soon as the tasks of the beans it depends on have completed, so beans
+ * without a path between them run concurrently. Dependencies outside the given ids are ignored, and so is
+ * every dependency that would close a cycle; ref properties may form cycles, and the beans on a cycle
+ * then run in the order they are reached.
+ */
+public final class DependencyOrderedTasks {
+
+    private DependencyOrderedTasks() {
+    }
+
+    /**
+     * @param dependencies returns the ids whose tasks must complete before the task of the given id starts
+     * @param task         starts the task of an id; a failed task fails the tasks of everything that
+     *                     depends on it without starting them
+     * @return futures of all tasks by id, in the order of {@code ids}
+     */
+    public static <T> Map<String, CompletableFuture<T>> run(Collection<String> ids,
+                                                            Function<String, ? extends Collection<String>> dependencies,
+                                                            Function<String, CompletableFuture<T>> task) {
+        Map<String, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        Set<String> idSet = new HashSet<>(ids);
+        Set<String> path = new HashSet<>();
+        for (String id : ids) {
+            schedule(id, idSet, dependencies, task, futures, path);
+        }
+        Map<String, CompletableFuture<T>> orderedFutures = new LinkedHashMap<>();
+        for (String id : ids) {
+            orderedFutures.put(id, futures.get(id));
+        }
+        return orderedFutures;
+    }
+
+    private static <T> CompletableFuture<T> schedule(String id, Set<String> idSet,
+                                                     Function<String, ? extends Collection<String>> dependencies,
+                                                     Function<String, CompletableFuture<T>> task,
+                                                     Map<String, CompletableFuture<T>> futures, Set<String> path) {
+        CompletableFuture<T> future = futures.get(id);
+        if (future != null) {
+            return future;
+        }
+        path.add(id);
+        List<CompletableFuture<T>> dependencyFutures = new ArrayList<>();
+        for (String dependency : dependencies.apply(id)) {
+            if (idSet.contains(dependency) && !path.contains(dependency)) {
+                dependencyFutures.add(schedule(dependency, idSet, dependencies, task, futures, path));
+            }
+        }
+        path.remove(id);
+        future = CompletableFuture.allOf(dependencyFutures.toArray(CompletableFuture[]::new))
+                .thenCompose(ignored -> task.apply(id));
+        futures.put(id, future);
+        return future;
+    }
+}
@@ -0,0 +1,265 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.convert.ConversionService;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reflection metadata of a bean class resolved once and shared by every bean of that class.
+ * Setters and field types are looked up on first use of a property and cached,
+ * and so is the constructor used for each number of constructor arguments. Values are converted to the
+ * generic parameter type of the setter or constructor by the default {@link ConversionService}.
+ * Plans are kept in a {@link ClassValue}, so they don't keep the bean class and its class loader reachable.
+ */
+@Slf4j
+public class InjectionPlan {
+
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> beanClass) {
+            return new InjectionPlan(beanClass);
+        }
+    };
+
+    private final Class<?> beanClass;
+    private final Map<String, Class<?>> fieldTypes;
+    private final Map<String, PropertyInjector> propertyInjectors = new ConcurrentHashMap<>();
+    private final Map<String, BiConsumer<Object, Object>> refFieldWriters = new ConcurrentHashMap<>();
+    private final Map<Integer, ConstructorInjector> constructorInjectors = new ConcurrentHashMap<>();
+    private final Map<String, Method> lifecycleMethods = new ConcurrentHashMap<>();
+    private volatile Supplier<Object> instantiator;
+
+    private InjectionPlan(Class<?> beanClass) {
+        this.beanClass = beanClass;
+        this.fieldTypes = readFieldTypes(beanClass);
+    }
+
+    public static InjectionPlan forClass(Class<?> beanClass) {
+        return PLANS.get(beanClass);
+    }
+
+    public Object newInstance() {
+        Supplier<Object> currentInstantiator = instantiator;
+        if (currentInstantiator == null) {
+            currentInstantiator = createInstantiator();
+            instantiator = currentInstantiator;
+        }
+        try {
+            return currentInstantiator.get();
+        } catch (BeanInstantiationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error calling no-arg constructor of class: {}", beanClass.getName(), e);
+            throw new BeanInstantiationException("Error with create instance of " + beanClass.getName(), e);
+        }
+    }
+
+    /**
+     * Converts the literal constructor arguments to the parameter types of the matching constructor.
+     * Slots of ref arguments are left {@code null} for the caller to fill before
+     * {@link #newInstance(String, Object[])}.
+     */
+    public Object[] prepareConstructorArgs(String beanId, List<ConstructorArgument> constructorArgs) {
+        ConstructorInjector injector = constructorInjectors.computeIfAbsent(constructorArgs.size(),
+                this::createConstructorInjector);
+        Object[] args = new Object[constructorArgs.size()];
+        for (int i = 0; i < args.length; i++) {
+            ConstructorArgument constructorArg = constructorArgs.get(i);
+            if (!constructorArg.isRef()) {
+                try {
+                    args[i] = convert(constructorArg.getValue(), injector.parameterTypes[i]);
+                } catch (RuntimeException e) {
+                    log.error("Error converting constructor argument: {} of Bean: {}", i, beanId, e);
+                    throw new BeanInstantiationException("Error converting constructor argument " + i +
+                            " of bean " + beanId + ".", e);
+                }
+            }
+        }
+        return args;
+    }
+
+    /**
+     * Calls the public constructor of the bean class taking exactly {@code args.length} parameters.
+     */
+    public Object newInstance(String beanId, Object[] args) {
+        if (args.length == 0) {
+            return newInstance();
+        }
+        ConstructorInjector injector = constructorInjectors.computeIfAbsent(args.length,
+                this::createConstructorInjector);
+        try {
+            return injector.constructor.apply(args);
+        } catch (Exception e) {
+            log.error("Error calling constructor of Bean: {}", beanId, e);
+            throw new BeanInstantiationException("Error calling constructor of bean " + beanId + ".", e);
+        }
+    }
+
+    public void injectProperty(Object bean, String beanId, String propertyName, String propertyValue) {
+        PropertyInjector injector = propertyInjectors.computeIfAbsent(propertyName, this::createPropertyInjector);
+        setProperty(injector, bean, beanId, propertyName, convert(propertyValue, injector.targetType));
+    }
+
+    /**
+     * Converts the value once and returns an action that sets it on any bean of this class,
+     * for definitions that are instantiated many times.
+     */
+    public Consumer<Object> prepareProperty(String beanId, String propertyName, String propertyValue) {
+        PropertyInjector injector = propertyInjectors.computeIfAbsent(propertyName, this::createPropertyInjector);
+        Object convertedValue = convert(propertyValue, injector.targetType);
+        return bean -> setProperty(injector, bean, beanId, propertyName, convertedValue);
+    }
+
+    private void setProperty(PropertyInjector injector, Object bean, String beanId, String propertyName,
+                             Object convertedValue) {
+        try {
+            injector.setter.accept(bean, convertedValue);
+        } catch (Exception e) {
+            log.error("Error during property with name: {} setting for Bean: {}", propertyName, beanId, e);
+            throw new BeanInstantiationException("Error setting property " + propertyName +
+                    " for bean " + beanId + ".", e);
+        }
+    }
+
+    public void injectRef(Object bean, String fieldName, Object refValue) {
+        BiConsumer<Object, Object> fieldWriter = refFieldWriters.computeIfAbsent(fieldName, this::createRefFieldWriter);
+        try {
+            fieldWriter.accept(bean, refValue);
+        } catch (Exception e) {
+            log.error("Error when trying to add ref properties for Bean with key: {}", fieldName, e);
+            throw new RuntimeException("Error setting field value " + fieldName + ".", e);
+        }
+    }
+
+    /**
+     * Calls a public no-arg method of the bean, such as its init or destroy method.
+     *
+     * @return what the method returned, {@code null} for a void method
+     */
+    public Object invokeLifecycleMethod(Object bean, String beanId, String methodName) {
+        Method method = lifecycleMethods.computeIfAbsent(methodName, this::findLifecycleMethod);
+        try {
+            return method.invoke(bean);
+        } catch (InvocationTargetException e) {
+            log.error("Method: {} of Bean: {} failed", methodName, beanId, e.getCause());
+            throw new BeanInstantiationException("Method " + methodName + " of bean " + beanId + " failed",
+                    e.getCause());
+        } catch (IllegalAccessException e) {
+            log.error("Can't call method: {} of Bean: {}", methodName, beanId, e);
+            throw new BeanInstantiationException("Can't call method " + methodName + " of bean " + beanId, e);
+        }
+    }
+
+    /**
+     * Tells whether the public no-arg method returns a {@link CompletionStage}, so the bean is only ready
+     * once the stage completes.
+     */
+    public boolean isAsyncLifecycleMethod(String methodName) {
+        Method method = lifecycleMethods.computeIfAbsent(methodName, this::findLifecycleMethod);
+        return CompletionStage.class.isAssignableFrom(method.getReturnType());
+    }
+
+    private Method findLifecycleMethod(String methodName) {
+        try {
+            return beanClass.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            log.error("No public no-arg method: {} in class: {}", methodName, beanClass.getName(), e);
+            throw new BeanInstantiationException("No public no-arg method " + methodName + " in class " +
+                    beanClass.getName(), e);
+        }
+    }
+
+    private PropertyInjector createPropertyInjector(String propertyName) {
+        String setMethodName = "set" + Character.toUpperCase(propertyName.charAt(0)) + propertyName.substring(1);
+        Class<?> fieldType = fieldTypes.get(propertyName.toLowerCase(Locale.ROOT));
+        try {
+            Method setMethod = beanClass.getMethod(setMethodName, fieldType);
+            return new PropertyInjector(BeanAccessors.setter(setMethod), setMethod.getGenericParameterTypes()[0]);
+        } catch (NoSuchMethodException e) {
+            log.error("No such method:{} for property: {}", setMethodName, propertyName, e);
+            throw new IllegalArgumentException("Set method " + setMethodName +
+                    " not found for property " + propertyName + ".");
+        }
+    }
+
+    private Supplier<Object> createInstantiator() {
+        try {
+            return BeanAccessors.constructor(beanClass.getConstructor());
+        } catch (NoSuchMethodException e) {
+            log.error("No public no-arg constructor for class: {}", beanClass.getName(), e);
+            throw new BeanInstantiationException("No public no-arg constructor for class " + beanClass.getName(), e);
+        }
+    }
+
+    private ConstructorInjector createConstructorInjector(int argumentCount) {
+        List<Constructor<?>> candidates = new ArrayList<>(1);
+        for (Constructor<?> constructor : beanClass.getConstructors()) {
+            if (constructor.getParameterCount() == argumentCount) {
+                candidates.add(constructor);
+            }
+        }
+        if (candidates.size() != 1) {
+            log.error("Found {} public constructors with {} parameters in class: {}",
+                    candidates.size(), argumentCount, beanClass.getName());
+            throw new BeanInstantiationException("Expected exactly one public constructor with " + argumentCount +
+                    " parameters in class " + beanClass.getName() + ", found " + candidates.size());
+        }
+        Constructor<?> constructor = candidates.get(0);
+        return new ConstructorInjector(BeanAccessors.constructorWithArgs(constructor),
+                constructor.getGenericParameterTypes());
+    }
+
+    private BiConsumer<Object, Object> createRefFieldWriter(String fieldName) {
+        try {
+            return BeanAccessors.fieldWriter(beanClass.getDeclaredField(fieldName));
+        } catch (NoSuchFieldException e) {
+            log.error("Error when trying to add ref properties for Bean with key: {}", fieldName, e);
+            throw new RuntimeException("Error setting field value " + fieldName + ".", e);
+        }
+    }
+
+    private static Map<String, Class<?>> readFieldTypes(Class<?> beanClass) {
+        Map<String, Class<?>> fieldTypes = new HashMap<>();
+        for (Field field : beanClass.getDeclaredFields()) {
+            fieldTypes.put(field.getName().toLowerCase(Locale.ROOT), field.getType());
+        }
+        return fieldTypes;
+    }
+
+    private static Object convert(String value, Type targetType) {
+        return ConversionService.getDefault().convert(value, targetType);
+    }
+
+    @RequiredArgsConstructor
+    private static class ConstructorInjector {
+
+        private final Function<Object[], Object> constructor;
+        private final Type[] parameterTypes;
+    }
+
+    @RequiredArgsConstructor
+    private static class PropertyInjector {
+
+        private final BiConsumer<Object, Object> setter;
+        private final Type targetType;
+    }
+}
@@ -0,0 +1,122 @@
+package com.kopylov.ioc.annotation.processor;
+
+import com.kopylov.ioc.annotation.Component;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentIndexProcessorTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testProcessorWritesIndexWithResolvedIdsAndRefs() throws Exception {
+        boolean compiled = compile("sample/Sender.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component\n" +
+                "@com.kopylov.ioc.annotation.Scope(value = \"pooled\", poolSize = 4)\n" +
+                "public class Sender {\n" +
+                "    @com.kopylov.ioc.annotation.Inject private Object mailService;\n" +
+                "    @com.kopylov.ioc.annotation.Value(\"a < b\") private String rule;\n" +
+                "    public static class Nested {}\n" +
+                "}\n");
+
+        assertTrue(compiled);
+        String index = Files.readString(directory.resolve("classes").resolve(ComponentIndexProcessor.INDEX_LOCATION));
+        assertTrue(index.contains("<bean id=\"sender\" class=\"sample.Sender\" scope=\"pooled\" pool-size=\"4\">"));
+        assertTrue(index.contains("<property name=\"rule\" value=\"a &lt; b\"/>"));
+        assertTrue(index.contains("<property name=\"mailService\" ref=\"mailService\"/>"));
+    }
+
+    @Test
+    void testProcessorRejectsFinalInjectedField() throws Exception {
+        boolean compiled = compile("sample/Broken.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component\n" +
+                "public class Broken {\n" +
+                "    @com.kopylov.ioc.annotation.Inject private final Object mailService = null;\n" +
+                "}\n");
+
+        assertFalse(compiled);
+    }
+
+    @Test
+    void testProcessorRejectsComponentWithoutNoArgConstructor() throws Exception {
+        boolean compiled = compile("sample/Broken.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component\n" +
+                "public class Broken {\n" +
+                "    public Broken(String name) {}\n" +
+                "}\n");
+
+        assertFalse(compiled);
+    }
+
+    @Test
+    void testIncrementalCompilationKeepsComponentsOfEarlierCompilation() throws Exception {
+        Path classes = directory.resolve("classes");
+        Path sender = writeSource("sample/Sender.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component public class Sender {}\n");
+        Path receiver = writeSource("sample/Receiver.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component public class Receiver {}\n");
+        assertTrue(compile(List.of(), sender, receiver));
+
+        assertTrue(compile(List.of(), sender));
+
+        String index = Files.readString(classes.resolve(ComponentIndexProcessor.INDEX_LOCATION));
+        assertTrue(index.contains("<bean id=\"sender\" class=\"sample.Sender\">"));
+        assertTrue(index.contains("<bean id=\"receiver\" class=\"sample.Receiver\">"));
+
+        Files.delete(classes.resolve("sample/Receiver.class"));
+        writeSource("sample/Sender.java", "package sample;\npublic class Sender {}\n");
+        Path mailer = writeSource("sample/Mailer.java", "package sample;\n" +
+                "@com.kopylov.ioc.annotation.Component public class Mailer {}\n");
+        assertTrue(compile(List.of(), sender, mailer));
+
+        index = Files.readString(classes.resolve(ComponentIndexProcessor.INDEX_LOCATION));
+        assertTrue(index.contains("<bean id=\"mailer\" class=\"sample.Mailer\">"));
+        assertFalse(index.contains("sample.Sender"));
+        assertFalse(index.contains("sample.Receiver"));
+    }
+
+    private boolean compile(String fileName, String source) throws IOException, URISyntaxException {
+        return compile(List.of("-proc:only"), writeSource(fileName, source));
+    }
+
+    private Path writeSource(String fileName, String source) throws IOException {
+        Path sourceFile = directory.resolve("src").resolve(fileName);
+        Files.createDirectories(sourceFile.getParent());
+        Files.writeString(sourceFile, source);
+        return sourceFile;
+    }
+
+    private boolean compile(List<String> options, Path... sourceFiles) throws IOException, URISyntaxException {
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        Path annotationClasses = Paths.get(Component.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        List<String> compilerOptions = new ArrayList<>(options);
+        compilerOptions.addAll(List.of("-classpath", annotationClasses + File.pathSeparator + classes,
+                "-d", classes.toString()));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, null)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, compilerOptions,
+                    null, fileManager.getJavaFileObjects(sourceFiles));
+            task.setProcessors(List.of(new ComponentIndexProcessor()));
+            return task.call();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.kopylov.ioc.cache;
+
+import com.kopylov.ioc.proxy.MethodInvocation;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingInterceptorTest {
+
+    @Test
+    void testOverloadsCalledWithEqualArgumentsDontShareResults() throws Throwable {
+        CachingInterceptor interceptor = new CachingInterceptor("directory",
+                Map.of("find", CachingInterceptor.createCache(null, null)));
+        Method findByString = Directory.class.getMethod("find", String.class);
+        Method findByCharSequence = Directory.class.getMethod("find", CharSequence.class);
+        Method findAll = Directory.class.getMethod("find");
+
+        assertEquals("string bob", interceptor.intercept(invocation(findByString, "string bob", "bob")));
+        assertEquals(42, interceptor.intercept(invocation(findByCharSequence, 42, "bob")));
+        assertEquals("all", interceptor.intercept(invocation(findAll, "all")));
+
+        assertEquals("string bob", interceptor.intercept(invocation(findByString, "not cached", "bob")));
+        assertEquals(42, interceptor.intercept(invocation(findByCharSequence, "not cached", "bob")));
+        assertEquals("all", interceptor.intercept(invocation(findAll, "not cached")));
+        assertEquals(3, interceptor.getStats().get("find").getHitCount());
+    }
+
+    private static MethodInvocation invocation(Method method, Object result, Object... arguments) {
+        return new MethodInvocation() {
+            @Override
+            public Method getMethod() {
+                return method;
+            }
+
+            @Override
+            public Object getTarget() {
+                return null;
+            }
+
+            @Override
+            public Object[] getArguments() {
+                return arguments;
+            }
+
+            @Override
+            public Object proceed() {
+                return result;
+            }
+        };
+    }
+
+    public interface Directory {
+
+        Object find();
+
+        Object find(String name);
+
+        Object find(CharSequence name);
+    }
+}
@@ -0,0 +1,81 @@
+package com.kopylov.ioc.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MethodCacheTest {
+
+    @Test
+    void testGetReturnsPutValueAndCountsHitsAndMisses() {
+        MethodCache methodCache = new MethodCache(10, null);
+
+        assertNull(methodCache.get("user"));
+        methodCache.put("user", "Bob");
+
+        assertEquals("Bob", methodCache.get("user"));
+        CacheStats stats = methodCache.getStats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+        assertEquals(0.5, stats.getHitRate());
+    }
+
+    @Test
+    void testSizeNeverExceedsMaxSize() {
+        MethodCache methodCache = new MethodCache(100, null);
+
+        for (int i = 0; i < 1000; i++) {
+            methodCache.get(i);
+            methodCache.put(i, i);
+        }
+
+        CacheStats stats = methodCache.getStats();
+        assertTrue(stats.getSize() <= 100);
+        assertEquals(1000 - stats.getSize(), stats.getEvictionCount());
+    }
+
+    @Test
+    void testFrequentlyRequestedKeysSurviveScanOfNewKeys() {
+        MethodCache methodCache = new MethodCache(10, null);
+        for (int i = 0; i < 9; i++) {
+            for (int j = 0; j < 5; j++) {
+                methodCache.get("hot" + i);
+            }
+            methodCache.put("hot" + i, i);
+        }
+
+        for (int i = 0; i < 30; i++) {
+            methodCache.get("scan" + i);
+            methodCache.put("scan" + i, i);
+        }
+
+        for (int i = 0; i < 9; i++) {
+            assertEquals(i, methodCache.get("hot" + i));
+        }
+    }
+
+    @Test
+    void testEntriesExpireAfterTtl() {
+        AtomicLong nanoTime = new AtomicLong();
+        MethodCache methodCache = new MethodCache(10, Duration.ofSeconds(5), nanoTime::get);
+        methodCache.put("user", "Bob");
+
+        nanoTime.set(Duration.ofSeconds(4).toNanos());
+        assertEquals("Bob", methodCache.get("user"));
+        nanoTime.set(Duration.ofSeconds(5).toNanos());
+        assertNull(methodCache.get("user"));
+
+        CacheStats stats = methodCache.getStats();
+        assertEquals(1, stats.getExpirationCount());
+        assertEquals(0, stats.getSize());
+    }
+
+    @Test
+    void testNonPositiveMaxSizeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new MethodCache(0, null));
+    }
+}
@@ -0,0 +1,18 @@
+package com.kopylov.ioc.component;
+
+import com.kopylov.ioc.annotation.Component;
+import com.kopylov.ioc.annotation.Inject;
+import com.kopylov.ioc.annotation.Value;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+@Component
+public class GreetingService {
+
+    @Value("Hello")
+    private String greeting;
+    @Inject("formatter")
+    private NameFormatter nameFormatter;
+}
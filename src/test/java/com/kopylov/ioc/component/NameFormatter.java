@@ -0,0 +1,17 @@
+package com.kopylov.ioc.component;
+
+import com.kopylov.ioc.annotation.Component;
+import com.kopylov.ioc.annotation.Scope;
+import com.kopylov.ioc.annotation.Value;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+@Component("formatter")
+@Scope("prototype")
+public class NameFormatter {
+
+    @Value("true")
+    private boolean upperCase;
+}
@@ -0,0 +1,9 @@
+package com.kopylov.ioc.component;
+
+import com.kopylov.ioc.annotation.Component;
+import com.kopylov.ioc.annotation.Lazy;
+
+@Lazy
+@Component
+public class ReportArchive {
+}
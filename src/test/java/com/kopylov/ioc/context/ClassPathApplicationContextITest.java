@@ -0,0 +1,414 @@
+package com.kopylov.ioc.context;
+
+import com.kopylov.ioc.cache.CacheStats;
+import com.kopylov.ioc.entity.AlertService;
+import com.kopylov.ioc.entity.Catalog;
+import com.kopylov.ioc.entity.CatalogFactory;
+import com.kopylov.ioc.entity.CatalogLoadSignal;
+import com.kopylov.ioc.entity.CatalogService;
+import com.kopylov.ioc.entity.LifecycleLog;
+import com.kopylov.ioc.entity.LifecycleWorker;
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.MessageSender;
+import com.kopylov.ioc.entity.NotificationService;
+import com.kopylov.ioc.entity.PaymentService;
+import com.kopylov.ioc.entity.ReportService;
+import com.kopylov.ioc.entity.SmsSender;
+import com.kopylov.ioc.entity.UpperCaseSenderPostProcessor;
+import com.kopylov.ioc.entity.UserService;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.NoSuchBeanException;
+import com.kopylov.ioc.proxy.MethodInterceptor;
+import com.kopylov.ioc.proxy.ProxyFactory;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import com.kopylov.ioc.scope.BeanPool;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassPathApplicationContextITest {
+
+    @Test
+    void testContextCreatesAndWiresBeansFromXml() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/context-with-import.xml");
+
+        MailService mailService = context.getBean(MailService.class);
+        UserService userService = context.getBean("userService", UserService.class);
+        PaymentService paymentService = (PaymentService) context.getBean("paymentService");
+
+        assertEquals("POP3", mailService.getProtocol());
+        assertEquals(3000, mailService.getPort());
+        assertEquals("Vadym", userService.getUser());
+        assertSame(mailService, userService.getMailService());
+        assertSame(mailService, paymentService.getMailService());
+    }
+
+    @Test
+    void testLazyInitBeanIsCreatedOnFirstRequest() {
+        int instanceCountBefore = ReportService.INSTANCE_COUNT.get();
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/lazy-context.xml");
+
+        assertEquals(instanceCountBefore, ReportService.INSTANCE_COUNT.get());
+        assertTrue(context.getBeanNames().containsAll(List.of("mailService", "reportService", "userService")));
+
+        ReportService reportService = context.getBean(ReportService.class);
+
+        assertEquals(instanceCountBefore + 1, ReportService.INSTANCE_COUNT.get());
+        assertEquals("pdf", reportService.getFormat());
+        assertSame(context.getBean(MailService.class), reportService.getMailService());
+        assertSame(reportService, context.getBean("reportService"));
+        assertEquals(instanceCountBefore + 1, ReportService.INSTANCE_COUNT.get());
+    }
+
+    @Test
+    void testLazyInitBeanReferencedByEagerBeanIsCreatedEagerly() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/lazy-context.xml");
+
+        UserService userService = context.getBean(UserService.class);
+
+        assertNotNull(userService.getMailService());
+        assertSame(userService.getMailService(), context.getBean("mailService"));
+    }
+
+    @Test
+    void testLazyInitBeanIsCreatedOnceUnderConcurrentRequests() {
+        int instanceCountBefore = ReportService.INSTANCE_COUNT.get();
+        ClassPathApplicationContext context = new ClassPathApplicationContext(true, null, "/context/lazy-context.xml");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> context.getBean("reportService"), executor));
+            }
+            Object reportService = futures.get(0).join();
+            for (CompletableFuture<Object> future : futures) {
+                assertSame(reportService, future.join());
+            }
+            assertEquals(instanceCountBefore + 1, ReportService.INSTANCE_COUNT.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testContextCreatesBeansWhileStaxReaderStreamsDefinitions() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/context-with-import.xml"), false, null);
+
+        MailService mailService = context.getBean(MailService.class);
+
+        assertEquals("POP3", mailService.getProtocol());
+        assertSame(mailService, context.getBean(UserService.class).getMailService());
+        assertSame(mailService, context.getBean(PaymentService.class).getMailService());
+    }
+
+    @Test
+    void testContextCreatesBeansInParallel() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ClassPathApplicationContext context =
+                    new ClassPathApplicationContext(executor, "/context/context-with-import.xml");
+
+            MailService mailService = context.getBean(MailService.class);
+
+            assertEquals(3000, mailService.getPort());
+            assertSame(mailService, context.getBean(UserService.class).getMailService());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPrototypeBeanIsCreatedOnEveryRequest() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/scoped-context.xml");
+
+        ReportService firstReportService = context.getBean(ReportService.class);
+        ReportService secondReportService = (ReportService) context.getBean("reportService");
+
+        assertNotSame(firstReportService, secondReportService);
+        assertEquals("pdf", secondReportService.getFormat());
+        assertSame(context.getBean("mailService"), firstReportService.getMailService());
+        assertSame(firstReportService.getMailService(), secondReportService.getMailService());
+        assertTrue(context.getBeanNames().containsAll(List.of("reportService", "paymentService")));
+    }
+
+    @Test
+    void testSingletonReferencingPrototypeGetsOwnInstance() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (ClassPathApplicationContext context : List.of(
+                    new ClassPathApplicationContext("/context/scoped-context.xml"),
+                    new ClassPathApplicationContext(executor, "/context/scoped-context.xml"))) {
+                MailService mailService = context.getBean(UserService.class).getMailService();
+
+                assertEquals("IMAP", mailService.getProtocol());
+                assertNotSame(mailService, context.getBean("prototypeMailService"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPooledBeanIsReusedAfterRelease() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/scoped-context.xml");
+        BeanPool<PaymentService> pool = context.getBeanPool("paymentService", PaymentService.class);
+
+        PaymentService paymentService = pool.borrow();
+        assertEquals("card", paymentService.getPaymentType());
+        assertSame(context.getBean("mailService"), paymentService.getMailService());
+        assertNotSame(paymentService, context.getBean("paymentService"));
+
+        pool.release(paymentService);
+
+        assertEquals(1, pool.getIdleCount());
+        assertSame(paymentService, context.getBean(PaymentService.class));
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    void testGetBeanPoolThrowsForNotPooledBean() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/scoped-context.xml");
+
+        assertThrows(BeanInstantiationException.class, () -> context.getBeanPool("reportService", ReportService.class));
+        assertThrows(BeanInstantiationException.class, () -> context.getBeanPool("paymentService", String.class));
+        assertThrows(NoSuchBeanException.class, () -> context.getBeanPool("unknown", Object.class));
+    }
+
+    @Test
+    void testThreadScopedBeanIsCreatedOncePerThread() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/thread-scoped-context.xml");
+
+        ReportService reportService = context.getBean(ReportService.class);
+        ReportService otherThreadReportService =
+                CompletableFuture.supplyAsync(() -> context.getBean(ReportService.class)).join();
+
+        assertSame(reportService, context.getBean("reportService"));
+        assertNotSame(reportService, otherThreadReportService);
+        assertEquals("csv", reportService.getFormat());
+        assertSame(reportService.getMailService(), otherThreadReportService.getMailService());
+    }
+
+    @Test
+    void testConstructorArgsAreInjectedBeforeReferencedBeanIsDeclared() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (ClassPathApplicationContext context : List.of(
+                    new ClassPathApplicationContext("/context/constructor-context.xml"),
+                    new ClassPathApplicationContext(executor, "/context/constructor-context.xml"))) {
+                NotificationService notificationService =
+                        context.getBean("notificationService", NotificationService.class);
+
+                assertSame(context.getBean(MailService.class), notificationService.getMailService());
+                assertEquals("noreply@kopylov.com", notificationService.getSender());
+                assertEquals(3, notificationService.getRetries());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testPrototypeBeanIsCreatedThroughConstructor() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/constructor-context.xml");
+
+        NotificationService first = context.getBean("reportNotificationService", NotificationService.class);
+        NotificationService second = context.getBean("reportNotificationService", NotificationService.class);
+
+        assertNotSame(first, second);
+        assertEquals("reports@kopylov.com", first.getSender());
+        assertEquals(1, first.getRetries());
+        assertSame(context.getBean(MailService.class), second.getMailService());
+    }
+
+    @Test
+    void testInterceptorsWrapBeansWhoseRefsAreInjectedIntoTarget() {
+        MethodInterceptor upperCase = invocation -> invocation.getMethod().getName().equals("send")
+                ? ((String) invocation.proceed()).toUpperCase() : invocation.proceed();
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/intercepted-context.xml"), false, null, null,
+                List.of(upperCase));
+
+        MessageSender messageSender = context.getBean(MessageSender.class);
+
+        assertEquals("SMS TO BOB: HI", messageSender.send("Bob", "hi"));
+        SmsSender smsSender = (SmsSender) ProxyFactory.unwrap(messageSender);
+        assertEquals(1, smsSender.getSentCount());
+        assertSame(context.getBean(MailService.class), smsSender.getMailService());
+    }
+
+    @Test
+    void testProxiedLazyAndPrototypeBeansAreFoundByInterfaceOnly() {
+        MethodInterceptor upperCase = invocation -> invocation.getMethod().getName().equals("send")
+                ? ((String) invocation.proceed()).toUpperCase() : invocation.proceed();
+        for (String path : List.of("/context/intercepted-lazy-context.xml",
+                "/context/intercepted-prototype-context.xml")) {
+            ClassPathApplicationContext context = new ClassPathApplicationContext(
+                    new XmlBeanDefinitionStaxReader(path), false, null, null, List.of(upperCase));
+
+            assertThrows(NoSuchBeanException.class, () -> context.getBean(SmsSender.class));
+            MessageSender messageSender = context.getBean(MessageSender.class);
+
+            assertEquals("SMS TO BOB: HI", messageSender.send("Bob", "hi"));
+            assertInstanceOf(SmsSender.class, ProxyFactory.unwrap(messageSender));
+            assertThrows(NoSuchBeanException.class, () -> context.getBean(SmsSender.class));
+        }
+    }
+
+    @Test
+    void testDeclaredMethodCachesReturnCachedResultsAndCountHits() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/cached-context.xml"), false, null);
+        MessageSender messageSender = context.getBean(MessageSender.class);
+
+        assertEquals("SMS to Bob: hi", messageSender.send("Bob", "hi"));
+        assertEquals("SMS to Bob: hi", messageSender.send("Bob", "hi"));
+        assertEquals("SMS to Ann: hi", messageSender.send("Ann", "hi"));
+
+        assertEquals(2, messageSender.getSentCount());
+        CacheStats sendStats = context.getCacheStats("smsSender").get("send");
+        assertEquals(1, sendStats.getHitCount());
+        assertEquals(2, sendStats.getMissCount());
+        assertEquals(2, sendStats.getSize());
+        assertTrue(context.getCacheStats("mailService").isEmpty());
+    }
+
+    @Test
+    void testBeanPostProcessorsReplaceBeansBeforeTheyAreInjected() {
+        for (Executor executor : Arrays.asList(null, ForkJoinPool.commonPool())) {
+            ClassPathApplicationContext context = new ClassPathApplicationContext(
+                    new XmlBeanDefinitionStaxReader("/context/post-processor-context.xml"), false, executor);
+
+            MessageSender messageSender = context.getBean("smsSender", MessageSender.class);
+
+            assertEquals("SMS TO BOB: HI", messageSender.send("Bob", "hi"));
+            assertSame(messageSender, context.getBean(AlertService.class).getMessageSender());
+            assertEquals(List.of("smsSender"),
+                    context.getBean(UpperCaseSenderPostProcessor.class).getProcessedBeanIds());
+        }
+    }
+
+    @Test
+    void testInitMethodsRunAfterInitMethodsOfReferencedBeans() {
+        for (Executor executor : Arrays.asList(null, ForkJoinPool.commonPool())) {
+            ClassPathApplicationContext context = new ClassPathApplicationContext(
+                    new XmlBeanDefinitionStaxReader("/context/lifecycle-context.xml"), false, executor);
+
+            List<String> events = context.getBean(LifecycleLog.class).getEvents();
+
+            assertEquals(4, events.size());
+            assertTrue(events.indexOf("start database") < events.indexOf("start repository"));
+            assertTrue(events.indexOf("start repository") < events.indexOf("start service"));
+            assertTrue(events.indexOf("start database") < events.indexOf("start slowWorker"));
+        }
+    }
+
+    @Test
+    void testCloseDestroysDependentsFirstAndSkipsTimedOutBeans() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/lifecycle-context.xml"), false, null);
+        LifecycleLog lifecycleLog = context.getBean(LifecycleLog.class);
+        context.setDestroyTimeout(Duration.ofMillis(200));
+
+        long start = System.nanoTime();
+        context.close();
+        long closeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        List<String> events = lifecycleLog.getEvents().subList(4, 7);
+        assertEquals(List.of("stop service", "stop repository", "stop database"), events);
+        assertTrue(closeMillis < 5000, "close waited for timed out bean: " + closeMillis + "ms");
+        assertThrows(NoSuchBeanException.class, () -> context.getBean("service"));
+        context.close();
+        assertEquals(7, lifecycleLog.getEvents().size());
+    }
+
+    @Test
+    void testCloseDestroysIdleInstancesOfPooledBeans() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext("/context/pooled-lifecycle-context.xml");
+        LifecycleLog lifecycleLog = context.getBean(LifecycleLog.class);
+        BeanPool<LifecycleWorker> pool = context.getBeanPool("worker", LifecycleWorker.class);
+        LifecycleWorker first = pool.borrow();
+        LifecycleWorker second = pool.borrow();
+        pool.borrow();
+        pool.release(first);
+        pool.release(second);
+
+        context.close();
+
+        assertEquals(List.of("start worker", "start worker", "start worker", "stop worker", "stop worker"),
+                lifecycleLog.getEvents());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    void testContextIsUsableBeforeAsynchronousBeansAreReady() {
+        for (Executor executor : Arrays.asList(null, ForkJoinPool.commonPool())) {
+            ClassPathApplicationContext context = new ClassPathApplicationContext(
+                    new XmlBeanDefinitionStaxReader("/context/async-context.xml"), false, executor);
+
+            assertEquals("POP3", context.getBean(MailService.class).getProtocol());
+            assertFalse(context.getReadiness().toCompletableFuture().isDone());
+
+            context.getBean(CatalogLoadSignal.class).getLoaded().complete(null);
+
+            assertSame(context, context.getReadiness().toCompletableFuture().join());
+            CatalogService catalogService = context.getBean(CatalogService.class);
+            assertTrue(catalogService.isWarm());
+            assertSame(context.getBean("catalog"), catalogService.getCatalog());
+            assertEquals(List.of("book", "pen"), catalogService.getCatalog().getItems());
+        }
+    }
+
+    @Test
+    void testGetBeanWaitsForAsynchronousBean() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/async-context.xml"), false, null);
+        CompletableFuture<Void> loaded = context.getBean(CatalogLoadSignal.class).getLoaded();
+
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> loaded.complete(null));
+        CatalogService catalogService = context.getBean("catalogService", CatalogService.class);
+
+        assertTrue(catalogService.isWarm());
+        assertEquals(List.of("book", "pen"), catalogService.getCatalog().getItems());
+    }
+
+    @Test
+    void testGetBeanByProducedTypeWaitsForAsynchronousFactory() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/async-context.xml"), false, null);
+        CompletableFuture<Void> loaded = context.getBean(CatalogLoadSignal.class).getLoaded();
+
+        assertThrows(NoSuchBeanException.class, () -> context.getBean(CatalogFactory.class));
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS).execute(() -> loaded.complete(null));
+        Catalog catalog = context.getBean(Catalog.class);
+
+        assertEquals(List.of("book", "pen"), catalog.getItems());
+        assertSame(catalog, context.getBean(Catalog.class));
+        assertThrows(NoSuchBeanException.class, () -> context.getBean(CatalogFactory.class));
+    }
+
+    @Test
+    void testReadinessFailsWhenAsynchronousBeanFails() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new XmlBeanDefinitionStaxReader("/context/async-context.xml"), false, null);
+
+        context.getBean(CatalogLoadSignal.class).getLoaded()
+                .completeExceptionally(new IllegalStateException("Catalog is unavailable"));
+
+        assertThrows(CompletionException.class, () -> context.getReadiness().toCompletableFuture().join());
+        assertThrows(IllegalStateException.class, () -> context.getBean("catalogService"));
+        assertEquals("POP3", context.getBean(MailService.class).getProtocol());
+    }
+}
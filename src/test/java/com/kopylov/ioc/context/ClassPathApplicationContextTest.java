@@ -2,15 +2,20 @@ package com.kopylov.ioc.context;
 
 import com.kopylov.ioc.entity.*;
 import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.CircularDependencyException;
 import com.kopylov.ioc.exception.NoSuchBeanException;
 import com.kopylov.ioc.exception.NoUniqueBeanException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -157,4 +162,207 @@ class ClassPathApplicationContextTest {
             classPathApplicationContext.getBean((Class<Object>) null);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetBeanByInterfaceReturnsImplementation() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        List<String> users = new ArrayList<>();
+        beanMap.put("userServiceBean", new Bean("bean1", new UserService()));
+        beanMap.put("usersBean", new Bean("bean2", users));
+        classPathApplicationContext.setBeans(beanMap);
+
+        assertSame(users, classPathApplicationContext.getBean(List.class));
+        assertSame(users, classPathApplicationContext.getBean(Collection.class));
+    }
+
+    @Test
+    void testGetBeanBySuperclassThrowsNoUniqueBeanException() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        beanMap.put("userServiceBean", new Bean("bean1", new UserService()));
+        beanMap.put("mailServiceBean", new Bean("bean2", new MailService()));
+        classPathApplicationContext.setBeans(beanMap);
+        Assertions.assertThrows(NoUniqueBeanException.class, () -> {
+            classPathApplicationContext.getBean(Object.class);
+        });
+    }
+
+    @Test
+    void testRegisterBeanMakesBeanAvailableByNameAndType() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        beanMap.put("userServiceBean", new Bean("userServiceBean", new UserService()));
+        classPathApplicationContext.setBeans(beanMap);
+        MailService mailService = new MailService();
+
+        classPathApplicationContext.registerBean("mailServiceBean", mailService);
+
+        assertSame(mailService, classPathApplicationContext.getBean("mailServiceBean"));
+        assertSame(mailService, classPathApplicationContext.getBean(MailService.class));
+        assertTrue(classPathApplicationContext.getBeanNames().contains("mailServiceBean"));
+        Assertions.assertThrows(NoUniqueBeanException.class, () -> classPathApplicationContext.getBean(Object.class));
+    }
+
+    @Test
+    void testRegisterBeanThrowsBeanInstantiationExceptionForDuplicateId() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        beanMap.put("userServiceBean", new Bean("userServiceBean", new UserService()));
+        classPathApplicationContext.setBeans(beanMap);
+
+        Assertions.assertThrows(BeanInstantiationException.class, () -> {
+            classPathApplicationContext.registerBean("userServiceBean", new UserService());
+        });
+        Assertions.assertThrows(BeanInstantiationException.class, () -> {
+            classPathApplicationContext.registerBean("nullBean", null);
+        });
+    }
+
+    @Test
+    void testConcurrentRegistrationKeepsEveryBean() {
+        classPathApplicationContext.setBeans(new HashMap<>());
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String id = "mailService" + i;
+            futures.add(CompletableFuture.runAsync(() -> classPathApplicationContext.registerBean(id, new MailService())));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        assertEquals(200, classPathApplicationContext.getBeanNames().size());
+        for (int i = 0; i < 200; i++) {
+            assertNotNull(classPathApplicationContext.getBean("mailService" + i, MailService.class));
+        }
+    }
+
+    @Test
+    void testRefreshRebuildsChangedBeanAndItsDependentsOnly() {
+        List<BeanDefinition> beanDefinitions = createRefreshDefinitions("3000");
+        ClassPathApplicationContext context = new ClassPathApplicationContext(() -> beanDefinitions, false, null);
+        MailService oldMailService = context.getBean(MailService.class);
+        UserService oldUserService = context.getBean(UserService.class);
+        PaymentService oldPaymentService = context.getBean(PaymentService.class);
+
+        beanDefinitions.clear();
+        beanDefinitions.addAll(createRefreshDefinitions("4000"));
+        Set<String> refreshedIds = context.refresh();
+
+        assertEquals(Set.of("mailService", "userService"), refreshedIds);
+        MailService mailService = context.getBean(MailService.class);
+        assertNotSame(oldMailService, mailService);
+        assertEquals(4000, mailService.getPort());
+        assertEquals(3000, oldMailService.getPort());
+        assertNotSame(oldUserService, context.getBean(UserService.class));
+        assertSame(mailService, context.getBean(UserService.class).getMailService());
+        assertSame(oldPaymentService, context.getBean(PaymentService.class));
+    }
+
+    @Test
+    void testRefreshWithoutChangesKeepsAllBeans() {
+        List<BeanDefinition> beanDefinitions = createRefreshDefinitions("3000");
+        ClassPathApplicationContext context = new ClassPathApplicationContext(() -> beanDefinitions, false, null);
+        MailService mailService = context.getBean(MailService.class);
+
+        beanDefinitions.clear();
+        beanDefinitions.addAll(createRefreshDefinitions("3000"));
+
+        assertTrue(context.refresh().isEmpty());
+        assertSame(mailService, context.getBean(MailService.class));
+    }
+
+    @Test
+    void testRefreshRemovesDeletedBeanAndKeepsRegisteredBeans() {
+        List<BeanDefinition> beanDefinitions = createRefreshDefinitions("3000");
+        ClassPathApplicationContext context = new ClassPathApplicationContext(() -> beanDefinitions, false, null);
+        List<String> registeredBean = new ArrayList<>();
+        context.registerBean("registeredBean", registeredBean);
+
+        beanDefinitions.removeIf(beanDefinition -> beanDefinition.getId().equals("paymentService"));
+
+        assertEquals(Set.of("paymentService"), context.refresh());
+        Assertions.assertThrows(NoSuchBeanException.class, () -> context.getBean("paymentService"));
+        assertSame(registeredBean, context.getBean("registeredBean"));
+    }
+
+    @Test
+    void testRefreshRebuildsBeanWithConstructorRefToChangedBean() {
+        List<BeanDefinition> beanDefinitions = createRefreshDefinitions("3000");
+        beanDefinitions.add(createNotificationServiceDefinition("notificationService", "mailService"));
+        ClassPathApplicationContext context = new ClassPathApplicationContext(() -> beanDefinitions, false, null);
+        NotificationService oldNotificationService = context.getBean(NotificationService.class);
+
+        beanDefinitions.replaceAll(beanDefinition -> beanDefinition.getId().equals("mailService")
+                ? createRefreshDefinitions("4000").get(0) : beanDefinition);
+        Set<String> refreshedIds = context.refresh();
+
+        assertTrue(refreshedIds.contains("notificationService"));
+        NotificationService notificationService = context.getBean(NotificationService.class);
+        assertNotSame(oldNotificationService, notificationService);
+        assertEquals(4000, notificationService.getMailService().getPort());
+    }
+
+    @Test
+    void testRefreshRediscoversPostProcessorsWhenProcessorBeanChanges() {
+        BeanDefinition smsSenderDefinition = new BeanDefinition("smsSender", "com.kopylov.ioc.entity.SmsSender");
+        smsSenderDefinition.getProperty().put("prefix", "SMS to ");
+        BeanDefinition postProcessorDefinition = new BeanDefinition("upperCaseSenderPostProcessor",
+                "com.kopylov.ioc.entity.UpperCaseSenderPostProcessor");
+        List<BeanDefinition> beanDefinitions = new ArrayList<>(List.of(smsSenderDefinition, postProcessorDefinition));
+        ClassPathApplicationContext context = new ClassPathApplicationContext(() -> beanDefinitions, false, null);
+        assertEquals("SMS TO BOB: HI", context.getBean("smsSender", MessageSender.class).send("Bob", "hi"));
+
+        beanDefinitions.remove(postProcessorDefinition);
+
+        assertEquals(Set.of("smsSender", "upperCaseSenderPostProcessor"), context.refresh());
+        assertEquals("SMS to Bob: hi", context.getBean("smsSender", MessageSender.class).send("Bob", "hi"));
+
+        beanDefinitions.add(postProcessorDefinition);
+
+        assertEquals(Set.of("smsSender", "upperCaseSenderPostProcessor"), context.refresh());
+        assertEquals("SMS TO BOB: HI", context.getBean("smsSender", MessageSender.class).send("Bob", "hi"));
+        assertEquals(List.of("smsSender"),
+                context.getBean(UpperCaseSenderPostProcessor.class).getProcessedBeanIds());
+    }
+
+    @Test
+    void testConstructorCycleThrowsCircularDependencyException() {
+        List<BeanDefinition> beanDefinitions = List.of(
+                createNotificationServiceDefinition("firstNotificationService", "secondNotificationService"),
+                createNotificationServiceDefinition("secondNotificationService", "firstNotificationService"));
+
+        Assertions.assertThrows(CircularDependencyException.class, () ->
+                new ClassPathApplicationContext(() -> beanDefinitions, false, null));
+    }
+
+    @Test
+    void testConstructorRefToBeanReferencingItThroughPropertyThrowsCircularDependencyException() {
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.kopylov.ioc.entity.UserService");
+        userServiceDefinition.getRefProperty().put("mailService", "notificationService");
+        userServiceDefinition.setLazyInit(true);
+        BeanDefinition notificationServiceDefinition =
+                createNotificationServiceDefinition("notificationService", "userService");
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                () -> List.of(userServiceDefinition, notificationServiceDefinition), true, null);
+
+        Assertions.assertThrows(CircularDependencyException.class, () -> context.getBean("notificationService"));
+    }
+
+    @Test
+    void testRefreshThrowsBeanInstantiationExceptionWithoutReader() {
+        Assertions.assertThrows(BeanInstantiationException.class, classPathApplicationContext::refresh);
+    }
+
+    private BeanDefinition createNotificationServiceDefinition(String id, String mailServiceId) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.kopylov.ioc.entity.NotificationService");
+        beanDefinition.getConstructorArgs().add(ConstructorArgument.ofRef(mailServiceId));
+        beanDefinition.getConstructorArgs().add(ConstructorArgument.ofValue("noreply@kopylov.com"));
+        return beanDefinition;
+    }
+
+    private List<BeanDefinition> createRefreshDefinitions(String mailServicePort) {
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailService", "com.kopylov.ioc.entity.MailService");
+        mailServiceDefinition.getProperty().put("port", mailServicePort);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.kopylov.ioc.entity.UserService");
+        userServiceDefinition.getRefProperty().put("mailService", "mailService");
+        BeanDefinition paymentServiceDefinition =
+                new BeanDefinition("paymentService", "com.kopylov.ioc.entity.PaymentService");
+        paymentServiceDefinition.getProperty().put("paymentType", "card");
+        return new ArrayList<>(List.of(mailServiceDefinition, userServiceDefinition, paymentServiceDefinition));
+    }
+}
@@ -0,0 +1,78 @@
+package com.kopylov.ioc.context;
+
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemApplicationContextITest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testContextAppliesChangedImportedFile() throws Exception {
+        Path contextFile = directory.resolve("context.xml");
+        Files.writeString(contextFile, "<beans>\n" +
+                "    <import resource=\"mail.xml\"/>\n" +
+                "    <bean id=\"userService\" class=\"com.kopylov.ioc.entity.UserService\">\n" +
+                "        <property name=\"mailService\" ref=\"mailService\"/>\n" +
+                "    </bean>\n" +
+                "</beans>\n");
+        writeMailService("3000");
+
+        try (FileSystemApplicationContext context =
+                     new FileSystemApplicationContext(Duration.ofMillis(50), contextFile.toString())) {
+            MailService oldMailService = context.getBean(MailService.class);
+            assertEquals(3000, oldMailService.getPort());
+
+            writeMailService("4000");
+
+            MailService mailService = awaitMailServicePort(context, 4000);
+            assertNotSame(oldMailService, mailService);
+            assertSame(mailService, context.getBean(UserService.class).getMailService());
+        }
+    }
+
+    @Test
+    void testContextKeepsBeansWhenChangedFileIsBroken() throws Exception {
+        Path contextFile = writeMailService("3000");
+
+        try (FileSystemApplicationContext context =
+                     new FileSystemApplicationContext(Duration.ofMillis(50), contextFile.toString())) {
+            MailService mailService = context.getBean(MailService.class);
+
+            Files.writeString(contextFile, "<beans><bean id=\"mailService\"");
+            Thread.sleep(500);
+            assertSame(mailService, context.getBean(MailService.class));
+
+            writeMailService("5000");
+            assertEquals(5000, awaitMailServicePort(context, 5000).getPort());
+        }
+    }
+
+    private Path writeMailService(String port) throws IOException {
+        return Files.writeString(directory.resolve("mail.xml"), "<beans>\n" +
+                "    <bean id=\"mailService\" class=\"com.kopylov.ioc.entity.MailService\">\n" +
+                "        <property name=\"port\" value=\"" + port + "\"/>\n" +
+                "    </bean>\n" +
+                "</beans>\n");
+    }
+
+    private MailService awaitMailServicePort(ApplicationContext context, int port) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        MailService mailService = context.getBean(MailService.class);
+        while (mailService.getPort() != port && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            mailService = context.getBean(MailService.class);
+        }
+        return mailService;
+    }
+}
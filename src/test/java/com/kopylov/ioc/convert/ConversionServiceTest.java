@@ -0,0 +1,76 @@
+package com.kopylov.ioc.convert;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConversionServiceTest {
+
+    private final ConversionService conversionService = new ConversionService();
+
+    private List<Integer> ports;
+    private Map<String, Duration> timeouts;
+    private List<StringBuilder> builders;
+
+    @Test
+    void testConvertSupportsPrimitivesAndWrappers() {
+        assertEquals((short) 7, conversionService.convert("7", short.class));
+        assertEquals('x', conversionService.convert("x", char.class));
+        assertEquals(3000, conversionService.convert("3000", Integer.class));
+        assertEquals(true, conversionService.convert("true", boolean.class));
+        assertEquals("POP3", conversionService.convert("POP3", String.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> conversionService.convert("xy", char.class));
+    }
+
+    @Test
+    void testConvertSupportsEnumsAndDurations() {
+        assertEquals(ChronoUnit.HOURS, conversionService.convert("HOURS", ChronoUnit.class));
+        assertEquals(Duration.ofMillis(500), conversionService.convert("500ms", Duration.class));
+        assertEquals(Duration.ofMinutes(2), conversionService.convert("2m", Duration.class));
+        assertEquals(Duration.ofSeconds(90), conversionService.convert("PT1M30S", Duration.class));
+    }
+
+    @Test
+    void testConvertSupportsParameterizedListsAndMaps() throws NoSuchFieldException {
+        assertEquals(List.of(80, 443), conversionService.convert("80, 443", fieldType("ports")));
+        assertEquals(Map.of("read", Duration.ofSeconds(5), "write", Duration.ofSeconds(10)),
+                conversionService.convert("read=5s,write=10s", fieldType("timeouts")));
+        assertEquals(List.of("a", "b"), conversionService.convert("a,b", List.class));
+        assertTrue(((List<?>) conversionService.convert("", List.class)).isEmpty());
+    }
+
+    @Test
+    void testEqualLiteralsOfImmutableTypesShareOneInstance() throws NoSuchFieldException {
+        assertSame(conversionService.convert("100000", Integer.class), conversionService.convert("100000", int.class));
+        assertSame(conversionService.convert("80,443", fieldType("ports")),
+                conversionService.convert("80,443", fieldType("ports")));
+    }
+
+    @Test
+    void testRegisteredConverterIsUsedAndNotMemoizedByDefault() throws NoSuchFieldException {
+        conversionService.register(StringBuilder.class, StringBuilder::new);
+
+        StringBuilder first = (StringBuilder) conversionService.convert("text", StringBuilder.class);
+
+        assertEquals("text", first.toString());
+        assertNotSame(first, conversionService.convert("text", StringBuilder.class));
+        assertNotSame(conversionService.convert("a", fieldType("builders")),
+                conversionService.convert("a", fieldType("builders")));
+    }
+
+    @Test
+    void testConvertThrowsIllegalArgumentExceptionForUnsupportedType() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> conversionService.convert("1", Object.class));
+    }
+
+    private Type fieldType(String name) throws NoSuchFieldException {
+        return getClass().getDeclaredField(name).getGenericType();
+    }
+}
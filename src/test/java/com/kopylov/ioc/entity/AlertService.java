@@ -0,0 +1,11 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class AlertService {
+
+    private MessageSender messageSender;
+}
@@ -0,0 +1,13 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+public class Catalog {
+
+    private final List<String> items;
+}
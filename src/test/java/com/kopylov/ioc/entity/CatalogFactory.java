@@ -0,0 +1,19 @@
+package com.kopylov.ioc.entity;
+
+import com.kopylov.ioc.factory.AsyncFactoryBean;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+@Setter
+public class CatalogFactory implements AsyncFactoryBean<Catalog> {
+
+    private String items;
+    private CatalogLoadSignal catalogLoadSignal;
+
+    @Override
+    public CompletionStage<Catalog> getObjectAsync() {
+        return catalogLoadSignal.getLoaded().thenApply(ignored -> new Catalog(List.of(items.split(","))));
+    }
+}
@@ -0,0 +1,14 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Completes when catalogs may be loaded, so tests control when their context becomes ready.
+ */
+@Getter
+public class CatalogLoadSignal {
+
+    private final CompletableFuture<Void> loaded = new CompletableFuture<>();
+}
@@ -0,0 +1,18 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.CompletableFuture;
+
+@Setter
+@Getter
+public class CatalogService {
+
+    private Catalog catalog;
+    private volatile boolean warm;
+
+    public CompletableFuture<Void> warmUp() {
+        return CompletableFuture.runAsync(() -> warm = catalog.getItems().size() > 0);
+    }
+}
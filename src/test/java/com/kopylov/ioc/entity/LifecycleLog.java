@@ -0,0 +1,20 @@
+package com.kopylov.ioc.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class LifecycleLog {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+    public void record(String event) {
+        events.add(event);
+    }
+
+    public List<String> getEvents() {
+        synchronized (events) {
+            return new ArrayList<>(events);
+        }
+    }
+}
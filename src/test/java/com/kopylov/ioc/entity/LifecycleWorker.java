@@ -0,0 +1,23 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class LifecycleWorker {
+
+    private String name;
+    private long stopMillis;
+    private LifecycleLog lifecycleLog;
+    private LifecycleWorker dependency;
+
+    public void start() {
+        lifecycleLog.record("start " + name);
+    }
+
+    public void stop() throws InterruptedException {
+        Thread.sleep(stopMillis);
+        lifecycleLog.record("stop " + name);
+    }
+}
@@ -0,0 +1,14 @@
+package com.kopylov.ioc.entity;
+
+public interface MessageSender {
+
+    String send(String recipient, String message);
+
+    int getSentCount();
+
+    long estimateCost(int messages, double pricePerMessage);
+
+    default String describe() {
+        return getClass().getSimpleName();
+    }
+}
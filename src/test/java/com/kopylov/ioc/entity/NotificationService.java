@@ -0,0 +1,21 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+
+@Getter
+public class NotificationService {
+
+    private final MailService mailService;
+    private final String sender;
+    private final int retries;
+
+    public NotificationService(MailService mailService, String sender, int retries) {
+        this.mailService = mailService;
+        this.sender = sender;
+        this.retries = retries;
+    }
+
+    public NotificationService(MailService mailService, String sender) {
+        this(mailService, sender, 1);
+    }
+}
@@ -0,0 +1,20 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Setter
+@Getter
+public class ReportService {
+
+    public static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+    private MailService mailService;
+    private String format;
+
+    public ReportService() {
+        INSTANCE_COUNT.incrementAndGet();
+    }
+}
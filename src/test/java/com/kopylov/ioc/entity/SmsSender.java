@@ -0,0 +1,24 @@
+package com.kopylov.ioc.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class SmsSender implements MessageSender {
+
+    private String prefix;
+    private MailService mailService;
+    private int sentCount;
+
+    @Override
+    public String send(String recipient, String message) {
+        sentCount++;
+        return prefix + recipient + ": " + message;
+    }
+
+    @Override
+    public long estimateCost(int messages, double pricePerMessage) {
+        return Math.round(messages * pricePerMessage);
+    }
+}
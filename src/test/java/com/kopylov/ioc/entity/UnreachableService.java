@@ -0,0 +1,19 @@
+package com.kopylov.ioc.entity;
+
+import java.io.IOException;
+
+public class UnreachableService {
+
+    private String host;
+
+    public UnreachableService() {
+    }
+
+    public UnreachableService(String host) throws IOException {
+        throw new IOException("Host " + host + " is unreachable");
+    }
+
+    public void setHost(String host) throws IOException {
+        throw new IOException("Host " + host + " is unreachable");
+    }
+}
@@ -0,0 +1,40 @@
+package com.kopylov.ioc.entity;
+
+import com.kopylov.ioc.processor.BeanPostProcessor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Getter
+public class UpperCaseSenderPostProcessor implements BeanPostProcessor {
+
+    private final List<String> processedBeanIds = new CopyOnWriteArrayList<>();
+
+    @Override
+    public boolean appliesTo(Class<?> beanClass) {
+        return MessageSender.class.isAssignableFrom(beanClass);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanId) {
+        processedBeanIds.add(beanId);
+        MessageSender target = (MessageSender) bean;
+        return new MessageSender() {
+            @Override
+            public String send(String recipient, String message) {
+                return target.send(recipient, message).toUpperCase();
+            }
+
+            @Override
+            public int getSentCount() {
+                return target.getSentCount();
+            }
+
+            @Override
+            public long estimateCost(int messages, double pricePerMessage) {
+                return target.estimateCost(messages, pricePerMessage);
+            }
+        };
+    }
+}
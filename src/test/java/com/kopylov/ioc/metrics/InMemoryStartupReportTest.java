@@ -0,0 +1,50 @@
+package com.kopylov.ioc.metrics;
+
+import com.kopylov.ioc.context.ClassPathApplicationContext;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryStartupReportTest {
+
+    @Test
+    void testReportContainsStepsOfEveryPhase() {
+        InMemoryStartupReport report = new InMemoryStartupReport();
+        new ClassPathApplicationContext(new XmlBeanDefinitionStaxReader("/context/context-with-import.xml"),
+                false, null, report);
+
+        Map<StartupPhase, InMemoryStartupReport.PhaseSummary> summaries = report.getPhaseSummaries();
+
+        assertEquals(1, summaries.get(StartupPhase.CONTEXT_STARTUP).getCount());
+        assertEquals(2, summaries.get(StartupPhase.PARSE_RESOURCE).getCount());
+        assertEquals(3, summaries.get(StartupPhase.LOAD_CLASS).getCount());
+        assertEquals(3, summaries.get(StartupPhase.INSTANTIATE).getCount());
+        assertEquals(3, summaries.get(StartupPhase.SET_PROPERTIES).getCount());
+        assertEquals(2, summaries.get(StartupPhase.WIRE_REFS).getCount());
+        assertTrue(summaries.get(StartupPhase.CONTEXT_STARTUP).getTotalNanos() > 0);
+        assertTrue(report.toString().startsWith("Startup report:"));
+    }
+
+    @Test
+    void testGetSlowestStepsReturnsStepsOfPhaseOrderedByDuration() {
+        InMemoryStartupReport report = new InMemoryStartupReport();
+        report.stepFinished(new StartupStep(StartupPhase.INSTANTIATE, "fast", "main", 10, -1));
+        report.stepFinished(new StartupStep(StartupPhase.INSTANTIATE, "slow", "main", 30, -1));
+        report.stepFinished(new StartupStep(StartupPhase.WIRE_REFS, "other", "main", 50, -1));
+
+        List<StartupStep> slowestSteps = report.getSlowestSteps(StartupPhase.INSTANTIATE, 1);
+
+        assertEquals(1, slowestSteps.size());
+        assertEquals("slow", slowestSteps.get(0).getName());
+    }
+
+    @Test
+    void testNoneRecorderDoesNotReportSteps() {
+        StartupRecorder.NONE.start(StartupPhase.INSTANTIATE, "bean").stop();
+        assertSame(StartupRecorder.NONE, StartupRecorder.of(null));
+    }
+}
@@ -0,0 +1,124 @@
+package com.kopylov.ioc.processor;
+
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.UserService;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeanPostProcessorsTest {
+
+    @Test
+    void testProcessorsRunInDiscoveryOrderAndSkipProcessorBeans() {
+        List<String> calls = new ArrayList<>();
+        BeanPostProcessor first = new RecordingProcessor("first", calls);
+        BeanPostProcessor second = new RecordingProcessor("second", calls);
+        BeanPostProcessors postProcessors = new BeanPostProcessors();
+        postProcessors.discover(List.of(new MailService(), first, second));
+
+        MailService mailService = new MailService();
+        Object processedBean = postProcessors.applyBeforeInitialization("mailService", mailService);
+        processedBean = postProcessors.applyAfterInitialization("mailService", processedBean);
+        postProcessors.applyBeforeInitialization("second", second);
+
+        assertSame(mailService, processedBean);
+        assertEquals(List.of("first before mailService", "second before mailService",
+                "first after mailService", "second after mailService"), calls);
+    }
+
+    @Test
+    void testApplicabilityIsResolvedOncePerClass() {
+        AtomicInteger appliesToCalls = new AtomicInteger();
+        AtomicInteger processedBeans = new AtomicInteger();
+        BeanPostProcessors postProcessors = new BeanPostProcessors(List.of(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanId) {
+                processedBeans.incrementAndGet();
+                return bean;
+            }
+
+            @Override
+            public boolean appliesTo(Class<?> beanClass) {
+                appliesToCalls.incrementAndGet();
+                return beanClass == MailService.class;
+            }
+        }));
+
+        for (int i = 0; i < 10; i++) {
+            postProcessors.applyBeforeInitialization("mailService" + i, new MailService());
+            postProcessors.applyBeforeInitialization("userService" + i, new UserService());
+        }
+
+        assertEquals(2, appliesToCalls.get());
+        assertEquals(10, processedBeans.get());
+    }
+
+    @Test
+    void testDiscoverKeepsFirstDiscoveredProcessors() {
+        BeanPostProcessors postProcessors = new BeanPostProcessors();
+        assertFalse(postProcessors.isDiscovered());
+
+        postProcessors.discover(List.of(new MailService()));
+        postProcessors.discover(List.of(new RecordingProcessor("late", new ArrayList<>())));
+
+        assertTrue(postProcessors.isDiscovered());
+        assertTrue(postProcessors.isEmpty());
+    }
+
+    @Test
+    void testRediscoverReplacesProcessorsResolvedForClass() {
+        List<String> calls = new ArrayList<>();
+        BeanPostProcessors postProcessors = new BeanPostProcessors();
+        postProcessors.discover(List.of(new RecordingProcessor("first", calls)));
+        postProcessors.applyBeforeInitialization("mailService", new MailService());
+
+        postProcessors.rediscover(List.of(new RecordingProcessor("second", calls)));
+        postProcessors.applyBeforeInitialization("mailService", new MailService());
+        postProcessors.rediscover(List.of());
+        postProcessors.applyBeforeInitialization("mailService", new MailService());
+
+        assertEquals(List.of("first before mailService", "second before mailService"), calls);
+        assertTrue(postProcessors.isEmpty());
+    }
+
+    @Test
+    void testNullReplacementThrowsBeanInstantiationException() {
+        BeanPostProcessors postProcessors = new BeanPostProcessors(List.of(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanId) {
+                return null;
+            }
+        }));
+
+        assertThrows(BeanInstantiationException.class,
+                () -> postProcessors.applyAfterInitialization("mailService", new MailService()));
+    }
+
+    private static class RecordingProcessor implements BeanPostProcessor {
+
+        private final String name;
+        private final List<String> calls;
+
+        private RecordingProcessor(String name, List<String> calls) {
+            this.name = name;
+            this.calls = calls;
+        }
+
+        @Override
+        public Object postProcessBeforeInitialization(Object bean, String beanId) {
+            calls.add(name + " before " + beanId);
+            return bean;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanId) {
+            calls.add(name + " after " + beanId);
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.kopylov.ioc.proxy;
+
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.MessageSender;
+import com.kopylov.ioc.entity.SmsSender;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProxyFactoryTest {
+
+    @Test
+    void testProxyInterceptsOnlyMethodsInterceptorAppliesTo() {
+        AtomicInteger interceptedCalls = new AtomicInteger();
+        ProxyFactory proxyFactory = new ProxyFactory(List.of(new MethodInterceptor() {
+            @Override
+            public Object intercept(MethodInvocation invocation) throws Throwable {
+                interceptedCalls.incrementAndGet();
+                return ((String) invocation.proceed()).toUpperCase();
+            }
+
+            @Override
+            public boolean appliesTo(String beanId, Method method) {
+                return method.getName().equals("send");
+            }
+        }));
+        SmsSender smsSender = createSmsSender();
+
+        MessageSender proxy = (MessageSender) proxyFactory.proxy("smsSender", smsSender);
+
+        assertTrue(proxy.getClass().isHidden());
+        assertEquals("SMS TO BOB: HI", proxy.send("Bob", "hi"));
+        assertEquals(1, proxy.getSentCount());
+        assertEquals("SmsSender", proxy.describe());
+        assertEquals(1, interceptedCalls.get());
+        assertSame(smsSender, ProxyFactory.unwrap(proxy));
+    }
+
+    @Test
+    void testInterceptorChainRunsInOrderAndConvertsPrimitives() {
+        MethodInterceptor doubling = invocation -> {
+            Object[] arguments = invocation.getArguments();
+            if (invocation.getMethod().getName().equals("estimateCost")) {
+                arguments[0] = (Integer) arguments[0] * 2;
+            }
+            return invocation.proceed();
+        };
+        MethodInterceptor adding = invocation -> invocation.getMethod().getName().equals("estimateCost")
+                ? (Long) invocation.proceed() + 1 : invocation.proceed();
+        ProxyFactory proxyFactory = new ProxyFactory(List.of(doubling, adding));
+
+        MessageSender proxy = (MessageSender) proxyFactory.proxy("smsSender", createSmsSender());
+
+        assertEquals(11, proxy.estimateCost(5, 1.0));
+    }
+
+    @Test
+    void testInterceptorCanProceedAgainToRetry() {
+        ProxyFactory proxyFactory = new ProxyFactory(List.of(invocation -> {
+            try {
+                return invocation.proceed();
+            } catch (IllegalStateException e) {
+                return invocation.proceed();
+            }
+        }));
+        FlakySender flakySender = new FlakySender();
+
+        MessageSender proxy = (MessageSender) proxyFactory.proxy("flakySender", flakySender);
+
+        assertEquals("sent", proxy.send("Bob", "hi"));
+        assertEquals(2, flakySender.getSentCount());
+    }
+
+    @Test
+    void testProxyClassIsSharedByBeansOfSameClass() {
+        ProxyFactory proxyFactory = new ProxyFactory(List.of(MethodInvocation::proceed));
+
+        Object firstProxy = proxyFactory.proxy("firstSender", createSmsSender());
+        Object secondProxy = proxyFactory.proxy("secondSender", createSmsSender());
+
+        assertNotSame(firstProxy, secondProxy);
+        assertSame(firstProxy.getClass(), secondProxy.getClass());
+    }
+
+    @Test
+    void testBeanWithoutInterfacesIsNotProxied() {
+        MailService mailService = new MailService();
+
+        assertSame(mailService, new ProxyFactory(List.of(MethodInvocation::proceed)).proxy("mailService", mailService));
+    }
+
+    @Test
+    void testCheckedExceptionOfInterceptorReachesCaller() {
+        ProxyFactory proxyFactory = new ProxyFactory(List.of(invocation -> {
+            throw new IllegalStateException("rejected");
+        }));
+
+        MessageSender proxy = (MessageSender) proxyFactory.proxy("smsSender", createSmsSender());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> proxy.send("Bob", "hi"));
+    }
+
+    private SmsSender createSmsSender() {
+        SmsSender smsSender = new SmsSender();
+        smsSender.setPrefix("SMS to ");
+        return smsSender;
+    }
+
+    public static class FlakySender implements MessageSender {
+
+        private int sentCount;
+
+        @Override
+        public String send(String recipient, String message) {
+            if (++sentCount == 1) {
+                throw new IllegalStateException("Network error");
+            }
+            return "sent";
+        }
+
+        @Override
+        public int getSentCount() {
+            return sentCount;
+        }
+
+        @Override
+        public long estimateCost(int messages, double pricePerMessage) {
+            return 0;
+        }
+    }
+}
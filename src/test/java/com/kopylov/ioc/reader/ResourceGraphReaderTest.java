@@ -0,0 +1,140 @@
+package com.kopylov.ioc.reader;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResourceGraphReaderTest {
+
+    private final Map<String, ParsedResource> resources = new HashMap<>();
+    private final Map<String, AtomicInteger> parseCounts = new ConcurrentHashMap<>();
+    private final ResourceGraphReader resourceGraphReader = new ResourceGraphReader(ForkJoinPool.commonPool(), path -> {
+        parseCounts.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        return resources.get(path);
+    });
+
+    @Test
+    void testReadEmitsImportedDefinitionsAtImportPosition() {
+        resources.put("/a.xml", resource("a1", "/b.xml", "a2"));
+        resources.put("/b.xml", resource("b1", "/c.xml"));
+        resources.put("/c.xml", resource("c1"));
+
+        assertEquals(List.of("a1", "b1", "c1", "a2"), read("/a.xml"));
+    }
+
+    @Test
+    void testReadParsesResourceImportedTwiceOnlyOnce() {
+        resources.put("/a.xml", resource("/common.xml", "a1"));
+        resources.put("/b.xml", resource("/common.xml", "b1"));
+        resources.put("/common.xml", resource("common1"));
+
+        assertEquals(List.of("common1", "a1", "b1"), read("/a.xml", "/b.xml"));
+        assertEquals(1, parseCounts.get("/common.xml").get());
+    }
+
+    @Test
+    void testReadToleratesCyclicImports() {
+        resources.put("/a.xml", resource("/b.xml", "a1"));
+        resources.put("/b.xml", resource("/a.xml", "b1"));
+
+        assertEquals(List.of("b1", "a1"), read("/a.xml"));
+    }
+
+    @Test
+    void testReadToleratesCyclicImportsOnCallingThread() {
+        resources.put("/a.xml", resource("/b.xml", "a1"));
+        resources.put("/b.xml", resource("/a.xml", "b1"));
+
+        assertEquals(List.of("b1", "a1"), readOnCallingThread("/a.xml"));
+    }
+
+    @Test
+    void testReadParsesDiamondImportOnceOnCallingThread() {
+        resources.put("/a.xml", resource("/b.xml", "/c.xml", "a1"));
+        resources.put("/b.xml", resource("/common.xml", "b1"));
+        resources.put("/c.xml", resource("/common.xml", "c1"));
+        resources.put("/common.xml", resource("common1"));
+
+        assertEquals(List.of("common1", "b1", "c1", "a1"), readOnCallingThread("/a.xml"));
+        assertEquals(1, parseCounts.get("/common.xml").get());
+    }
+
+    @Test
+    void testReadStreamsDefinitionsOfFirstPathFromParseLoop() {
+        resources.put("/b.xml", resource("b1"));
+        List<String> events = new ArrayList<>();
+        ResourceGraphReader reader = new ResourceGraphReader(ForkJoinPool.commonPool(),
+                (path, handler) -> {
+                    if (path.equals("/a.xml")) {
+                        events.add("parse a1");
+                        handler.addBeanDefinition(new BeanDefinition("a1", "com.kopylov.ioc.entity.MailService"));
+                        events.add("parse /b.xml import");
+                        handler.addImport("/b.xml");
+                        events.add("parse a2");
+                        handler.addBeanDefinition(new BeanDefinition("a2", "com.kopylov.ioc.entity.MailService"));
+                    } else {
+                        resources.get(path).replayTo(handler);
+                    }
+                });
+
+        reader.read(new String[]{"/a.xml"}, beanDefinition -> events.add("consume " + beanDefinition.getId()));
+
+        assertEquals(List.of("parse a1", "consume a1", "parse /b.xml import", "consume b1", "parse a2",
+                "consume a2"), events);
+    }
+
+    @Test
+    void testReadThrowsBeanDefinitionReadExceptionOnDuplicateId() {
+        resources.put("/a.xml", resource("/b.xml", "service"));
+        resources.put("/b.xml", resource("service"));
+
+        BeanDefinitionReadException exception =
+                Assertions.assertThrows(BeanDefinitionReadException.class, () -> read("/a.xml"));
+        assertEquals("Duplicate bean id 'service' declared in /b.xml and /a.xml", exception.getMessage());
+    }
+
+    @Test
+    void testResolveImport() {
+        assertEquals("/context/context.xml", ResourceGraphReader.resolveImport("context.xml"));
+        assertEquals("/context/context.xml", ResourceGraphReader.resolveImport("/context.xml"));
+    }
+
+    private List<String> read(String... paths) {
+        List<String> ids = new ArrayList<>();
+        resourceGraphReader.read(paths, beanDefinition -> ids.add(beanDefinition.getId()));
+        return ids;
+    }
+
+    private List<String> readOnCallingThread(String... paths) {
+        ResourceGraphReader reader = new ResourceGraphReader(Runnable::run, path -> {
+            parseCounts.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+            return resources.get(path);
+        });
+        List<String> ids = new ArrayList<>();
+        reader.read(paths, beanDefinition -> ids.add(beanDefinition.getId()));
+        return ids;
+    }
+
+    private static ParsedResource resource(String... entries) {
+        ParsedResource parsedResource = new ParsedResource();
+        for (String entry : entries) {
+            if (entry.startsWith("/")) {
+                parsedResource.addImport(entry);
+            } else {
+                parsedResource.addBeanDefinition(new BeanDefinition(entry, "com.kopylov.ioc.entity.MailService"));
+            }
+        }
+        return parsedResource;
+    }
+}
@@ -0,0 +1,54 @@
+package com.kopylov.ioc.reader.annotation;
+
+import com.kopylov.ioc.component.GreetingService;
+import com.kopylov.ioc.component.NameFormatter;
+import com.kopylov.ioc.context.ClassPathApplicationContext;
+import com.kopylov.ioc.entity.BeanDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ComponentIndexBeanDefinitionReaderITest {
+
+    @Test
+    void testReadBeanDefinitionReadsComponentsFromIndex() {
+        ComponentIndexBeanDefinitionReader reader = new ComponentIndexBeanDefinitionReader("com.kopylov.ioc.component");
+
+        Map<String, BeanDefinition> beanDefinitions = reader.readBeanDefinition().stream()
+                .collect(Collectors.toMap(BeanDefinition::getId, Function.identity()));
+
+        assertEquals(3, beanDefinitions.size());
+        BeanDefinition greetingService = beanDefinitions.get("greetingService");
+        assertEquals("com.kopylov.ioc.component.GreetingService", greetingService.getClazz());
+        assertEquals(Map.of("greeting", "Hello"), greetingService.getProperty());
+        assertEquals(Map.of("nameFormatter", "formatter"), greetingService.getRefProperty());
+        assertEquals("prototype", beanDefinitions.get("formatter").getScope());
+        assertTrue(beanDefinitions.get("reportArchive").getLazyInit());
+    }
+
+    @Test
+    void testReadBeanDefinitionSkipsComponentsOutsideBasePackages() {
+        ComponentIndexBeanDefinitionReader reader = new ComponentIndexBeanDefinitionReader("com.kopylov.ioc.entity");
+
+        List<BeanDefinition> beanDefinitions = reader.readBeanDefinition();
+
+        assertTrue(beanDefinitions.isEmpty());
+    }
+
+    @Test
+    void testContextCreatesBeansFromComponentIndex() {
+        ClassPathApplicationContext context = new ClassPathApplicationContext(
+                new ComponentIndexBeanDefinitionReader("com.kopylov.ioc.component"), false, null);
+
+        GreetingService greetingService = context.getBean(GreetingService.class);
+
+        assertEquals("Hello", greetingService.getGreeting());
+        assertTrue(greetingService.getNameFormatter().isUpperCase());
+        assertNotSame(greetingService.getNameFormatter(), context.getBean(NameFormatter.class));
+    }
+}
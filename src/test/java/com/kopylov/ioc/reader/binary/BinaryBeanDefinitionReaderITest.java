@@ -0,0 +1,111 @@
+package com.kopylov.ioc.reader.binary;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.reader.stax.XmlBeanDefinitionStaxReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryBeanDefinitionReaderITest {
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void testCompiledSnapshotContainsSameDefinitionsAsXml() throws IOException {
+        List<Path> snapshots = new BeanDefinitionCompiler().compile(outputDirectory, "/context/context-with-import.xml");
+
+        assertEquals(outputDirectory.resolve("context/context-with-import.beans"), snapshots.get(0));
+        List<BeanDefinition> expectedBeanDefinitions =
+                new XmlBeanDefinitionStaxReader("/context/context-with-import.xml").readBeanDefinition();
+        List<BeanDefinition> actualBeanDefinitions;
+        try (InputStream inputStream = Files.newInputStream(snapshots.get(0))) {
+            actualBeanDefinitions = BeanDefinitionSnapshot.read(inputStream);
+        }
+
+        assertEquals(expectedBeanDefinitions.size(), actualBeanDefinitions.size());
+        for (int i = 0; i < expectedBeanDefinitions.size(); i++) {
+            BeanDefinition expected = expectedBeanDefinitions.get(i);
+            BeanDefinition actual = actualBeanDefinitions.get(i);
+            assertEquals(expected.getId(), actual.getId());
+            assertEquals(expected.getClazz(), actual.getClazz());
+            assertEquals(expected.getProperty(), actual.getProperty());
+            assertEquals(expected.getRefProperty() == null ? Map.of() : expected.getRefProperty(),
+                    actual.getRefProperty());
+        }
+    }
+
+    @Test
+    void testCompiledSnapshotKeepsLazyInit() throws IOException {
+        Path snapshot = new BeanDefinitionCompiler().compile(outputDirectory, "/context/lazy-context.xml").get(0);
+
+        List<BeanDefinition> actualBeanDefinitions;
+        try (InputStream inputStream = Files.newInputStream(snapshot)) {
+            actualBeanDefinitions = BeanDefinitionSnapshot.read(inputStream);
+        }
+
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(0).getLazyInit());
+        assertNull(actualBeanDefinitions.get(2).getLazyInit());
+    }
+
+    @Test
+    void testReadBeanDefinitionThrowsBeanDefinitionReadExceptionWhenSnapshotIsMissing() {
+        BinaryBeanDefinitionReader binaryBeanDefinitionReader = new BinaryBeanDefinitionReader("/context/missing.beans");
+        Assertions.assertThrows(BeanDefinitionReadException.class, binaryBeanDefinitionReader::readBeanDefinition);
+    }
+
+    @Test
+    void testReadBeanDefinitionThrowsBeanDefinitionReadExceptionWhenFileIsNotSnapshot() {
+        BinaryBeanDefinitionReader binaryBeanDefinitionReader = new BinaryBeanDefinitionReader("/context/context.xml");
+        Assertions.assertThrows(BeanDefinitionReadException.class, binaryBeanDefinitionReader::readBeanDefinition);
+    }
+
+    @Test
+    void testCompiledSnapshotKeepsConstructorArgs() throws IOException {
+        Path snapshot = new BeanDefinitionCompiler().compile(outputDirectory, "/context/constructor-context.xml").get(0);
+
+        List<BeanDefinition> actualBeanDefinitions;
+        try (InputStream inputStream = Files.newInputStream(snapshot)) {
+            actualBeanDefinitions = BeanDefinitionSnapshot.read(inputStream);
+        }
+
+        assertEquals(new XmlBeanDefinitionStaxReader("/context/constructor-context.xml").readBeanDefinition(),
+                actualBeanDefinitions);
+    }
+
+    @Test
+    void testCompiledSnapshotKeepsMethodCaches() throws IOException {
+        Path snapshot = new BeanDefinitionCompiler().compile(outputDirectory, "/context/cached-context.xml").get(0);
+
+        List<BeanDefinition> actualBeanDefinitions;
+        try (InputStream inputStream = Files.newInputStream(snapshot)) {
+            actualBeanDefinitions = BeanDefinitionSnapshot.read(inputStream);
+        }
+
+        assertEquals(new XmlBeanDefinitionStaxReader("/context/cached-context.xml").readBeanDefinition(),
+                actualBeanDefinitions);
+    }
+
+    @Test
+    void testCompiledSnapshotKeepsLifecycleMethods() throws IOException {
+        Path snapshot = new BeanDefinitionCompiler().compile(outputDirectory, "/context/lifecycle-context.xml").get(0);
+
+        List<BeanDefinition> actualBeanDefinitions;
+        try (InputStream inputStream = Files.newInputStream(snapshot)) {
+            actualBeanDefinitions = BeanDefinitionSnapshot.read(inputStream);
+        }
+
+        assertEquals(new XmlBeanDefinitionStaxReader("/context/lifecycle-context.xml").readBeanDefinition(),
+                actualBeanDefinitions);
+    }
+}
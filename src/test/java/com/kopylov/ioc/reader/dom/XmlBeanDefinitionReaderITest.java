@@ -1,6 +1,7 @@
 package com.kopylov.ioc.reader.dom;
 
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
 import com.kopylov.ioc.exception.BeanDefinitionReadException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -83,4 +84,24 @@ class XmlBeanDefinitionReaderITest {
         Assertions.assertThrows(ParserConfigurationException.class, () ->
                 factory.setFeature("http://apache.org/xml/features/nonexistent-feature", true));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReadBeanDefinitionReturnsLazyInitAttribute() {
+        XmlBeanDefinitionReader lazyContextReader = new XmlBeanDefinitionReader("/context/lazy-context.xml");
+        List<BeanDefinition> actualBeanDefinitions = lazyContextReader.readBeanDefinition();
+
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(0).getLazyInit());
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(1).getLazyInit());
+        assertNull(actualBeanDefinitions.get(2).getLazyInit());
+    }
+
+    @Test
+    void testReadBeanDefinitionReturnsConstructorArgsInDeclarationOrder() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new XmlBeanDefinitionReader("/context/constructor-context.xml").readBeanDefinition();
+
+        assertEquals(List.of(ConstructorArgument.ofRef("mailService"), ConstructorArgument.ofValue("noreply@kopylov.com"),
+                ConstructorArgument.ofValue("3")), actualBeanDefinitions.get(0).getConstructorArgs());
+        assertTrue(actualBeanDefinitions.get(2).getConstructorArgs().isEmpty());
+    }
+}
@@ -0,0 +1,74 @@
+package com.kopylov.ioc.reader.file;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileSystemXmlBeanDefinitionReaderITest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadBeanDefinitionResolvesImportsRelativeToFile() throws IOException {
+        Path contextFile = writeContext("3000");
+        FileSystemXmlBeanDefinitionReader reader = new FileSystemXmlBeanDefinitionReader(contextFile.toString());
+
+        List<BeanDefinition> beanDefinitions = reader.readBeanDefinition();
+
+        assertEquals(2, beanDefinitions.size());
+        assertEquals("mailService", beanDefinitions.get(0).getId());
+        assertEquals("3000", beanDefinitions.get(0).getProperty().get("port"));
+        assertEquals("userService", beanDefinitions.get(1).getId());
+        assertEquals(Set.of(contextFile, directory.resolve("services/mail.xml")), reader.getResourceFiles());
+    }
+
+    @Test
+    void testReadBeanDefinitionParsesOnlyInvalidatedFilesAgain() throws IOException {
+        Path contextFile = writeContext("3000");
+        Path mailFile = directory.resolve("services/mail.xml");
+        FileSystemXmlBeanDefinitionReader reader = new FileSystemXmlBeanDefinitionReader(contextFile.toString());
+        BeanDefinition userServiceDefinition = reader.readBeanDefinition().get(1);
+
+        writeContext("4000");
+        assertEquals("3000", reader.readBeanDefinition().get(0).getProperty().get("port"));
+
+        reader.invalidate(mailFile);
+        List<BeanDefinition> beanDefinitions = reader.readBeanDefinition();
+
+        assertEquals("4000", beanDefinitions.get(0).getProperty().get("port"));
+        assertSame(userServiceDefinition, beanDefinitions.get(1));
+    }
+
+    @Test
+    void testReadBeanDefinitionThrowsForMissingFile() {
+        FileSystemXmlBeanDefinitionReader reader =
+                new FileSystemXmlBeanDefinitionReader(directory.resolve("missing.xml").toString());
+
+        assertThrows(BeanDefinitionReadException.class, reader::readBeanDefinition);
+    }
+
+    private Path writeContext(String port) throws IOException {
+        Files.createDirectories(directory.resolve("services"));
+        Files.writeString(directory.resolve("services/mail.xml"), "<beans>\n" +
+                "    <bean id=\"mailService\" class=\"com.kopylov.ioc.entity.MailService\">\n" +
+                "        <property name=\"port\" value=\"" + port + "\"/>\n" +
+                "    </bean>\n" +
+                "</beans>\n");
+        return Files.writeString(directory.resolve("context.xml"), "<beans>\n" +
+                "    <import resource=\"services/mail.xml\"/>\n" +
+                "    <bean id=\"userService\" class=\"com.kopylov.ioc.entity.UserService\">\n" +
+                "        <property name=\"mailService\" ref=\"mailService\"/>\n" +
+                "    </bean>\n" +
+                "</beans>\n");
+    }
+}
@@ -0,0 +1,142 @@
+package com.kopylov.ioc.reader.mapped;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedXmlBeanDefinitionReaderITest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReadBeanDefinitionFromClasspathResolvesImports() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new MappedXmlBeanDefinitionReader("/context/context-with-import.xml").readBeanDefinition();
+
+        assertEquals(3, actualBeanDefinitions.size());
+        assertEquals("paymentService", actualBeanDefinitions.get(0).getId());
+        assertEquals("userService", actualBeanDefinitions.get(1).getId());
+        assertEquals("mailService", actualBeanDefinitions.get(2).getId());
+        assertEquals("com.kopylov.ioc.entity.MailService", actualBeanDefinitions.get(2).getClazz());
+        assertEquals("visa", actualBeanDefinitions.get(0).getProperty().get("paymentType"));
+        assertEquals("mailService", actualBeanDefinitions.get(0).getRefProperty().get("mailService"));
+        assertEquals("3000", actualBeanDefinitions.get(2).getProperty().get("port"));
+    }
+
+    @Test
+    void testReadBeanDefinitionFromMappedFileResolvesRelativeImports() throws IOException {
+        Files.writeString(directory.resolve("mail.xml"),
+                "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                        "<!-- <bean id=\"commented\" class=\"none\"/> -->\n" +
+                        "<beans>\n" +
+                        "    <bean id='mailService' class='com.kopylov.ioc.entity.MailService' lazy-init='true'>\n" +
+                        "        <property name=\"protocol\" value=\"P&amp;P &#x41;\"/>\n" +
+                        "    </bean>\n" +
+                        "</beans>");
+        Path context = Files.writeString(directory.resolve("context.xml"),
+                "<beans>\n" +
+                        "    <import resource=\"mail.xml\"/>\n" +
+                        "    <bean id=\"userService\" class=\"com.kopylov.ioc.entity.UserService\">\n" +
+                        "        <property name=\"mailService\" ref=\"mailService\"/>\n" +
+                        "        <property name=\"user\" value=\"\u0412\u0430\u0434\u0438\u043c\"/>\n" +
+                        "    </bean>\n" +
+                        "    <bean id=\"paymentService\" class=\"com.kopylov.ioc.entity.PaymentService\"/>\n" +
+                        "</beans>");
+
+        List<BeanDefinition> actualBeanDefinitions =
+                new MappedXmlBeanDefinitionReader(context.toString()).readBeanDefinition();
+
+        assertEquals(3, actualBeanDefinitions.size());
+        assertEquals("mailService", actualBeanDefinitions.get(0).getId());
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(0).getLazyInit());
+        assertEquals("P&P A", actualBeanDefinitions.get(0).getProperty().get("protocol"));
+        assertEquals("\u0412\u0430\u0434\u0438\u043c", actualBeanDefinitions.get(1).getProperty().get("user"));
+        assertEquals("mailService", actualBeanDefinitions.get(1).getRefProperty().get("mailService"));
+        assertEquals("paymentService", actualBeanDefinitions.get(2).getId());
+    }
+
+    @Test
+    void testReadBeanDefinitionReadsCyclicAndRepeatedImportsOnce() throws IOException {
+        Files.writeString(directory.resolve("mail.xml"), "<beans>\n" +
+                "    <import resource=\"context.xml\"/>\n" +
+                "    <bean id=\"mailService\" class=\"com.kopylov.ioc.entity.MailService\"/>\n" +
+                "</beans>");
+        Path context = Files.writeString(directory.resolve("context.xml"), "<beans>\n" +
+                "    <import resource=\"mail.xml\"/>\n" +
+                "    <import resource=\"./mail.xml\"/>\n" +
+                "    <bean id=\"userService\" class=\"com.kopylov.ioc.entity.UserService\"/>\n" +
+                "</beans>");
+
+        List<BeanDefinition> actualBeanDefinitions =
+                new MappedXmlBeanDefinitionReader(context.toString()).readBeanDefinition();
+
+        assertEquals(2, actualBeanDefinitions.size());
+        assertEquals("mailService", actualBeanDefinitions.get(0).getId());
+        assertEquals("userService", actualBeanDefinitions.get(1).getId());
+    }
+
+    @Test
+    void testThrowExceptionWithBothResourcesWhenBeanIdIsDuplicated() throws IOException {
+        Files.writeString(directory.resolve("mail.xml"), "<beans>\n" +
+                "    <bean id=\"mailService\" class=\"com.kopylov.ioc.entity.MailService\"/>\n" +
+                "</beans>");
+        Path context = Files.writeString(directory.resolve("context.xml"), "<beans>\n" +
+                "    <bean id=\"mailService\" class=\"com.kopylov.ioc.entity.MailService\"/>\n" +
+                "    <import resource=\"mail.xml\"/>\n" +
+                "</beans>");
+        MappedXmlBeanDefinitionReader mappedXmlBeanDefinitionReader =
+                new MappedXmlBeanDefinitionReader(context.toString());
+
+        BeanDefinitionReadException exception = Assertions.assertThrows(BeanDefinitionReadException.class,
+                mappedXmlBeanDefinitionReader::readBeanDefinition);
+
+        assertTrue(exception.getMessage().contains("context.xml"));
+        assertTrue(exception.getMessage().contains("mail.xml"));
+    }
+
+    @Test
+    void testThrowExceptionWhenXmlWrittenWrong() {
+        MappedXmlBeanDefinitionReader mappedXmlBeanDefinitionReader =
+                new MappedXmlBeanDefinitionReader("/context/wrong-context.xml");
+        Assertions.assertThrows(BeanDefinitionReadException.class, mappedXmlBeanDefinitionReader::readBeanDefinition);
+    }
+
+    @Test
+    void testThrowExceptionWhenResourceIsMissing() {
+        MappedXmlBeanDefinitionReader mappedXmlBeanDefinitionReader =
+                new MappedXmlBeanDefinitionReader("/context/missing-context.xml");
+        Assertions.assertThrows(BeanDefinitionReadException.class, mappedXmlBeanDefinitionReader::readBeanDefinition);
+    }
+
+    @Test
+    void testThrowExceptionWithResourceNameWhenCharacterReferenceIsMalformed() {
+        MappedXmlBeanDefinitionReader mappedXmlBeanDefinitionReader =
+                new MappedXmlBeanDefinitionReader("/context/malformed-char-ref-context.xml");
+
+        BeanDefinitionReadException exception = Assertions.assertThrows(BeanDefinitionReadException.class,
+                mappedXmlBeanDefinitionReader::readBeanDefinition);
+
+        assertTrue(exception.getMessage().contains("malformed-char-ref-context.xml"));
+    }
+
+    @Test
+    void testReadBeanDefinitionReturnsConstructorArgs() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new MappedXmlBeanDefinitionReader("/context/constructor-context.xml").readBeanDefinition();
+
+        assertEquals(List.of(ConstructorArgument.ofRef("mailService"), ConstructorArgument.ofValue("noreply@kopylov.com"),
+                ConstructorArgument.ofValue("3")), actualBeanDefinitions.get(0).getConstructorArgs());
+        assertEquals("prototype", actualBeanDefinitions.get(1).getScope());
+    }
+}
@@ -1,12 +1,19 @@
 package com.kopylov.ioc.reader.stax;
 
 import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MethodCacheDefinition;
 import com.kopylov.ioc.exception.BeanDefinitionReadException;
+import com.kopylov.ioc.reader.ResourceContentHandler;
 import com.kopylov.ioc.reader.dom.XmlBeanDefinitionReader;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.UnaryOperator;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -70,4 +77,84 @@ class XmlBeanDefinitionStaxReaderITest {
         XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader("/context/wrong-context.xml");
         Assertions.assertThrows(BeanDefinitionReadException.class, xmlBeanDefinitionReader::readBeanDefinition);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testReadBeanDefinitionReturnsLazyInitAttribute() {
+        XmlBeanDefinitionStaxReader lazyContextReader = new XmlBeanDefinitionStaxReader("/context/lazy-context.xml");
+        List<BeanDefinition> actualBeanDefinitions = lazyContextReader.readBeanDefinition();
+
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(0).getLazyInit());
+        assertEquals(Boolean.TRUE, actualBeanDefinitions.get(1).getLazyInit());
+        assertNull(actualBeanDefinitions.get(2).getLazyInit());
+    }
+
+    @Test
+    void testReadBeanDefinitionPushesDefinitionsToConsumerInOrder() {
+        List<String> actualIds = new ArrayList<>();
+        xmlBeanDefinitionStaxReader.readBeanDefinition(beanDefinition -> actualIds.add(beanDefinition.getId()));
+
+        assertEquals(List.of("paymentService", "userService", "mailService"), actualIds);
+    }
+
+    @Test
+    void testStaxReaderThrowsExceptionWhenXmlWrittenWrong() {
+        XmlBeanDefinitionStaxReader wrongContextReader = new XmlBeanDefinitionStaxReader("/context/wrong-context.xml");
+        Assertions.assertThrows(BeanDefinitionReadException.class, wrongContextReader::readBeanDefinition);
+    }
+
+    @Test
+    void testReadBeanDefinitionReturnsConstructorArgsInDeclarationOrder() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new XmlBeanDefinitionStaxReader("/context/constructor-context.xml").readBeanDefinition();
+
+        assertEquals(List.of(ConstructorArgument.ofRef("mailService"), ConstructorArgument.ofValue("noreply@kopylov.com"),
+                ConstructorArgument.ofValue("3")), actualBeanDefinitions.get(0).getConstructorArgs());
+        assertEquals(2, actualBeanDefinitions.get(1).getConstructorArgs().size());
+    }
+
+    @Test
+    void testReadBeanDefinitionReturnsMethodCaches() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new XmlBeanDefinitionStaxReader("/context/cached-context.xml").readBeanDefinition();
+
+        assertEquals(List.of(new MethodCacheDefinition("send", 100, "10m"),
+                new MethodCacheDefinition("estimateCost", null, null)), actualBeanDefinitions.get(0).getMethodCaches());
+    }
+
+    @Test
+    void testReadBeanDefinitionReturnsLifecycleMethods() {
+        List<BeanDefinition> actualBeanDefinitions =
+                new XmlBeanDefinitionStaxReader("/context/lifecycle-context.xml").readBeanDefinition();
+
+        assertEquals("start", actualBeanDefinitions.get(0).getInitMethod());
+        assertEquals("stop", actualBeanDefinitions.get(0).getDestroyMethod());
+        assertNull(actualBeanDefinitions.get(4).getInitMethod());
+        assertNull(actualBeanDefinitions.get(4).getDestroyMethod());
+    }
+
+    @Test
+    void testInputStreamResourceReaderHandsDefinitionsOverBeforeInputIsConsumed() throws Exception {
+        StringBuilder xml = new StringBuilder("<beans>");
+        for (int i = 0; i < 10_000; i++) {
+            xml.append("<bean id=\"mailService").append(i).append("\" class=\"com.kopylov.ioc.entity.MailService\"/>");
+        }
+        byte[] bytes = xml.append("</beans>").toString().getBytes(StandardCharsets.UTF_8);
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        List<Integer> remainingBytes = new ArrayList<>();
+
+        xmlBeanDefinitionStaxReader.inputStreamResourceReader(inputStream, UnaryOperator.identity(),
+                new ResourceContentHandler() {
+                    @Override
+                    public void addBeanDefinition(BeanDefinition beanDefinition) {
+                        remainingBytes.add(inputStream.available());
+                    }
+
+                    @Override
+                    public void addImport(String path) {
+                    }
+                });
+
+        assertEquals(10_000, remainingBytes.size());
+        assertTrue(remainingBytes.get(0) > bytes.length / 2);
+    }
+}
@@ -0,0 +1,127 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.util.CreationPlan;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PooledScopeTest {
+
+    private PooledScope createPool(int poolSize) {
+        BeanDefinition beanDefinition = new BeanDefinition("mailService", "com.kopylov.ioc.entity.MailService");
+        beanDefinition.getProperty().put("port", "3000");
+        return new PooledScope(CreationPlan.of(beanDefinition), refId -> null, poolSize);
+    }
+
+    @Test
+    void testBorrowCreatesInstanceWhenPoolIsEmpty() {
+        PooledScope pool = createPool(2);
+
+        MailService mailService = (MailService) pool.borrow();
+
+        assertEquals(3000, mailService.getPort());
+        assertNotSame(mailService, pool.borrow());
+    }
+
+    @Test
+    void testReleaseKeepsNoMoreThanPoolSizeInstances() {
+        PooledScope pool = createPool(2);
+        List<Object> borrowed = List.of(pool.borrow(), pool.borrow(), pool.borrow());
+
+        borrowed.forEach(pool::release);
+
+        assertEquals(2, pool.getIdleCount());
+        assertTrue(borrowed.contains(pool.borrow()));
+        assertTrue(borrowed.contains(pool.borrow()));
+        assertFalse(borrowed.contains(pool.borrow()));
+    }
+
+    @Test
+    void testReleaseThrowsForForeignInstance() {
+        PooledScope pool = createPool(2);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release("not a mail service"));
+        assertThrows(IllegalArgumentException.class, () -> createPool(0));
+    }
+
+    @Test
+    void testReleaseThrowsForInstanceReleasedTwice() {
+        PooledScope pool = createPool(2);
+        Object instance = pool.borrow();
+        pool.release(instance);
+
+        assertThrows(IllegalArgumentException.class, () -> pool.release(instance));
+
+        assertEquals(1, pool.getIdleCount());
+        assertSame(instance, pool.borrow());
+        assertNotSame(instance, pool.borrow());
+    }
+
+    @Test
+    void testConcurrentReleasesOfSameInstanceStoreItOnce() {
+        PooledScope pool = createPool(4);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                Object instance = pool.borrow();
+                CountDownLatch start = new CountDownLatch(1);
+                List<CompletableFuture<Boolean>> releases = new ArrayList<>();
+                for (int j = 0; j < 2; j++) {
+                    releases.add(CompletableFuture.supplyAsync(() -> {
+                        try {
+                            start.await();
+                            pool.release(instance);
+                            return true;
+                        } catch (IllegalArgumentException e) {
+                            return false;
+                        } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, executor));
+                }
+                start.countDown();
+
+                assertEquals(1, releases.stream().filter(CompletableFuture::join).count());
+                assertEquals(1, pool.getIdleCount());
+                assertSame(instance, pool.borrow());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testInstanceIsNeverHandedToTwoBorrowersAtOnce() {
+        PooledScope pool = createPool(4);
+        Set<Object> inUse = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        Object instance = pool.borrow();
+                        assertTrue(inUse.add(instance));
+                        inUse.remove(instance);
+                        pool.release(instance);
+                    }
+                }, executor));
+            }
+            futures.forEach(CompletableFuture::join);
+            assertTrue(pool.getIdleCount() <= 4);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.kopylov.ioc.scope;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.util.CreationPlan;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ThreadScopeTest {
+
+    private final ThreadScope threadScope = new ThreadScope(
+            CreationPlan.of(new BeanDefinition("mailService", "com.kopylov.ioc.entity.MailService")), refId -> null);
+
+    @Test
+    void testGetInstanceReturnsSameInstanceOnSameThread() {
+        assertSame(threadScope.getInstance(), threadScope.getInstance());
+    }
+
+    @Test
+    void testGetInstanceReturnsDifferentInstancesOnDifferentThreads() {
+        Object instance = threadScope.getInstance();
+
+        Object otherThreadInstance = CompletableFuture.supplyAsync(threadScope::getInstance).join();
+
+        assertNotSame(instance, otherThreadInstance);
+    }
+
+    @Test
+    void testCreateRejectsDestroyMethodOfScopesNotKeepingInstances() {
+        for (String scope : new String[]{BeanScope.THREAD, BeanScope.PROTOTYPE}) {
+            BeanDefinition beanDefinition = new BeanDefinition("mailService", "com.kopylov.ioc.entity.MailService");
+            beanDefinition.setScope(scope);
+            beanDefinition.setDestroyMethod("close");
+
+            assertThrows(BeanInstantiationException.class, () -> BeanScopes.create(beanDefinition, refId -> null));
+        }
+    }
+}
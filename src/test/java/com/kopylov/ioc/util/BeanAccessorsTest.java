@@ -0,0 +1,61 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.UserService;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BeanAccessorsTest {
+
+    @Test
+    void testConstructorCreatesNewInstanceOnEveryCall() throws NoSuchMethodException {
+        Supplier<Object> constructor = BeanAccessors.constructor(MailService.class.getConstructor());
+
+        Object firstInstance = constructor.get();
+        Object secondInstance = constructor.get();
+
+        assertInstanceOf(MailService.class, firstInstance);
+        assertInstanceOf(MailService.class, secondInstance);
+        assertNotSame(firstInstance, secondInstance);
+    }
+
+    @Test
+    void testSetterUnboxesPrimitiveValue() throws NoSuchMethodException {
+        MailService mailService = new MailService();
+        BiConsumer<Object, Object> setter = BeanAccessors.setter(MailService.class.getMethod("setPort", int.class));
+
+        setter.accept(mailService, 3000);
+
+        assertEquals(3000, mailService.getPort());
+    }
+
+    @Test
+    void testFieldWriterSetsPrivateField() throws NoSuchFieldException {
+        UserService userService = new UserService();
+        MailService mailService = new MailService();
+        BiConsumer<Object, Object> fieldWriter = BeanAccessors.fieldWriter(UserService.class.getDeclaredField("mailService"));
+
+        fieldWriter.accept(userService, mailService);
+
+        assertSame(mailService, userService.getMailService());
+    }
+
+    @Test
+    void testFieldWriterFallsBackToReflectionForFinalField() throws NoSuchFieldException {
+        FinalFieldHolder holder = new FinalFieldHolder();
+        BiConsumer<Object, Object> fieldWriter = BeanAccessors.fieldWriter(FinalFieldHolder.class.getDeclaredField("value"));
+
+        fieldWriter.accept(holder, "changed");
+
+        assertEquals("changed", holder.value);
+    }
+
+    private static class FinalFieldHolder {
+
+        private final String value = new String("initial");
+    }
+}
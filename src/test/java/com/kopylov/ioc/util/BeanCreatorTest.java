@@ -2,12 +2,15 @@ package com.kopylov.ioc.util;
 
 import com.kopylov.ioc.entity.*;
 import com.kopylov.ioc.exception.BeanInstantiationException;
+import com.kopylov.ioc.exception.CircularDependencyException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -84,6 +87,33 @@ public class BeanCreatorTest {
                     new BeanDefinition("userService", "wrong.path.to.Service")));
         });
     }
-}
 
+    @Test
+    void testCreateBeansInParallelInjectsRefProperties() {
+        userServiceBeanDefinition.getRefProperty().put("mailService", "mailService");
+        paymentServiceBeanDefinition.getRefProperty().put("mailService", "mailService");
+        mailServiceBeanDefinition.getProperty().put("port", "3000");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Map<String, Bean> beans = new BeanCreator(List.of(userServiceBeanDefinition,
+                    paymentServiceBeanDefinition, mailServiceBeanDefinition), executor).createBeans();
+
+            MailService mailService = (MailService) beans.get("mailService").getValue();
+            assertEquals(3000, mailService.getPort());
+            assertThat(beans.get("userService").getValue(), hasProperty("mailService", sameInstance(mailService)));
+            assertThat(beans.get("paymentService").getValue(), hasProperty("mailService", sameInstance(mailService)));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testCreateBeansInParallelThrowsCircularDependencyException() {
+        userServiceBeanDefinition.getRefProperty().put("mailService", "paymentService");
+        paymentServiceBeanDefinition.getRefProperty().put("mailService", "userService");
+        BeanCreator parallelBeanCreator = new BeanCreator(List.of(userServiceBeanDefinition,
+                paymentServiceBeanDefinition), Runnable::run);
 
+        Assertions.assertThrows(CircularDependencyException.class, parallelBeanCreator::createBeans);
+    }
+}
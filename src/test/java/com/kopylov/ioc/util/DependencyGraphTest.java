@@ -0,0 +1,75 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.entity.BeanDefinition;
+import com.kopylov.ioc.exception.CircularDependencyException;
+import com.kopylov.ioc.exception.NoSuchBeanException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGraphTest {
+
+    private final BeanDefinition userServiceBeanDefinition =
+            new BeanDefinition("userService", "com.kopylov.ioc.entity.UserService");
+    private final BeanDefinition paymentServiceBeanDefinition =
+            new BeanDefinition("paymentService", "com.kopylov.ioc.entity.PaymentService");
+    private final BeanDefinition mailServiceBeanDefinition =
+            new BeanDefinition("mailService", "com.kopylov.ioc.entity.MailService");
+
+    @Test
+    void testTopologicalOrderPlacesDependenciesFirst() {
+        userServiceBeanDefinition.getRefProperty().put("mailService", "mailService");
+        paymentServiceBeanDefinition.getRefProperty().put("mailService", "mailService");
+
+        List<String> order = DependencyGraph.of(List.of(userServiceBeanDefinition, paymentServiceBeanDefinition,
+                mailServiceBeanDefinition)).topologicalOrder();
+
+        assertEquals(3, order.size());
+        assertTrue(order.indexOf("mailService") < order.indexOf("userService"));
+        assertTrue(order.indexOf("mailService") < order.indexOf("paymentService"));
+    }
+
+    @Test
+    void testTopologicalOrderHandlesLongReferenceChain() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            BeanDefinition beanDefinition = new BeanDefinition("mailService" + i, "com.kopylov.ioc.entity.MailService");
+            if (i < 99_999) {
+                beanDefinition.getRefProperty().put("next", "mailService" + (i + 1));
+            }
+            beanDefinitions.add(beanDefinition);
+        }
+
+        List<String> order = DependencyGraph.of(beanDefinitions).topologicalOrder();
+
+        assertEquals(100_000, order.size());
+        assertEquals("mailService99999", order.get(0));
+        assertEquals("mailService0", order.get(99_999));
+    }
+
+    @Test
+    void testTopologicalOrderThrowsCircularDependencyExceptionWithCycle() {
+        userServiceBeanDefinition.getRefProperty().put("mailService", "mailService");
+        mailServiceBeanDefinition.getRefProperty().put("paymentService", "paymentService");
+        paymentServiceBeanDefinition.getRefProperty().put("userService", "userService");
+        DependencyGraph dependencyGraph = DependencyGraph.of(List.of(userServiceBeanDefinition,
+                paymentServiceBeanDefinition, mailServiceBeanDefinition));
+
+        CircularDependencyException exception =
+                Assertions.assertThrows(CircularDependencyException.class, dependencyGraph::topologicalOrder);
+        assertEquals("Circular dependency between beans: userService -> mailService -> paymentService -> userService",
+                exception.getMessage());
+    }
+
+    @Test
+    void testOfThrowsNoSuchBeanExceptionWhenRefIsMissing() {
+        userServiceBeanDefinition.getRefProperty().put("mailService", "notExistService");
+        Assertions.assertThrows(NoSuchBeanException.class, () -> {
+            DependencyGraph.of(List.of(userServiceBeanDefinition, mailServiceBeanDefinition));
+        });
+    }
+}
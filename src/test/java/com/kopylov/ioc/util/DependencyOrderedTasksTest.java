@@ -0,0 +1,92 @@
+package com.kopylov.ioc.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyOrderedTasksTest {
+
+    private final Map<String, List<String>> dependencies = Map.of(
+            "userService", List.of("mailService", "paymentService"),
+            "paymentService", List.of("mailService"),
+            "mailService", List.of(),
+            "reportService", List.of());
+
+    @Test
+    void testRunStartsTaskAfterTasksOfItsDependencies() {
+        List<String> completedIds = Collections.synchronizedList(new ArrayList<>());
+
+        Map<String, CompletableFuture<String>> futures = DependencyOrderedTasks.run(dependencies.keySet(),
+                dependencies::get, id -> CompletableFuture.supplyAsync(() -> {
+                    completedIds.add(id);
+                    return id;
+                }));
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new)).join();
+
+        assertEquals(4, completedIds.size());
+        assertTrue(completedIds.indexOf("mailService") < completedIds.indexOf("paymentService"));
+        assertTrue(completedIds.indexOf("paymentService") < completedIds.indexOf("userService"));
+        assertEquals("userService", futures.get("userService").join());
+    }
+
+    @Test
+    void testRunStartsIndependentTasksConcurrently() {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Map<String, CompletableFuture<Boolean>> futures = DependencyOrderedTasks.run(
+                List.of("mailService", "reportService"), dependencies::get,
+                id -> CompletableFuture.supplyAsync(() -> {
+                    bothStarted.countDown();
+                    try {
+                        return bothStarted.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+
+        assertTrue(futures.get("mailService").join());
+        assertTrue(futures.get("reportService").join());
+    }
+
+    @Test
+    void testRunFailsDependentsOfFailedTaskWithoutStartingThem() {
+        List<String> startedIds = Collections.synchronizedList(new ArrayList<>());
+
+        Map<String, CompletableFuture<Object>> futures = DependencyOrderedTasks.run(dependencies.keySet(),
+                dependencies::get, id -> {
+                    startedIds.add(id);
+                    return "mailService".equals(id)
+                            ? CompletableFuture.failedFuture(new IllegalStateException(id))
+                            : CompletableFuture.completedFuture(id);
+                });
+
+        assertThrows(CompletionException.class, () -> futures.get("userService").join());
+        assertEquals("reportService", futures.get("reportService").join());
+        assertFalse(startedIds.contains("userService"));
+        assertFalse(startedIds.contains("paymentService"));
+    }
+
+    @Test
+    void testRunIgnoresDependenciesClosingCycleAndUnknownIds() {
+        Map<String, List<String>> cyclicDependencies = Map.of(
+                "userService", List.of("paymentService", "unknownService"),
+                "paymentService", List.of("userService"));
+
+        Map<String, CompletableFuture<String>> futures = DependencyOrderedTasks.run(
+                List.of("userService", "paymentService"), cyclicDependencies::get,
+                CompletableFuture::completedFuture);
+
+        assertEquals(List.of("userService", "paymentService"), new ArrayList<>(futures.keySet()));
+        assertEquals("userService", futures.get("userService").join());
+        assertEquals("paymentService", futures.get("paymentService").join());
+    }
+}
@@ -0,0 +1,99 @@
+package com.kopylov.ioc.util;
+
+import com.kopylov.ioc.entity.ConstructorArgument;
+import com.kopylov.ioc.entity.MailService;
+import com.kopylov.ioc.entity.NotificationService;
+import com.kopylov.ioc.entity.UnreachableService;
+import com.kopylov.ioc.entity.UserService;
+import com.kopylov.ioc.exception.BeanInstantiationException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InjectionPlanTest {
+
+    @Test
+    void testForClassReturnsSamePlanForSameClass() {
+        assertSame(InjectionPlan.forClass(MailService.class), InjectionPlan.forClass(MailService.class));
+        assertNotSame(InjectionPlan.forClass(MailService.class), InjectionPlan.forClass(UserService.class));
+    }
+
+    @Test
+    void testInjectPropertyConvertsValueToFieldType() {
+        MailService firstMailService = new MailService();
+        MailService secondMailService = new MailService();
+        InjectionPlan injectionPlan = InjectionPlan.forClass(MailService.class);
+
+        injectionPlan.injectProperty(firstMailService, "mailService", "port", "3000");
+        injectionPlan.injectProperty(secondMailService, "mailService", "port", "4000");
+        injectionPlan.injectProperty(firstMailService, "mailService", "protocol", "POP3");
+
+        assertEquals(3000, firstMailService.getPort());
+        assertEquals(4000, secondMailService.getPort());
+        assertEquals("POP3", firstMailService.getProtocol());
+    }
+
+    @Test
+    void testInjectRefSetsField() {
+        UserService userService = new UserService();
+        MailService mailService = new MailService();
+
+        InjectionPlan.forClass(UserService.class).injectRef(userService, "mailService", mailService);
+
+        assertSame(mailService, userService.getMailService());
+    }
+
+    @Test
+    void testInjectPropertyThrowsIllegalArgumentExceptionWhenSetterIsMissing() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            InjectionPlan.forClass(MailService.class).injectProperty(new MailService(), "mailService", "host", "localhost");
+        });
+    }
+
+    @Test
+    void testNewInstanceCallsConstructorMatchingArgumentCount() {
+        MailService mailService = new MailService();
+        InjectionPlan injectionPlan = InjectionPlan.forClass(NotificationService.class);
+        Object[] args = injectionPlan.prepareConstructorArgs("notificationService",
+                List.of(ConstructorArgument.ofRef("mailService"), ConstructorArgument.ofValue("noreply"),
+                        ConstructorArgument.ofValue("5")));
+        args[0] = mailService;
+
+        NotificationService notificationService =
+                (NotificationService) injectionPlan.newInstance("notificationService", args);
+
+        assertSame(mailService, notificationService.getMailService());
+        assertEquals("noreply", notificationService.getSender());
+        assertEquals(5, notificationService.getRetries());
+    }
+
+    @Test
+    void testPrepareConstructorArgsThrowsBeanInstantiationExceptionWithoutMatchingConstructor() {
+        Assertions.assertThrows(BeanInstantiationException.class, () ->
+                InjectionPlan.forClass(NotificationService.class).prepareConstructorArgs("notificationService",
+                        List.of(ConstructorArgument.ofValue("noreply"))));
+    }
+
+    @Test
+    void testNewInstanceWrapsCheckedExceptionOfConstructor() {
+        BeanInstantiationException exception = assertThrows(BeanInstantiationException.class, () ->
+                InjectionPlan.forClass(UnreachableService.class).newInstance("unreachableService",
+                        new Object[]{"localhost"}));
+
+        assertEquals("Error calling constructor of bean unreachableService.", exception.getMessage());
+        assertInstanceOf(IOException.class, exception.getCause().getCause());
+    }
+
+    @Test
+    void testInjectPropertyWrapsCheckedExceptionOfSetter() {
+        BeanInstantiationException exception = assertThrows(BeanInstantiationException.class, () ->
+                InjectionPlan.forClass(UnreachableService.class).injectProperty(new UnreachableService(),
+                        "unreachableService", "host", "localhost"));
+
+        assertInstanceOf(IOException.class, exception.getCause());
+    }
+}